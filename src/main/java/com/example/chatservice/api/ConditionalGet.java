@@ -0,0 +1,27 @@
+package com.example.chatservice.api;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GETs against a validator computed up front. When {@code If-None-Match} carries the current tag the
+ * answer is 304 and {@code body} never runs, so neither the query nor serialization happens.
+ */
+final class ConditionalGet {
+
+  /** Cacheable by the client only, and always revalidated (replaces Spring Security's {@code no-store}). */
+  private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+  private ConditionalGet() {
+  }
+
+  /** Null once {@code request} has been answered with 304. A null {@code etag} answers in full, untagged. */
+  static <T> ResponseEntity<T> respond(WebRequest request, String etag, Supplier<T> body) {
+    if (etag == null) return ResponseEntity.ok().cacheControl(REVALIDATE).body(body.get());
+    if (request.checkNotModified(etag)) return null;
+    return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+  }
+}
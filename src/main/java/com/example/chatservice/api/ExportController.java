@@ -0,0 +1,53 @@
+package com.example.chatservice.api;
+
+import com.example.chatservice.service.ChatSessionService;
+import com.example.chatservice.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/v1/sessions")
+@RequiredArgsConstructor
+public class ExportController {
+
+  static final String NDJSON = "application/x-ndjson";
+
+  private final ExportService exportService;
+  private final ChatSessionService sessionService;
+
+  @GetMapping(value = "/{sessionId}/export", produces = NDJSON)
+  public void exportSession(@PathVariable UUID sessionId,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+    // checked up front: once streaming starts the status can no longer change
+    sessionService.requireExists(sessionId);
+    try (OutputStream out = open(response, "session-" + sessionId, gzip)) {
+      exportService.exportSession(sessionId, out);
+    }
+  }
+
+  @GetMapping(value = "/export", produces = NDJSON)
+  public void exportUser(@RequestParam String userId,
+                         @RequestParam(defaultValue = "false") boolean gzip,
+                         HttpServletResponse response) throws IOException {
+    try (OutputStream out = open(response, "sessions", gzip)) {
+      exportService.exportUser(userId, out);
+    }
+  }
+
+  private static OutputStream open(HttpServletResponse response, String name, boolean gzip) throws IOException {
+    response.setContentType(NDJSON);
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".ndjson\"");
+    if (!gzip) return response.getOutputStream();
+    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    return new GZIPOutputStream(response.getOutputStream(), 8192);
+  }
+}
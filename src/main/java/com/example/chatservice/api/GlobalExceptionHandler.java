@@ -1,12 +1,21 @@
 package com.example.chatservice.api;
 
+import com.example.chatservice.service.BadRequestException;
+import com.example.chatservice.service.ImportAbortedException;
 import com.example.chatservice.service.NotFoundException;
+import com.example.chatservice.service.OverloadedException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -18,6 +27,43 @@ public class GlobalExceptionHandler {
     return pd;
   }
 
+  @ExceptionHandler(BadRequestException.class)
+  public ProblemDetail badRequest(BadRequestException ex) {
+    var pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    pd.setTitle("Bad Request");
+    return pd;
+  }
+
+  /** Adds {@code committedLines} so the client can resume the import after them. */
+  @ExceptionHandler(ImportAbortedException.class)
+  public ProblemDetail importAborted(ImportAbortedException ex) {
+    var pd = badRequest(ex);
+    pd.setProperty("committedLines", ex.getCommittedLines());
+    return pd;
+  }
+
+  @ExceptionHandler(OverloadedException.class)
+  public ResponseEntity<ProblemDetail> overloaded(OverloadedException ex) {
+    var pd = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    pd.setTitle("Service Unavailable");
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(pd);
+  }
+
+  /** No pooled connection within {@code connection-timeout}: back-pressure, not a server bug. */
+  @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+  public ResponseEntity<ProblemDetail> databaseBusy(Exception ex) {
+    var pd = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "database_busy");
+    pd.setTitle("Service Unavailable");
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(pd);
+  }
+
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public ProblemDetail conflict(DataIntegrityViolationException ex) {
+    var pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "constraint_violation");
+    pd.setTitle("Conflict");
+    return pd;
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ProblemDetail invalid(MethodArgumentNotValidException ex) {
     var pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
@@ -27,6 +73,16 @@ public class GlobalExceptionHandler {
     return pd;
   }
 
+  @ExceptionHandler(HandlerMethodValidationException.class)
+  public ProblemDetail invalid(HandlerMethodValidationException ex) {
+    var pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("Validation Failed");
+    pd.setDetail(ex.getAllValidationResults().stream()
+        .flatMap(r -> r.getResolvableErrors().stream())
+        .map(e -> e.getDefaultMessage()).findFirst().orElse("invalid_request"));
+    return pd;
+  }
+
   @ExceptionHandler(ConstraintViolationException.class)
   public ProblemDetail invalid(ConstraintViolationException ex) {
     var pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
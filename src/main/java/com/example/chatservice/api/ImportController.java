@@ -0,0 +1,29 @@
+package com.example.chatservice.api;
+
+import com.example.chatservice.service.ImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/v1/import")
+@RequiredArgsConstructor
+public class ImportController {
+
+  private final ImportService importService;
+
+  /** Body: NDJSON in the export format, optionally sent with {@code Content-Encoding: gzip}. */
+  @PostMapping(consumes = ExportController.NDJSON)
+  public ImportService.Result importNdjson(HttpServletRequest request) throws IOException {
+    try (InputStream in = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+        ? new GZIPInputStream(request.getInputStream(), 8192)
+        : request.getInputStream()) {
+      return importService.importNdjson(in);
+    }
+  }
+}
@@ -1,42 +1,103 @@
 package com.example.chatservice.api;
 
+import com.example.chatservice.api.dto.CursorResponse;
 import com.example.chatservice.api.dto.MessageDtos;
 import com.example.chatservice.api.dto.PageResponse;
+import com.example.chatservice.api.dto.SliceResponse;
+import com.example.chatservice.cache.ReadCoalescer;
 import com.example.chatservice.domain.ChatMessage;
 import com.example.chatservice.service.ChatMessageService;
+import com.example.chatservice.service.GroupCommitIngestor;
+import com.example.chatservice.service.MessageCursor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
-@RequestMapping("/api/v1/sessions/{sessionId}/messages")
+@RequestMapping("/api/v1/sessions/{sessionId}")
 @RequiredArgsConstructor
 public class MessageController {
 
   private final ChatMessageService messageService;
+  private final ReadCoalescer coalescer;
+  // present only with app.ingest.mode=group-commit
+  private final Optional<GroupCommitIngestor> ingestor;
 
-  @PostMapping
+  @PostMapping("/messages")
   @ResponseStatus(HttpStatus.CREATED)
   public MessageDtos.MessageResponse append(@PathVariable UUID sessionId, @Valid @RequestBody MessageDtos.CreateMessageRequest req) {
-    var m = messageService.append(sessionId, req);
+    var m = ingestor.isPresent() ? ingestor.get().append(sessionId, req) : messageService.append(sessionId, req);
     return map(m);
   }
 
-  @GetMapping
-  public PageResponse<MessageDtos.MessageResponse> history(
+  @PostMapping("/messages:batch")
+  @ResponseStatus(HttpStatus.CREATED)
+  public List<MessageDtos.MessageResponse> appendBatch(@PathVariable UUID sessionId,
+                                                       @RequestBody List<MessageDtos.@Valid CreateMessageRequest> req) {
+    return messageService.appendAll(sessionId, req).stream().map(this::map).toList();
+  }
+
+  /**
+   * History reads carry a weak ETag that changes with the session's newest message; a client that sends it back
+   * in {@code If-None-Match} gets 304 without the page being read. Right after an append the tag is left off.
+   */
+  @GetMapping("/messages")
+  public ResponseEntity<PageResponse<MessageDtos.MessageResponse>> history(
+      @PathVariable UUID sessionId,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "50") int size,
+      WebRequest request
+  ) {
+    return ConditionalGet.respond(request, messageService.historyTag(sessionId), () ->
+        PageResponse.from(coalescer.history(sessionId, Arrays.asList("page", page, size),
+            () -> messageService.history(sessionId, page, size))));
+  }
+
+  @GetMapping(value = "/messages", params = {"count=false", "!cursor"})
+  public ResponseEntity<SliceResponse<MessageDtos.MessageResponse>> historySlice(
       @PathVariable UUID sessionId,
       @RequestParam(defaultValue = "0") int page,
-      @RequestParam(defaultValue = "50") int size
+      @RequestParam(defaultValue = "50") int size,
+      WebRequest request
+  ) {
+    return ConditionalGet.respond(request, messageService.historyTag(sessionId), () ->
+        SliceResponse.from(coalescer.history(sessionId, Arrays.asList("slice", page, size),
+            () -> messageService.historySlice(sessionId, page, size))));
+  }
+
+  /**
+   * Cursor mode, selected by the presence of {@code cursor}. An empty cursor starts at the oldest message,
+   * or at the newest with {@code from=BACKWARD}; afterwards pass back {@code nextCursor}/{@code prevCursor}.
+   * The newest page is what chat UIs open with, so it goes through the session's cached tail.
+   */
+  @GetMapping(value = "/messages", params = "cursor")
+  public ResponseEntity<CursorResponse<MessageDtos.MessageResponse>> historyByCursor(
+      @PathVariable UUID sessionId,
+      @RequestParam String cursor,
+      @RequestParam(defaultValue = "FORWARD") MessageCursor.Direction from,
+      @RequestParam(defaultValue = "50") int size,
+      WebRequest request
   ) {
-    Page<ChatMessage> p = messageService.history(sessionId, page, size);
-    return PageResponse.from(p.map(this::map));
+    var position = cursor.isBlank() ? null : MessageCursor.decode(cursor);
+    return ConditionalGet.respond(request, messageService.historyTag(sessionId), () -> {
+      var w = position == null && from == MessageCursor.Direction.BACKWARD
+          ? messageService.latest(sessionId, size)
+          : messageService.scroll(sessionId, position, from, size);
+      return new CursorResponse<>(w.items(), w.items().size(),
+          w.next() == null ? null : w.next().encode(),
+          w.prev() == null ? null : w.prev().encode());
+    });
   }
 
   private MessageDtos.MessageResponse map(ChatMessage m) {
-    return new MessageDtos.MessageResponse(m.getId(), m.getSession().getId(), m.getSender(), m.getContent(), m.getContextJson(), m.getCreatedAt());
+    return MessageDtos.MessageResponse.from(m);
   }
 }
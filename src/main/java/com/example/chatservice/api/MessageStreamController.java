@@ -0,0 +1,119 @@
+package com.example.chatservice.api;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.push.MessageHub;
+import com.example.chatservice.service.ChatMessageService;
+import com.example.chatservice.service.ChatSessionService;
+import com.example.chatservice.service.MessageCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-sent events for new messages in a session. Each event id is a forward {@link MessageCursor}, so a
+ * reconnecting {@code EventSource} resumes with {@code Last-Event-ID} and gets the missed messages replayed
+ * from the keyset index before live delivery continues. When more than {@code app.push.max-replay} messages
+ * were missed a {@code resync} event tells the client to reload history instead.
+ * <p>
+ * The replay starts {@code app.push.replay-overlap-ms} before the last event, because an append can commit after
+ * a newer message was streamed and so sort before the client's cursor. Messages in that window other than the last
+ * event itself may arrive a second time; clients dedupe by message id.
+ */
+@RestController
+@RequestMapping("/api/v1/sessions/{sessionId}")
+@RequiredArgsConstructor
+public class MessageStreamController {
+
+  private static final int REPLAY_PAGE = 200;
+
+  private final MessageHub hub;
+  private final ChatMessageService messageService;
+  private final ChatSessionService sessionService;
+  private final AppProperties props;
+
+  @GetMapping(value = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(@PathVariable UUID sessionId,
+                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) throws IOException {
+    var cfg = props.getPush();
+    MessageCursor resumeFrom = lastEventId == null || lastEventId.isBlank() ? null : MessageCursor.decode(lastEventId);
+    if (resumeFrom == null) sessionService.requireExists(sessionId);
+
+    var emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(cfg.getTimeoutMinutes()));
+    // subscribe before replaying so nothing committed in between is lost; duplicates are skipped on start
+    var sub = hub.subscribe(sessionId, new EmitterSink(emitter));
+    emitter.onCompletion(sub::close);
+    emitter.onTimeout(sub::close);
+    emitter.onError(ex -> sub.close());
+    try {
+      Set<UUID> replayed = resumeFrom == null ? Set.of()
+          : replay(emitter, sessionId, resumeFrom, cfg.getReplayOverlapMs(), cfg.getMaxReplay());
+      if (replayed == null) {
+        sub.close();
+        emitter.send(SseEmitter.event().name("resync").data(""));
+        emitter.complete();
+        return emitter;
+      }
+      sub.start(replayed);
+    } catch (RuntimeException | IOException ex) {
+      sub.close();
+      throw ex;
+    }
+    return emitter;
+  }
+
+  /**
+   * Sends everything from {@code overlapMs} before {@code from} on, except {@code from} itself; returns the ids
+   * sent, or null when the gap exceeds {@code max}.
+   */
+  private Set<UUID> replay(SseEmitter emitter, UUID sessionId, MessageCursor from, long overlapMs, int max)
+      throws IOException {
+    var cursor = new MessageCursor(MessageCursor.Direction.FORWARD, from.createdAt().minusMillis(overlapMs), new UUID(0, 0));
+    Set<UUID> sent = new HashSet<>();
+    while (cursor != null) {
+      var window = messageService.scroll(sessionId, cursor, MessageCursor.Direction.FORWARD, REPLAY_PAGE);
+      if (sent.size() + window.items().size() > max) return null;
+      for (var m : window.items()) {
+        if (m.id().equals(from.id())) continue;
+        emitter.send(event(m));
+        sent.add(m.id());
+      }
+      cursor = window.next();
+    }
+    return sent;
+  }
+
+  private static SseEmitter.SseEventBuilder event(MessageDtos.MessageResponse m) {
+    var id = new MessageCursor(MessageCursor.Direction.FORWARD, m.createdAt(), m.id());
+    return SseEmitter.event().id(id.encode()).name("message").data(m, MediaType.APPLICATION_JSON);
+  }
+
+  private record EmitterSink(SseEmitter emitter) implements MessageHub.Sink {
+    @Override
+    public void send(MessageDtos.MessageResponse message) throws IOException {
+      emitter.send(event(message));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+      emitter.send(SseEmitter.event().comment("ping"));
+    }
+
+    @Override
+    public void close(String reason) {
+      try {
+        emitter.send(SseEmitter.event().name("close").data(reason));
+      } catch (IOException | IllegalStateException ignored) {
+        // the client is already gone
+      }
+      emitter.complete();
+    }
+  }
+}
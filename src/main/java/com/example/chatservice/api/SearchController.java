@@ -0,0 +1,25 @@
+package com.example.chatservice.api;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.search.MessageSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+  private final MessageSearchService searchService;
+
+  @GetMapping("/messages")
+  public List<MessageDtos.SearchHit> messages(
+      @RequestParam String userId,
+      @RequestParam String q,
+      @RequestParam(defaultValue = "20") int limit
+  ) {
+    return searchService.search(userId, q, limit);
+  }
+}
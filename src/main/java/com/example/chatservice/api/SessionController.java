@@ -2,14 +2,19 @@ package com.example.chatservice.api;
 
 import com.example.chatservice.api.dto.PageResponse;
 import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.api.dto.SliceResponse;
+import com.example.chatservice.cache.ContentVersions;
+import com.example.chatservice.cache.ReadCoalescer;
 import com.example.chatservice.domain.ChatSession;
 import com.example.chatservice.service.ChatSessionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Arrays;
 import java.util.UUID;
 
 @RestController
@@ -18,6 +23,8 @@ import java.util.UUID;
 public class SessionController {
 
   private final ChatSessionService sessionService;
+  private final ReadCoalescer coalescer;
+  private final ContentVersions versions;
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
@@ -26,16 +33,38 @@ public class SessionController {
     return map(s);
   }
 
+  /**
+   * Session lists carry a weak ETag that changes whenever one of the user's sessions does; a client that sends
+   * it back in {@code If-None-Match} gets 304 without the list being read.
+   */
   @GetMapping
-  public PageResponse<SessionDtos.SessionResponse> list(
+  public ResponseEntity<PageResponse<SessionDtos.SessionResponse>> list(
       @RequestParam String userId,
       @RequestParam(required = false) Boolean favorite,
       @RequestParam(required = false) String q,
+      @RequestParam(defaultValue = "CONTAINS") ChatSessionService.TitleMatch match,
       @RequestParam(defaultValue = "0") int page,
-      @RequestParam(defaultValue = "20") int size
+      @RequestParam(defaultValue = "20") int size,
+      WebRequest request
   ) {
-    Page<ChatSession> p = sessionService.list(userId, favorite, q, page, size);
-    return new PageResponse<>(p.map(this::map).getContent(), p.getNumber(), p.getSize(), p.getTotalElements(), p.getTotalPages());
+    return ConditionalGet.respond(request, versions.sessionListTag(userId), () ->
+        PageResponse.from(coalescer.sessions(userId, Arrays.asList("page", favorite, q, match, page, size),
+            () -> sessionService.list(userId, favorite, q, match, page, size))));
+  }
+
+  @GetMapping(params = "count=false")
+  public ResponseEntity<SliceResponse<SessionDtos.SessionResponse>> listSlice(
+      @RequestParam String userId,
+      @RequestParam(required = false) Boolean favorite,
+      @RequestParam(required = false) String q,
+      @RequestParam(defaultValue = "CONTAINS") ChatSessionService.TitleMatch match,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "20") int size,
+      WebRequest request
+  ) {
+    return ConditionalGet.respond(request, versions.sessionListTag(userId), () ->
+        SliceResponse.from(coalescer.sessions(userId, Arrays.asList("slice", favorite, q, match, page, size),
+            () -> sessionService.listSlice(userId, favorite, q, match, page, size))));
   }
 
   @PatchMapping("/{id}/rename")
@@ -55,6 +84,6 @@ public class SessionController {
   }
 
   private SessionDtos.SessionResponse map(ChatSession s) {
-    return new SessionDtos.SessionResponse(s.getId(), s.getUserId(), s.getTitle(), s.isFavorite(), s.getCreatedAt(), s.getUpdatedAt());
+    return SessionDtos.SessionResponse.from(s);
   }
 }
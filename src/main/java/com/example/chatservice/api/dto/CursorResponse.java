@@ -0,0 +1,11 @@
+package com.example.chatservice.api.dto;
+
+import java.util.List;
+
+public record CursorResponse<T>(
+    List<T> items,
+    int size,
+    String nextCursor,
+    String prevCursor
+) {
+}
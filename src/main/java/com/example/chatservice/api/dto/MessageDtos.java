@@ -18,5 +18,15 @@ public class MessageDtos {
   public record MessageResponse(
       UUID id, UUID sessionId, ChatMessage.Sender sender,
       String content, String contextJson, Instant createdAt
+  ) {
+    public static MessageResponse from(ChatMessage m) {
+      return new MessageResponse(m.getId(), m.getSession().getId(), m.getSender(), m.getContent(), m.getContextJson(), m.getCreatedAt());
+    }
+  }
+
+  /** One full-text match; {@code snippet} is a plain-text excerpt around the first matching word. */
+  public record SearchHit(
+      UUID messageId, UUID sessionId, ChatMessage.Sender sender,
+      String snippet, double score, Instant createdAt
   ) {}
 }
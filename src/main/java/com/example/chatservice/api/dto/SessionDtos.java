@@ -1,5 +1,6 @@
 package com.example.chatservice.api.dto;
 
+import com.example.chatservice.domain.ChatSession;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.time.Instant;
@@ -20,5 +21,9 @@ public class SessionDtos {
   public record SessionResponse(
       UUID id, String userId, String title, boolean favorite,
       Instant createdAt, Instant updatedAt
-  ) {}
+  ) {
+    public static SessionResponse from(ChatSession s) {
+      return new SessionResponse(s.getId(), s.getUserId(), s.getTitle(), s.isFavorite(), s.getCreatedAt(), s.getUpdatedAt());
+    }
+  }
 }
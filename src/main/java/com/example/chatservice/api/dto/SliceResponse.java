@@ -0,0 +1,17 @@
+package com.example.chatservice.api.dto;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/** Count-free page: no {@code totalElements}, so the server runs a single query per call. */
+public record SliceResponse<T>(
+    List<T> items,
+    int page,
+    int size,
+    boolean hasNext
+) {
+  public static <T> SliceResponse<T> from(Slice<T> slice) {
+    return new SliceResponse<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+  }
+}
@@ -0,0 +1,175 @@
+package com.example.chatservice.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A concurrent map bounded by the summed weight of its values, or by their count with a weight of one each.
+ * Once a write takes the total past {@code maxWeight}, the least recently used entries are dropped down to 90%
+ * of it on the writing thread; one thread trims at a time and the others carry on instead of queueing. Values
+ * are weighed once when they go in, so they should not change afterwards.
+ * <p>
+ * Reads through {@link #get} and {@link #computeIfAbsent} count as use; {@link #peek} does not, and a value
+ * replaced through {@link #compute} keeps the recency of the one it replaced.
+ */
+public final class BoundedLruMap<K, V> {
+
+  private static final class Node<V> {
+    final V value;
+    final long weight;
+    volatile long lastUsed;
+
+    Node(V value, long weight, long lastUsed) {
+      this.value = value;
+      this.weight = weight;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  private final ConcurrentHashMap<K, Node<V>> nodes = new ConcurrentHashMap<>();
+  private final AtomicLong weight = new AtomicLong();
+  private final ReentrantLock trimming = new ReentrantLock();
+  private final long maxWeight;
+  private final ToLongFunction<? super V> weigher;
+  private final LongSupplier nanoClock;
+  private final Runnable onEviction;
+
+  /** At most {@code maxEntries} entries. */
+  public BoundedLruMap(int maxEntries, LongSupplier nanoClock) {
+    this(maxEntries, v -> 1, nanoClock, () -> { });
+  }
+
+  /** {@code onEviction} runs once per entry dropped to get back under the cap, not for removals. */
+  public BoundedLruMap(long maxWeight, ToLongFunction<? super V> weigher, LongSupplier nanoClock, Runnable onEviction) {
+    this.maxWeight = Math.max(1, maxWeight);
+    this.weigher = weigher;
+    this.nanoClock = nanoClock;
+    this.onEviction = onEviction;
+  }
+
+  public V get(K key) {
+    var node = nodes.get(key);
+    if (node == null) return null;
+    node.lastUsed = nanoClock.getAsLong();
+    return node.value;
+  }
+
+  /** Like {@link #get}, but leaves the entry's recency alone. */
+  public V peek(K key) {
+    var node = nodes.get(key);
+    return node == null ? null : node.value;
+  }
+
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> create) {
+    long now = nanoClock.getAsLong();
+    var node = nodes.get(key);
+    if (node == null) {
+      node = nodes.computeIfAbsent(key, k -> added(create.apply(k), now));
+      trimIfNeeded(key);
+    }
+    node.lastUsed = now;
+    return node.value;
+  }
+
+  /** The value already held, or null after adding {@code value}. */
+  public V putIfAbsent(K key, V value) {
+    var fresh = new Node<>(value, weigher.applyAsLong(value), nanoClock.getAsLong());
+    var current = nodes.putIfAbsent(key, fresh);
+    if (current != null) return current.value;
+    weight.addAndGet(fresh.weight);
+    trimIfNeeded(key);
+    return null;
+  }
+
+  /** Runs {@code remapping} atomically for the key like {@link Map#compute}; null removes the entry. */
+  public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+    long now = nanoClock.getAsLong();
+    var node = nodes.compute(key, (k, current) -> {
+      V value = remapping.apply(k, current == null ? null : current.value);
+      if (current != null && value == current.value) return current;
+      long before = current == null ? 0 : current.weight;
+      if (value == null) {
+        weight.addAndGet(-before);
+        return null;
+      }
+      var next = new Node<>(value, weigher.applyAsLong(value), current == null ? now : current.lastUsed);
+      weight.addAndGet(next.weight - before);
+      return next;
+    });
+    trimIfNeeded(key);
+    return node == null ? null : node.value;
+  }
+
+  public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+    return compute(key, (k, current) -> current == null ? null : remapping.apply(k, current));
+  }
+
+  public V remove(K key) {
+    var removed = nodes.remove(key);
+    if (removed == null) return null;
+    weight.addAndGet(-removed.weight);
+    return removed.value;
+  }
+
+  public void clear() {
+    nodes.keySet().forEach(this::remove);
+  }
+
+  /** Drops the entries not used for longer than {@code idleNanos}. */
+  public void removeIdle(long idleNanos) {
+    long now = nanoClock.getAsLong();
+    nodes.forEach((key, node) -> {
+      if (now - node.lastUsed > idleNanos && nodes.remove(key, node)) weight.addAndGet(-node.weight);
+    });
+  }
+
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    nodes.forEach((key, node) -> action.accept(key, node.value));
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+
+  public long weight() {
+    return weight.get();
+  }
+
+  private Node<V> added(V value, long now) {
+    var node = new Node<>(value, weigher.applyAsLong(value), now);
+    weight.addAndGet(node.weight);
+    return node;
+  }
+
+  /** {@code written} is spared: it may tie with the oldest entries when the clock is coarse. */
+  private void trimIfNeeded(K written) {
+    if (weight.get() <= maxWeight || !trimming.tryLock()) return;
+    try {
+      long target = maxWeight - maxWeight / 10;
+      // snapshot lastUsed first: sorting on a field other threads keep writing breaks the comparator contract
+      List<Map.Entry<K, Long>> byAge = new ArrayList<>(nodes.size());
+      nodes.forEach((key, node) -> byAge.add(Map.entry(key, node.lastUsed)));
+      byAge.sort(Map.Entry.comparingByValue());
+      for (var e : byAge) {
+        if (weight.get() <= target) break;
+        if (e.getKey().equals(written)) continue;
+        var node = nodes.get(e.getKey());
+        if (node != null && nodes.remove(e.getKey(), node)) {
+          weight.addAndGet(-node.weight);
+          onEviction.run();
+        }
+      }
+    } finally {
+      trimming.unlock();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Wraps Jackson's own serializer for {@link MessageDtos.MessageResponse}: the first time a message is written
+ * its JSON is rendered once into a buffer and cached, afterwards the cached bytes are written as a raw value.
+ * Falls back to plain serialization where raw bytes do not fit: token buffers (value conversion), pretty
+ * printing, and messages whose {@code createdAt} is not assigned yet.
+ */
+final class CachedMessageSerializer extends StdSerializer<MessageDtos.MessageResponse>
+    implements ContextualSerializer, ResolvableSerializer {
+
+  private final MessageJsonCache cache;
+  private final JsonSerializer<Object> delegate;
+
+  CachedMessageSerializer(MessageJsonCache cache, JsonSerializer<Object> delegate) {
+    super(MessageDtos.MessageResponse.class);
+    this.cache = cache;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void serialize(MessageDtos.MessageResponse value, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    if (value.id() == null || value.createdAt() == null || gen instanceof TokenBuffer
+        || gen.getPrettyPrinter() != null || !(gen.getCodec() instanceof ObjectMapper mapper)) {
+      delegate.serialize(value, gen, provider);
+      return;
+    }
+    var json = cache.get(value.id());
+    if (json == null) {
+      var out = new ByteArrayOutputStream(256);
+      try (var rendering = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+        delegate.serialize(value, rendering, provider);
+      }
+      json = new RawJson(out.toByteArray());
+      cache.put(value, json);
+    }
+    gen.writeRawValue(json);
+  }
+
+  @Override
+  public void resolve(SerializerProvider provider) throws JsonMappingException {
+    if (delegate instanceof ResolvableSerializer r) r.resolve(provider);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+      throws JsonMappingException {
+    if (!(delegate instanceof ContextualSerializer c)) return this;
+    var contextual = (JsonSerializer<Object>) c.createContextual(provider, property);
+    return contextual == delegate ? this : new CachedMessageSerializer(cache, contextual);
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.repo.SessionListVersionRepository;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionChangedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Weak ETags for session lists and message history, computed without reading the data they describe.
+ * <p>
+ * Both are built from persisted state only, so every instance computes the same tag and tags survive restarts. A
+ * user's session list is versioned by its {@code user_session_version} row, bumped in the transaction of every
+ * create, rename, favorite, delete and import. History is append-only, so its newest message identifies it,
+ * together with the session's {@code message_version}, which only imports bump (they may insert older messages);
+ * appends thus take no lock on the session row. The newest message alone misses an append that commits after a
+ * newer one, so no history tag is given out while the newest message is younger than
+ * {@code app.cache.etags.history-settle-ms}, which must exceed an append's insert-to-commit time (and clock skew
+ * between instances).
+ * <p>
+ * List versions are cached here per user like {@link SessionMetadataCache} caches sessions: dropped after this
+ * instance's writes commit and on notice from other instances (see
+ * {@link com.example.chatservice.cluster.ClusterInvalidation}), and expired after {@code ttl-seconds} in case a
+ * notice was lost. Until then another instance may still answer an outdated tag with 304.
+ */
+@Component
+public class ContentVersions {
+
+  private record Entry(long version, long loadedAt) {}
+
+  private final SessionListVersionRepository listVersions;
+  private final BoundedLruMap<String, Entry> users;
+  private final Stamps stamps = new Stamps();
+  private final LongSupplier nanoClock;
+  private final boolean enabled;
+  private final long ttlNanos;
+
+  @Autowired
+  public ContentVersions(AppProperties props, SessionListVersionRepository listVersions) {
+    this(props, listVersions, System::nanoTime);
+  }
+
+  ContentVersions(AppProperties props, SessionListVersionRepository listVersions, LongSupplier nanoClock) {
+    var cfg = props.getCache().getSessions();
+    this.listVersions = listVersions;
+    this.nanoClock = nanoClock;
+    this.enabled = cfg.isEnabled() && cfg.getMaxEntries() > 0 && cfg.getTtlSeconds() > 0;
+    this.users = new BoundedLruMap<>(cfg.getMaxEntries(), nanoClock);
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, cfg.getTtlSeconds()));
+  }
+
+  /** Take before running the query whose result the tag is sent with. */
+  public String sessionListTag(String userId) {
+    return "W/\"s" + listVersion(userId) + "\"";
+  }
+
+  /**
+   * {@code messageVersion} is the session's, see {@link SessionMetadataCache#messageVersion}; {@code newest} is the
+   * id of its newest message, null when it has none.
+   */
+  public static String historyTag(long messageVersion, UUID newest) {
+    return "W/\"h" + messageVersion + "-" + (newest == null ? "0" : newest) + "\"";
+  }
+
+  private long listVersion(String userId) {
+    if (!enabled) return listVersions.find(userId);
+    long now = nanoClock.getAsLong();
+    var cached = users.get(userId);
+    if (cached != null && now - cached.loadedAt() < ttlNanos) return cached.version();
+    long stamp = stamps.get(userId);
+    var fresh = new Entry(listVersions.find(userId), now);
+    // a write committed after the stamp was taken: the version may predate it
+    users.compute(userId, (id, current) -> stamps.get(id) == stamp ? fresh : current);
+    return fresh.version();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(SessionChangedEvent event) {
+    sessionListChanged(event.userId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeleted(SessionDeletedEvent event) {
+    sessionListChanged(event.userId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImported(MessagesImportedEvent event) {
+    invalidateAll();
+  }
+
+  /** One of the user's sessions changed, here or on another instance. */
+  public void sessionListChanged(String userId) {
+    stamps.bump(userId);
+    users.remove(userId);
+  }
+
+  public void invalidateAll() {
+    stamps.bumpAll();
+    users.clear();
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Serialized JSON of messages by id. A message never changes once written, so after the first response that
+ * carries it, every page, slice, cursor window or stream event copies its bytes instead of running Jackson
+ * over it again. {@link #module()} plugs this into the application's {@code ObjectMapper}. Memory is bounded
+ * by {@code max-bytes}; beyond it the least recently used messages go first.
+ * <p>
+ * Ids are only unique while their row exists: deleting a session drops its messages here, and an import, which
+ * may bring the same ids back with other content, drops everything.
+ */
+@Component
+public class MessageJsonCache {
+
+  /** Rough heap cost of an entry besides its bytes: map node, UUIDs, entry, array header. */
+  private static final int ENTRY_OVERHEAD = 160;
+
+  private record Entry(UUID sessionId, RawJson json) {
+  }
+
+  private final BoundedLruMap<UUID, Entry> entries;
+  private final boolean enabled;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public MessageJsonCache(AppProperties props, MeterRegistry meters) {
+    var cfg = props.getCache().getMessageJson();
+    this.enabled = cfg.isEnabled() && cfg.getMaxBytes() > 0;
+    this.hits = requests(meters, "hit");
+    this.misses = requests(meters, "miss");
+    this.evictions = Counter.builder("chat.cache.json.evictions")
+        .description("Serialized messages dropped to stay under the memory cap")
+        .register(meters);
+    this.entries = new BoundedLruMap<>(cfg.getMaxBytes(), e -> ENTRY_OVERHEAD + e.json().byteLength(), System::nanoTime,
+        evictions::increment);
+    Gauge.builder("chat.cache.json.bytes", entries, BoundedLruMap::weight)
+        .description("Estimated heap held by serialized messages")
+        .baseUnit("bytes")
+        .register(meters);
+  }
+
+  private static Counter requests(MeterRegistry meters, String result) {
+    return Counter.builder("chat.cache.json.requests")
+        .description("Message serializations by whether the cached bytes could be reused")
+        .tag("result", result)
+        .register(meters);
+  }
+
+  /** Serializes {@link MessageDtos.MessageResponse} through this cache. */
+  public Module module() {
+    return new SimpleModule("message-json-cache").setSerializerModifier(new BeanSerializerModifier() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription desc,
+                                                JsonSerializer<?> serializer) {
+        if (!enabled || desc.getBeanClass() != MessageDtos.MessageResponse.class) return serializer;
+        return new CachedMessageSerializer(MessageJsonCache.this, (JsonSerializer<Object>) serializer);
+      }
+    });
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeleted(SessionDeletedEvent event) {
+    invalidate(event.sessionId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImported(MessagesImportedEvent event) {
+    invalidateAll();
+  }
+
+  /** Scans every entry; sessions are deleted far less often than messages are read. */
+  public void invalidate(UUID sessionId) {
+    entries.forEach((id, e) -> {
+      if (sessionId.equals(e.sessionId())) entries.computeIfPresent(id, (k, cur) -> cur == e ? null : cur);
+    });
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  RawJson get(UUID id) {
+    var e = entries.get(id);
+    (e == null ? misses : hits).increment();
+    return e == null ? null : e.json();
+  }
+
+  void put(MessageDtos.MessageResponse message, RawJson json) {
+    entries.putIfAbsent(message.id(), new Entry(message.sessionId(), json));
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  long bytes() {
+    return entries.weight();
+  }
+}
@@ -0,0 +1,204 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The newest messages of recently read sessions, so reopening a chat does not touch the database.
+ * <p>
+ * A tail is loaded on the first read and from then on kept current by committed appends; deleting the session
+ * or an import drops it. A load races with appends that commit while its query runs, so it carries a
+ * {@link #stamp} taken before the query and is discarded if a write was applied meanwhile (see {@link Stamps}).
+ * Memory is bounded by {@code max-bytes}: beyond it the least recently read tails go first.
+ */
+@Component
+public class MessageTailCache {
+
+  /** Rough heap cost of one cached message besides its strings: record, UUIDs, Instant, list slot. */
+  private static final int MESSAGE_OVERHEAD = 160;
+  /** History order, (createdAt, id); uuids compare as unsigned bytes like the database does. */
+  static final Comparator<MessageDtos.MessageResponse> ORDER = Comparator
+      .comparing(MessageDtos.MessageResponse::createdAt)
+      .thenComparing(MessageDtos.MessageResponse::id, (a, b) -> {
+        int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+      });
+
+  /** Immutable; appends replace the whole tail. */
+  private static final class Tail {
+    final List<MessageDtos.MessageResponse> messages;
+    /** True when {@link #messages} is the entire session, so shorter reads than the capacity still hit. */
+    final boolean complete;
+    final long bytes;
+
+    Tail(List<MessageDtos.MessageResponse> messages, boolean complete) {
+      this.messages = messages;
+      this.complete = complete;
+      this.bytes = messages.stream().mapToLong(MessageTailCache::sizeOf).sum();
+    }
+  }
+
+  private final BoundedLruMap<UUID, Tail> tails;
+  private final Stamps stamps = new Stamps();
+  private final boolean enabled;
+  private final int capacity;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public MessageTailCache(AppProperties props, MeterRegistry meters) {
+    var cfg = props.getCache().getTail();
+    this.enabled = cfg.isEnabled() && cfg.getMessages() > 0;
+    this.capacity = Math.max(1, cfg.getMessages());
+    this.hits = requests(meters, "hit");
+    this.misses = requests(meters, "miss");
+    this.evictions = Counter.builder("chat.cache.tail.evictions")
+        .description("Session tails dropped to stay under the memory cap")
+        .register(meters);
+    this.tails = new BoundedLruMap<>(cfg.getMaxBytes(), tail -> tail.bytes, System::nanoTime, evictions::increment);
+    Gauge.builder("chat.cache.tail.sessions", tails, BoundedLruMap::size)
+        .description("Sessions with a cached tail")
+        .register(meters);
+    Gauge.builder("chat.cache.tail.bytes", tails, BoundedLruMap::weight)
+        .description("Estimated heap held by cached tails")
+        .baseUnit("bytes")
+        .register(meters);
+  }
+
+  private static Counter requests(MeterRegistry meters, String result) {
+    return Counter.builder("chat.cache.tail.requests")
+        .description("Latest-message reads by whether the cached tail could answer them")
+        .tag("result", result)
+        .register(meters);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Messages kept per session; a load should read at least this many so the tail starts full. */
+  public int capacity() {
+    return capacity;
+  }
+
+  /** The newest {@code count} messages in ascending order, or null when the cache cannot answer. */
+  public List<MessageDtos.MessageResponse> latest(UUID sessionId, int count) {
+    if (!enabled) return null;
+    var tail = tails.get(sessionId);
+    if (tail == null || (tail.messages.size() < count && !tail.complete)) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    var m = tail.messages;
+    return m.size() <= count ? m : m.subList(m.size() - count, m.size());
+  }
+
+  /**
+   * The session's newest message, empty when it has none, or null when no tail is cached. A peek for validators:
+   * it neither counts as a request nor keeps the tail from being evicted.
+   */
+  public Optional<MessageDtos.MessageResponse> newest(UUID sessionId) {
+    var tail = enabled ? tails.peek(sessionId) : null;
+    if (tail == null) return null;
+    var m = tail.messages;
+    if (m.isEmpty()) return tail.complete ? Optional.empty() : null;
+    return Optional.of(m.get(m.size() - 1));
+  }
+
+  /** Take before querying the rows passed to {@link #fill}. */
+  public long stamp(UUID sessionId) {
+    return stamps.get(sessionId);
+  }
+
+  /**
+   * Installs a tail read from the database, newest first as {@code findTail} returns it. {@code complete} says
+   * the query returned every message of the session.
+   */
+  public void fill(UUID sessionId, long stamp, List<MessageDtos.MessageResponse> newestFirst, boolean complete) {
+    if (!enabled) return;
+    var messages = new ArrayList<>(newestFirst.subList(0, Math.min(capacity, newestFirst.size())));
+    Collections.reverse(messages);
+    var fresh = new Tail(List.copyOf(messages), complete && newestFirst.size() <= capacity);
+    // a write was applied after the stamp was taken: the rows may predate it
+    tails.compute(sessionId, (id, current) -> stamps.get(id) == stamp ? fresh : current);
+  }
+
+  /** Runs after the appending transaction commits, so a tail never holds rolled-back messages. */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onAppended(MessagesAppendedEvent event) {
+    if (!enabled) return;
+    // bump first: a load that has not installed yet must not install rows older than this append
+    stamps.bump(event.sessionId());
+    tails.computeIfPresent(event.sessionId(), (id, tail) -> plus(tail, event.messages()));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeleted(SessionDeletedEvent event) {
+    invalidate(event.sessionId());
+  }
+
+  /** Imported rows can land anywhere in a session's history. */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImported(MessagesImportedEvent event) {
+    invalidateAll();
+  }
+
+  public void invalidate(UUID sessionId) {
+    stamps.bump(sessionId);
+    tails.remove(sessionId);
+  }
+
+  public void invalidateAll() {
+    stamps.bumpAll();
+    tails.clear();
+  }
+
+  int size() {
+    return tails.size();
+  }
+
+  long bytes() {
+    return tails.weight();
+  }
+
+  private Tail plus(Tail tail, List<MessageDtos.MessageResponse> added) {
+    var merged = new ArrayList<MessageDtos.MessageResponse>(tail.messages.size() + added.size());
+    merged.addAll(tail.messages);
+    // a load between the append's commit and this listener may already have read the appended rows
+    Set<UUID> present = new HashSet<>(merged.size() * 2);
+    merged.forEach(m -> present.add(m.id()));
+    for (var m : added) {
+      if (!present.add(m.id())) continue;
+      // appends are nearly always the newest message, so search from the end
+      int i = merged.size();
+      while (i > 0 && ORDER.compare(merged.get(i - 1), m) > 0) i--;
+      merged.add(i, m);
+    }
+    int excess = merged.size() - capacity;
+    var kept = excess > 0 ? merged.subList(excess, merged.size()) : merged;
+    return new Tail(List.copyOf(kept), tail.complete && excess <= 0);
+  }
+
+  private static long sizeOf(MessageDtos.MessageResponse m) {
+    long chars = m.content().length() + (m.contextJson() == null ? 0 : m.contextJson().length());
+    return MESSAGE_OVERHEAD + 2 * chars;
+  }
+}
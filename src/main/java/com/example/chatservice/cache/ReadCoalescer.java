@@ -0,0 +1,64 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionChangedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical history and session-list reads share one query (see {@link SingleFlight}). The
+ * loader should be a whole service call, so every shared result comes from one complete transaction. Committed
+ * writes stop later reads from joining loads of the session or user they changed.
+ */
+@Component
+public class ReadCoalescer {
+
+  private final boolean enabled;
+  private final SingleFlight history;
+  private final SingleFlight sessions;
+
+  public ReadCoalescer(AppProperties props, MeterRegistry meters) {
+    this.enabled = props.getCache().getCoalescing().isEnabled();
+    this.history = new SingleFlight("history", meters);
+    this.sessions = new SingleFlight("sessions", meters);
+  }
+
+  /** {@code query} identifies the read within the session and must have value equality. */
+  public <V> V history(UUID sessionId, Object query, Supplier<V> loader) {
+    return enabled ? history.run(sessionId, query, loader) : loader.get();
+  }
+
+  /** {@code query} identifies the read within the user's sessions and must have value equality. */
+  public <V> V sessions(String userId, Object query, Supplier<V> loader) {
+    return enabled ? sessions.run(userId, query, loader) : loader.get();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onAppended(MessagesAppendedEvent event) {
+    history.invalidate(event.sessionId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(SessionChangedEvent event) {
+    sessions.invalidate(event.userId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeleted(SessionDeletedEvent event) {
+    history.invalidate(event.sessionId());
+    sessions.invalidate(event.userId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImported(MessagesImportedEvent event) {
+    history.invalidateAll();
+    sessions.invalidateAll();
+  }
+}
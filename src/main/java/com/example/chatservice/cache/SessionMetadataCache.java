@@ -0,0 +1,167 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionChangedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Session metadata by id, so appends and history reads can check that a session exists (and learn its owner)
+ * without a query. Entries are loaded on a miss, dropped after commit when the session is changed or deleted,
+ * and on notice from other instances (see {@link com.example.chatservice.cluster.ClusterInvalidation}); they also
+ * expire after {@code ttl-seconds} in case a notice was lost. Absent sessions are not cached. Loads carry a
+ * {@link Stamps} stamp like {@link MessageTailCache}; beyond {@code max-entries} the least recently used entries
+ * are dropped.
+ * <p>
+ * The session's {@code message_version}, which history ETags are built from, is cached alongside under the same
+ * rules but on its own: imports drop every version without dropping the metadata.
+ */
+@Component
+public class SessionMetadataCache {
+
+  private static final class Entry {
+    final SessionDtos.SessionResponse session;
+    final long loadedAt;
+
+    Entry(SessionDtos.SessionResponse session, long loadedAt) {
+      this.session = session;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  private record Version(long value, long loadedAt) {}
+
+  private final BoundedLruMap<UUID, Entry> entries;
+  private final Stamps stamps = new Stamps();
+  private final BoundedLruMap<UUID, Version> versions;
+  private final Stamps versionStamps = new Stamps();
+  private final ChatSessionRepository sessionRepo;
+  private final LongSupplier nanoClock;
+  private final boolean enabled;
+  private final long ttlNanos;
+  private final Counter hits;
+  private final Counter misses;
+
+  @Autowired
+  public SessionMetadataCache(AppProperties props, ChatSessionRepository sessionRepo, MeterRegistry meters) {
+    this(props, sessionRepo, meters, System::nanoTime);
+  }
+
+  SessionMetadataCache(AppProperties props, ChatSessionRepository sessionRepo, MeterRegistry meters, LongSupplier nanoClock) {
+    var cfg = props.getCache().getSessions();
+    this.sessionRepo = sessionRepo;
+    this.nanoClock = nanoClock;
+    this.enabled = cfg.isEnabled() && cfg.getMaxEntries() > 0 && cfg.getTtlSeconds() > 0;
+    this.entries = new BoundedLruMap<>(cfg.getMaxEntries(), nanoClock);
+    this.versions = new BoundedLruMap<>(cfg.getMaxEntries(), nanoClock);
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, cfg.getTtlSeconds()));
+    this.hits = requests(meters, "hit");
+    this.misses = requests(meters, "miss");
+    Gauge.builder("chat.cache.sessions.size", entries, BoundedLruMap::size)
+        .description("Sessions with cached metadata")
+        .register(meters);
+  }
+
+  private static Counter requests(MeterRegistry meters, String result) {
+    return Counter.builder("chat.cache.sessions.requests")
+        .description("Session lookups by whether the metadata was cached")
+        .tag("result", result)
+        .register(meters);
+  }
+
+  /** The session's metadata, from memory while cached and fresh, otherwise from the database. */
+  public Optional<SessionDtos.SessionResponse> find(UUID sessionId) {
+    if (!enabled) return sessionRepo.findResponseById(sessionId);
+    long now = nanoClock.getAsLong();
+    var entry = entries.get(sessionId);
+    if (entry != null && now - entry.loadedAt < ttlNanos) {
+      hits.increment();
+      return Optional.of(entry.session);
+    }
+    misses.increment();
+    long stamp = stamps.get(sessionId);
+    var loaded = sessionRepo.findResponseById(sessionId);
+    if (loaded.isEmpty()) {
+      entries.remove(sessionId);
+      return loaded;
+    }
+    var fresh = new Entry(loaded.get(), now);
+    // a change committed after the stamp was taken: the row may predate it
+    entries.compute(sessionId, (id, current) -> stamps.get(id) == stamp ? fresh : current);
+    return loaded;
+  }
+
+  /** The session's history version, cached like its metadata; empty when the session does not exist. */
+  public OptionalLong messageVersion(UUID sessionId) {
+    if (!enabled) return toOptional(sessionRepo.findMessageVersionById(sessionId));
+    long now = nanoClock.getAsLong();
+    var cached = versions.get(sessionId);
+    if (cached != null && now - cached.loadedAt() < ttlNanos) return OptionalLong.of(cached.value());
+    long stamp = versionStamps.get(sessionId);
+    var loaded = sessionRepo.findMessageVersionById(sessionId);
+    if (loaded.isEmpty()) {
+      versions.remove(sessionId);
+      return OptionalLong.empty();
+    }
+    var fresh = new Version(loaded.get(), now);
+    // an append committed after the stamp was taken: the version may predate it
+    versions.compute(sessionId, (id, current) -> versionStamps.get(id) == stamp ? fresh : current);
+    return OptionalLong.of(fresh.value());
+  }
+
+  private static OptionalLong toOptional(Optional<Long> value) {
+    return value.map(OptionalLong::of).orElseGet(OptionalLong::empty);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(SessionChangedEvent event) {
+    invalidate(event.sessionId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImported(MessagesImportedEvent event) {
+    messagesImported();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeleted(SessionDeletedEvent event) {
+    invalidate(event.sessionId());
+  }
+
+  public void invalidate(UUID sessionId) {
+    stamps.bump(sessionId);
+    entries.remove(sessionId);
+    versionStamps.bump(sessionId);
+    versions.remove(sessionId);
+  }
+
+  public void invalidateAll() {
+    stamps.bumpAll();
+    entries.clear();
+    messagesImported();
+  }
+
+  /** An import may have added messages to any session, here or on another instance. */
+  public void messagesImported() {
+    versionStamps.bumpAll();
+    versions.clear();
+  }
+
+  int size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,117 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.service.OverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs one load per key at a time; callers asking for a key that is already loading wait for that load and share
+ * its result or exception.
+ * <p>
+ * A load stays joinable only until its scope is written to: each flight remembers its scope's {@link Stamps}
+ * stamp, and a caller that sees a newer one starts its own, so a read issued after a committed write never gets
+ * rows from before it. Callers inside a transaction load on their own, since their reads must see their
+ * transaction's writes. A follower that is interrupted stops waiting without disturbing the flight; a leader
+ * interrupted mid-load abandons the flight and its followers retry rather than inherit the interruption.
+ */
+final class SingleFlight {
+
+  record Key(Object scope, Object query) {}
+
+  private static final class Flight {
+    final CompletableFuture<Object> result = new CompletableFuture<>();
+    final long stamp;
+
+    Flight(long stamp) {
+      this.stamp = stamp;
+    }
+  }
+
+  /** Completes a flight whose leader was interrupted; never reaches callers. */
+  private static final class Abandoned extends RuntimeException {
+    Abandoned() {
+      super(null, null, false, false);
+    }
+  }
+
+  private final ConcurrentHashMap<Key, Flight> flights = new ConcurrentHashMap<>();
+  private final Stamps stamps = new Stamps();
+  private final Counter leaders;
+  private final Counter followers;
+
+  SingleFlight(String operation, MeterRegistry meters) {
+    this.leaders = requests(meters, operation, "leader");
+    this.followers = requests(meters, operation, "follower");
+  }
+
+  private static Counter requests(MeterRegistry meters, String operation, String role) {
+    return Counter.builder("chat.coalescing.requests")
+        .description("Reads that ran a query (leader) or shared a concurrent identical one (follower)")
+        .tags("operation", operation, "role", role)
+        .register(meters);
+  }
+
+  @SuppressWarnings("unchecked")
+  <V> V run(Object scope, Object query, Supplier<V> loader) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) return loader.get();
+    var key = new Key(scope, query);
+    while (true) {
+      long stamp = stamps.get(scope);
+      var mine = new Flight(stamp);
+      // a flight from before the latest write is left to finish but no longer joined
+      var flight = flights.compute(key, (k, current) -> current != null && current.stamp == stamp ? current : mine);
+      if (flight != mine) {
+        followers.increment();
+        try {
+          return (V) await(flight);
+        } catch (Abandoned e) {
+          continue;
+        }
+      }
+      leaders.increment();
+      V value;
+      try {
+        value = loader.get();
+      } catch (RuntimeException | Error e) {
+        flights.remove(key, mine);
+        mine.result.completeExceptionally(Thread.currentThread().isInterrupted() ? new Abandoned() : e);
+        throw e;
+      }
+      flights.remove(key, mine);
+      mine.result.complete(value);
+      return value;
+    }
+  }
+
+  /** Loads that start after this no longer join flights of {@code scope} that are already running. */
+  void invalidate(Object scope) {
+    stamps.bump(scope);
+  }
+
+  void invalidateAll() {
+    stamps.bumpAll();
+  }
+
+  int inFlight() {
+    return flights.size();
+  }
+
+  private static Object await(Flight flight) {
+    try {
+      return flight.result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OverloadedException("read_interrupted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      if (e.getCause() instanceof Error err) throw err;
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
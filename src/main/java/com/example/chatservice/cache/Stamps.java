@@ -0,0 +1,31 @@
+package com.example.chatservice.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Striped write counters that keep a cache load from installing rows older than a concurrent write. A loader
+ * reads {@link #get} before its query and installs only if the stamp is unchanged; writers {@link #bump}
+ * before touching the cache. Keys share stripes, so an unrelated write occasionally discards a load.
+ */
+final class Stamps {
+
+  private static final int STRIPES = 1024;
+
+  private final AtomicLongArray stripes = new AtomicLongArray(STRIPES);
+
+  long get(Object key) {
+    return stripes.get(stripe(key));
+  }
+
+  void bump(Object key) {
+    stripes.incrementAndGet(stripe(key));
+  }
+
+  void bumpAll() {
+    for (int i = 0; i < STRIPES; i++) stripes.incrementAndGet(i);
+  }
+
+  private static int stripe(Object key) {
+    return (key.hashCode() & 0x7fffffff) % STRIPES;
+  }
+}
@@ -0,0 +1,175 @@
+package com.example.chatservice.cluster;
+
+import com.example.chatservice.cache.ContentVersions;
+import com.example.chatservice.cache.MessageJsonCache;
+import com.example.chatservice.cache.MessageTailCache;
+import com.example.chatservice.cache.SessionMetadataCache;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionChangedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the in-process caches of every instance coherent. Writes on this instance are forwarded to the
+ * {@link InvalidationBus} from inside their transaction, so other instances only hear of committed changes;
+ * invalidations from other instances drop the affected entries here. This instance's caches already follow its
+ * own writes through the same events, so messages it published itself are skipped.
+ * <p>
+ * Appends are the exception: a notification per append would add a round trip to every append transaction and
+ * serialize their commits on Postgres's notification queue. They are collected after commit instead and sent
+ * by a background thread, one per session and all in one round trip, every
+ * {@code app.cache.invalidation.messages-delay-ms}. Other instances hear of an append that much later, and not at
+ * all if this one dies in between.
+ */
+@Slf4j
+@Component
+public class ClusterInvalidation {
+
+  private final UUID nodeId = UUID.randomUUID();
+  private final InvalidationBus bus;
+  private final MessageTailCache tailCache;
+  private final MessageJsonCache jsonCache;
+  private final SessionMetadataCache sessionCache;
+  private final ContentVersions versions;
+  private final Map<Invalidation.Kind, Counter> received = new EnumMap<>(Invalidation.Kind.class);
+  private final long messagesDelayMs;
+  private final long retryDelayMs;
+  private final Set<UUID> appended = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    var t = new Thread(r, "cache-invalidation-flush");
+    t.setDaemon(true);
+    return t;
+  });
+
+  public ClusterInvalidation(InvalidationBus bus, MessageTailCache tailCache, MessageJsonCache jsonCache,
+                             SessionMetadataCache sessionCache, ContentVersions versions, AppProperties props,
+                             MeterRegistry meters) {
+    this.bus = bus;
+    this.tailCache = tailCache;
+    this.jsonCache = jsonCache;
+    this.sessionCache = sessionCache;
+    this.versions = versions;
+    this.messagesDelayMs = Math.max(0, props.getCache().getInvalidation().getMessagesDelayMs());
+    this.retryDelayMs = Math.max(messagesDelayMs, props.getCache().getInvalidation().getReconnectDelayMs());
+    for (var kind : Invalidation.Kind.values()) {
+      received.put(kind, Counter.builder("chat.cache.invalidations.received")
+          .description("Cache invalidations applied from other instances, or resets after missed ones")
+          .tag("kind", kind.name().toLowerCase())
+          .register(meters));
+    }
+    bus.subscribe(this::apply);
+  }
+
+  @EventListener
+  public void onChanged(SessionChangedEvent event) {
+    publish(Invalidation.Kind.SESSION, event.sessionId(), event.userId());
+  }
+
+  @EventListener
+  public void onDeleted(SessionDeletedEvent event) {
+    publish(Invalidation.Kind.SESSION, event.sessionId(), event.userId());
+  }
+
+  /**
+   * Other instances cannot rebuild a tail from the message ids alone, so they drop it; history tags there then
+   * read the newest message from the database again.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onAppended(MessagesAppendedEvent event) {
+    if (messagesDelayMs == 0) {
+      publish(Invalidation.Kind.MESSAGES, event.sessionId(), null);
+      return;
+    }
+    appended.add(event.sessionId());
+    scheduleFlush(messagesDelayMs);
+  }
+
+  @EventListener
+  public void onImported(MessagesImportedEvent event) {
+    publish(Invalidation.Kind.IMPORT, null, null);
+  }
+
+  void apply(Invalidation invalidation) {
+    if (nodeId.equals(invalidation.origin())) return;
+    received.get(invalidation.kind()).increment();
+    switch (invalidation.kind()) {
+      case SESSION -> {
+        sessionCache.invalidate(invalidation.sessionId());
+        tailCache.invalidate(invalidation.sessionId());
+        jsonCache.invalidate(invalidation.sessionId());
+        if (invalidation.userId() != null) {
+          versions.sessionListChanged(invalidation.userId());
+        } else {
+          versions.invalidateAll();
+        }
+      }
+      case MESSAGES -> tailCache.invalidate(invalidation.sessionId());
+      case IMPORT -> {
+        tailCache.invalidateAll();
+        jsonCache.invalidateAll();
+        sessionCache.messagesImported();
+        versions.invalidateAll();
+      }
+      case RESET -> {
+        sessionCache.invalidateAll();
+        tailCache.invalidateAll();
+        jsonCache.invalidateAll();
+        versions.invalidateAll();
+      }
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    flusher.shutdownNow();
+    flushAppended();
+  }
+
+  private void scheduleFlush(long delayMs) {
+    if (flushScheduled.compareAndSet(false, true)) {
+      flusher.schedule(this::flushAppended, delayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Sends the sessions appended to since the last flush; a failed send keeps them for the next one. */
+  void flushAppended() {
+    flushScheduled.set(false);
+    List<Invalidation> batch = new ArrayList<>();
+    for (var it = appended.iterator(); it.hasNext(); ) {
+      batch.add(new Invalidation(nodeId, Invalidation.Kind.MESSAGES, it.next()));
+      it.remove();
+    }
+    try {
+      bus.publishAll(batch);
+    } catch (RuntimeException ex) {
+      log.warn("could not announce appends to {} sessions, retrying in {} ms", batch.size(), retryDelayMs, ex);
+      batch.forEach(i -> appended.add(i.sessionId()));
+      if (!flusher.isShutdown()) scheduleFlush(retryDelayMs);
+    }
+  }
+
+  private void publish(Invalidation.Kind kind, UUID sessionId, String userId) {
+    bus.publish(new Invalidation(nodeId, kind, sessionId, userId));
+  }
+}
@@ -0,0 +1,47 @@
+package com.example.chatservice.cluster;
+
+import java.util.UUID;
+
+/**
+ * One cache invalidation as it travels between instances. {@code origin} is the publishing instance, so each
+ * one can skip its own writes, which its caches already applied from the local event. {@code userId} is the
+ * session's owner for {@link Kind#SESSION}, and only set together with {@code sessionId}.
+ */
+public record Invalidation(UUID origin, Kind kind, UUID sessionId, String userId) {
+
+  public Invalidation(UUID origin, Kind kind, UUID sessionId) {
+    this(origin, kind, sessionId, null);
+  }
+
+  public enum Kind {
+    /** The session row changed or was deleted. */
+    SESSION,
+    /** Messages were appended to the session. */
+    MESSAGES,
+    /** A bulk import; it may have touched any session. */
+    IMPORT,
+    /** Raised locally by a bus that may have missed notifications, e.g. after reconnecting. */
+    RESET
+  }
+
+  /**
+   * {@code <origin> <kind> [<sessionId> [<userId>]]}; the user id goes last since it may contain spaces. User ids
+   * are bounded by the API, so this stays well under the 8000-byte NOTIFY payload limit.
+   */
+  public String encode() {
+    if (sessionId == null) return origin + " " + kind;
+    return origin + " " + kind + " " + sessionId + (userId == null ? "" : " " + userId);
+  }
+
+  /** The invalidation in {@code payload}, or null when it is not one. */
+  public static Invalidation decode(String payload) {
+    String[] parts = payload == null ? new String[0] : payload.split(" ", 4);
+    if (parts.length < 2) return null;
+    try {
+      return new Invalidation(UUID.fromString(parts[0]), Kind.valueOf(parts[1]),
+          parts.length >= 3 ? UUID.fromString(parts[2]) : null, parts.length == 4 ? parts[3] : null);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
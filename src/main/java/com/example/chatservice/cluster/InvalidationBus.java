@@ -0,0 +1,23 @@
+package com.example.chatservice.cluster;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link Invalidation}s between the instances of the service. A message published inside a transaction
+ * is delivered only if that transaction commits; delivery is at most once, and a bus that may have lost messages
+ * delivers {@link Invalidation.Kind#RESET} instead. Implementations are picked by
+ * {@link com.example.chatservice.config.InvalidationBusConfig}.
+ */
+public interface InvalidationBus {
+
+  void publish(Invalidation invalidation);
+
+  /** Publishes several at once; buses that can should send them in a single round trip. */
+  default void publishAll(Collection<Invalidation> invalidations) {
+    invalidations.forEach(this::publish);
+  }
+
+  /** Listeners run on the bus's delivery thread and should only drop cache entries. */
+  void subscribe(Consumer<Invalidation> listener);
+}
@@ -0,0 +1,40 @@
+package com.example.chatservice.cluster;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for databases without notifications (H2 in dev and tests) and single-instance deployments:
+ * messages reach only this JVM's subscribers, after the publishing transaction commits.
+ */
+public class LoopbackInvalidationBus implements InvalidationBus {
+
+  private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(Invalidation invalidation) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      deliver(invalidation);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        deliver(invalidation);
+      }
+    });
+  }
+
+  @Override
+  public void subscribe(Consumer<Invalidation> listener) {
+    listeners.add(listener);
+  }
+
+  private void deliver(Invalidation invalidation) {
+    listeners.forEach(l -> l.accept(invalidation));
+  }
+}
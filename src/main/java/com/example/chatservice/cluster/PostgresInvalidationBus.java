@@ -0,0 +1,134 @@
+package com.example.chatservice.cluster;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Postgres {@code NOTIFY}/{@code LISTEN} on the application's datasource.
+ * <p>
+ * {@link #publish} runs {@code pg_notify} on the caller's connection, so inside a transaction Postgres holds the
+ * message until commit and drops it on rollback; {@link #publishAll} sends a batch as one statement. A listener thread keeps one pooled connection subscribed to
+ * the channel and polls it for notifications. Messages sent while it is disconnected are lost, so after every
+ * (re)subscribe it delivers {@link Invalidation.Kind#RESET}.
+ */
+@Slf4j
+public class PostgresInvalidationBus implements InvalidationBus {
+
+  /** {@code LISTEN} takes an identifier, so the channel is interpolated; keep it to a plain lower-case name. */
+  private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+  private static final int POLL_MILLIS = 1000;
+
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbc;
+  private final String channel;
+  private final long reconnectDelayMs;
+  private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+  private final Thread receiver;
+  private volatile boolean running = true;
+
+  public PostgresInvalidationBus(DataSource dataSource, JdbcTemplate jdbc, String channel, long reconnectDelayMs) {
+    if (!CHANNEL.matcher(channel).matches()) {
+      throw new IllegalArgumentException("invalid notification channel: " + channel);
+    }
+    this.dataSource = dataSource;
+    this.jdbc = jdbc;
+    this.channel = channel;
+    this.reconnectDelayMs = Math.max(100, reconnectDelayMs);
+    this.receiver = new Thread(this::run, "cache-invalidation-listener");
+    this.receiver.setDaemon(true);
+  }
+
+  @PostConstruct
+  void start() {
+    receiver.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    receiver.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  @Override
+  public void publish(Invalidation invalidation) {
+    jdbc.query("SELECT pg_notify(?, ?)", rs -> null, channel, invalidation.encode());
+  }
+
+  @Override
+  public void publishAll(Collection<Invalidation> invalidations) {
+    if (invalidations.isEmpty()) return;
+    Object[] payloads = invalidations.stream().map(Invalidation::encode).toArray();
+    jdbc.execute((ConnectionCallback<Void>) c -> {
+      try (PreparedStatement ps = c.prepareStatement("SELECT pg_notify(?, p) FROM unnest(?) AS p")) {
+        ps.setString(1, channel);
+        ps.setArray(2, c.createArrayOf("text", payloads));
+        ps.executeQuery().close();
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public void subscribe(Consumer<Invalidation> listener) {
+    listeners.add(listener);
+  }
+
+  private void run() {
+    while (running) {
+      try (Connection c = dataSource.getConnection(); Statement st = c.createStatement()) {
+        c.setAutoCommit(true);
+        st.execute("LISTEN " + channel);
+        deliver(new Invalidation(null, Invalidation.Kind.RESET, null));
+        var pg = c.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+          if (notifications == null) continue;
+          for (var n : notifications) {
+            var invalidation = Invalidation.decode(n.getParameter());
+            if (invalidation == null) {
+              log.warn("ignoring malformed cache invalidation: {}", n.getParameter());
+            } else {
+              deliver(invalidation);
+            }
+          }
+        }
+      } catch (SQLException | RuntimeException ex) {
+        if (!running) return;
+        log.warn("cache invalidation listener lost its connection, retrying in {} ms", reconnectDelayMs, ex);
+        try {
+          Thread.sleep(reconnectDelayMs);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private void deliver(Invalidation invalidation) {
+    for (var listener : listeners) {
+      try {
+        listener.accept(invalidation);
+      } catch (RuntimeException ex) {
+        log.error("cache invalidation listener failed", ex);
+      }
+    }
+  }
+}
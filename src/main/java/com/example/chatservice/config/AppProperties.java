@@ -4,13 +4,28 @@ import lombok.*;
 import org.springframework.boot.context.properties.*;
 import org.springframework.context.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "app")
 @Data
 public class AppProperties {
+    /** Comma-separated {@code [name:]key[:tier]} entries; see {@code ApiKeyRegistry}. */
     private String apiKeys = "dev-key";
+    /** Optional file with one key entry per line, re-read when it changes. */
+    private String apiKeysFile;
+    private long apiKeysReloadSeconds = 10;
+    /** {@code v7} (time-ordered, default) or {@code v4} (random) UUIDs for new rows. */
+    private String idStrategy = "v7";
     private Cors cors = new Cors();
     private RateLimit rateLimit = new RateLimit();
+    private Ingest ingest = new Ingest();
+    private Push push = new Push();
+    private Timing timing = new Timing();
+    private Cache cache = new Cache();
 
     @Data
     public static class Cors {
@@ -19,7 +34,145 @@ public class AppProperties {
 
     @Data
     public static class RateLimit {
+        /** {@code local} keeps buckets per instance; {@code distributed} shares them through the database. */
+        private String mode = "local";
+        /** Limits of the default tier and of any tier not listed in {@link #tiers}. */
         private int capacity = 60;
         private int refillPerMinute = 60;
+        private Map<String, Tier> tiers = new HashMap<>();
+        /** Buckets kept in memory; beyond this the least recently used are dropped. */
+        private int maxBuckets = 10_000;
+        /** A bucket unused this long is dropped; raised to the slowest tier's time to refill from empty. */
+        private long idleEvictMinutes = 10;
+        /** Distributed mode: tokens an instance takes from the shared bucket per database round trip. */
+        private int leaseTokens = 10;
+        /** Distributed mode: leased tokens not spent within this time go back to the shared bucket. */
+        private long leaseTtlSeconds = 10;
+        /** Token cost of expensive routes; everything else costs 1. */
+        private List<RouteCost> costs = new ArrayList<>(List.of(
+            new RouteCost("POST", "/api/v1/sessions/*/messages:batch", 5),
+            new RouteCost("GET", "/api/v1/sessions/*/export", 10),
+            new RouteCost("GET", "/api/v1/sessions/export", 10),
+            new RouteCost("POST", "/api/v1/import", 20),
+            new RouteCost("GET", "/api/v1/search/messages", 2)));
+    }
+
+    @Data
+    public static class Tier {
+        private int capacity;
+        private int refillPerMinute;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RouteCost {
+        private String method;
+        /** Path pattern as in {@code @RequestMapping}, e.g. {@code /api/v1/import}; {@code *} matches one segment. */
+        private String path;
+        private int tokens;
+    }
+
+    @Data
+    public static class Ingest {
+        /** {@code direct} commits each append on its own; {@code group-commit} queues appends for the batch writer. */
+        private String mode = "direct";
+        private int queueCapacity = 10_000;
+        private int maxBatchSize = 200;
+        private long maxDelayMs = 5;
+        private long ackTimeoutMs = 5_000;
+        /** Further wait for an append already in a batch; past it the caller gets 503 {@code ingest_outcome_unknown}. */
+        private long commitTimeoutMs = 10_000;
+    }
+
+    @Data
+    public static class Push {
+        /** Events buffered per subscriber before it is dropped as a slow consumer. */
+        private int bufferSize = 256;
+        private int maxSubscribers = 10_000;
+        private int dispatchThreads = 4;
+        private long heartbeatSeconds = 25;
+        private long timeoutMinutes = 30;
+        /** Messages replayed after a reconnect with Last-Event-ID before the client is told to resync. */
+        private int maxReplay = 1_000;
+        /**
+         * A replay also covers this much time before the last event: an append can commit after a newer message
+         * was already streamed, with an older (createdAt, id) than the client's cursor.
+         */
+        private long replayOverlapMs = 2_000;
+    }
+
+    @Data
+    public static class Timing {
+        /** Send a {@code Server-Timing} breakdown with every response; this times every request. */
+        private boolean serverTimingHeader = false;
+        /** Fraction of requests whose breakdown is collected for the slow-request log. */
+        private double sampleRate = 0.01;
+        /** Requests taking at least this long are logged; 0 turns the log off. */
+        private long slowThresholdMs = 1_000;
+    }
+
+    @Data
+    public static class Cache {
+        private TailCache tail = new TailCache();
+        private SessionCache sessions = new SessionCache();
+        private Invalidation invalidation = new Invalidation();
+        private Coalescing coalescing = new Coalescing();
+        private MessageJsonCache messageJson = new MessageJsonCache();
+        private Etags etags = new Etags();
+    }
+
+    @Data
+    public static class TailCache {
+        private boolean enabled = true;
+        /** Newest messages kept per session; a latest-page read of up to this many minus one is a hit. */
+        private int messages = 100;
+        /** Estimated heap for all tails; beyond it the least recently read sessions are dropped. */
+        private long maxBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class SessionCache {
+        private boolean enabled = true;
+        /** Sessions whose metadata is kept; beyond it the least recently used are dropped. */
+        private int maxEntries = 50_000;
+        /** Upper bound on staleness should an invalidation from another instance be lost. */
+        private int ttlSeconds = 60;
+    }
+
+    @Data
+    public static class Invalidation {
+        /** Notify other instances through Postgres; off (or on other databases) caches only see local writes. */
+        private boolean enabled = true;
+        private String channel = "chat_cache_invalidation";
+        private long reconnectDelayMs = 1000;
+        /**
+         * Appends are announced up to this long after they commit, once per session however many landed in
+         * between, and all sessions in one notification round trip; 0 announces each append on its own.
+         */
+        private long messagesDelayMs = 20;
+    }
+
+    @Data
+    public static class Coalescing {
+        /** Concurrent identical history and session-list reads share one query. */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Etags {
+        /**
+         * History reads carry no ETag while the session's newest message is younger than this, so an append that
+         * commits after a newer message cannot leave an outdated tag valid. Must exceed an append's
+         * insert-to-commit time plus the clock skew between instances.
+         */
+        private long historySettleMs = 2_000;
+    }
+
+    @Data
+    public static class MessageJsonCache {
+        private boolean enabled = true;
+        /** Estimated heap for serialized messages; beyond it the least recently used are dropped. */
+        private long maxBytes = 64L * 1024 * 1024;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.example.chatservice.config;
+
+import com.example.chatservice.domain.UuidV7Generator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+@Configuration
+public class IdGeneratorConfig {
+
+  /** Primary keys for new sessions and messages; {@code app.id-strategy=v4} restores random UUIDs. */
+  @Bean
+  public IdGenerator idGenerator(AppProperties props) {
+    return "v4".equalsIgnoreCase(props.getIdStrategy()) ? new JdkIdGenerator() : new UuidV7Generator();
+  }
+}
@@ -0,0 +1,30 @@
+package com.example.chatservice.config;
+
+import com.example.chatservice.cluster.InvalidationBus;
+import com.example.chatservice.cluster.LoopbackInvalidationBus;
+import com.example.chatservice.cluster.PostgresInvalidationBus;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+@Configuration
+public class InvalidationBusConfig {
+
+  /** Postgres notifies the other instances; elsewhere, or when disabled, invalidations stay in this JVM. */
+  @Bean
+  public InvalidationBus invalidationBus(AppProperties props, DataSource dataSource, JdbcTemplate jdbc)
+      throws MetaDataAccessException {
+    var cfg = props.getCache().getInvalidation();
+    String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+    if (cfg.isEnabled() && DatabaseDriver.fromProductName(product) == DatabaseDriver.POSTGRESQL) {
+      return new PostgresInvalidationBus(dataSource, jdbc, cfg.getChannel(), cfg.getReconnectDelayMs());
+    }
+    return new LoopbackInvalidationBus();
+  }
+}
@@ -0,0 +1,16 @@
+package com.example.chatservice.config;
+
+import com.example.chatservice.cache.MessageJsonCache;
+import com.fasterxml.jackson.databind.Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JsonConfig {
+
+  /** Spring Boot registers {@code Module} beans with the application's {@code ObjectMapper}. */
+  @Bean
+  public Module messageJsonCacheModule(MessageJsonCache cache) {
+    return cache.module();
+  }
+}
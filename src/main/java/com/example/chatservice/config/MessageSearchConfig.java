@@ -0,0 +1,31 @@
+package com.example.chatservice.config;
+
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.search.InMemoryMessageIndex;
+import com.example.chatservice.search.MessageSearch;
+import com.example.chatservice.search.PostgresMessageSearch;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+@Configuration
+public class MessageSearchConfig {
+
+  /** Postgres searches a {@code tsvector} expression index; any other database gets the in-process index. */
+  @Bean
+  public MessageSearch messageSearch(DataSource dataSource, JdbcTemplate jdbc, ChatSessionRepository sessionRepo,
+                                     PlatformTransactionManager txManager) throws MetaDataAccessException {
+    String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+    if (DatabaseDriver.fromProductName(product) == DatabaseDriver.POSTGRESQL) {
+      return new PostgresMessageSearch(jdbc);
+    }
+    return new InMemoryMessageIndex(sessionRepo, txManager);
+  }
+}
@@ -3,19 +3,20 @@ package com.example.chatservice.domain;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
 @Table(name = "chat_message", indexes = {
-    @Index(name = "idx_message_session", columnList = "session_id, created_at")
+    @Index(name = "idx_message_session_keyset", columnList = "session_id, created_at, id")
 })
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class ChatMessage {
+public class ChatMessage implements Persistable<UUID> {
   @Id
   @Column(name = "id", nullable = false, updatable = false, columnDefinition = "uuid")
   private UUID id;
@@ -38,8 +39,25 @@ public class ChatMessage {
   @Column(name = "created_at", nullable = false, updatable = false)
   private Instant createdAt;
 
+  // ids are assigned by the application, so tell Spring Data to persist() instead of merge(): merge would
+  // issue a SELECT per row and defeat JDBC batching
+  @Transient
+  @Builder.Default
+  private boolean isNew = true;
+
   public enum Sender { USER, ASSISTANT, SYSTEM }
 
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
+
   public UUID getId() {
     return id;
   }
@@ -8,12 +8,14 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
 @Table(name = "chat_session", indexes = {
     @Index(name = "idx_session_user", columnList = "user_id"),
-    @Index(name = "idx_session_title", columnList = "title")
+    @Index(name = "idx_session_title", columnList = "title"),
+    @Index(name = "idx_session_user_title_norm", columnList = "user_id, title_norm")
 })
 @Getter @Setter
 @NoArgsConstructor
@@ -30,6 +32,10 @@ public class ChatSession {
   @Column(name = "title", nullable = false, length = 255)
   private String title;
 
+  /** Search key derived from {@link #title}; see {@link #normalizeTitle}. */
+  @Column(name = "title_norm", nullable = false, length = 255)
+  private String titleNorm;
+
   @Column(name = "favorite", nullable = false)
   private boolean favorite;
 
@@ -41,6 +47,24 @@ public class ChatSession {
   @Column(name = "updated_at", nullable = false)
   private Instant updatedAt;
 
+  /** History version behind its ETag; bumped by bulk updates only (see {@code ChatSessionRepository}). */
+  @Column(name = "message_version", nullable = false, insertable = false, updatable = false)
+  private long messageVersion;
+
   @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
   private List<ChatMessage> messages = new ArrayList<>();
+
+  /**
+   * Stripped of leading and trailing whitespace and lower-cased. Existing rows were recomputed with this rule by
+   * {@code V7__renormalize_session_titles}, which keeps its own copy; the earlier SQL backfill only trimmed spaces.
+   */
+  public static String normalizeTitle(String title) {
+    return title == null ? null : title.strip().toLowerCase(Locale.ROOT);
+  }
+
+  @PrePersist
+  @PreUpdate
+  void syncTitleNorm() {
+    titleNorm = normalizeTitle(title);
+  }
 }
@@ -0,0 +1,37 @@
+package com.example.chatservice.domain;
+
+import org.springframework.util.IdGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDv7 (RFC 9562): 48-bit Unix millis, then a 12-bit sequence in {@code rand_a}, then 62 random bits.
+ * <p>
+ * New keys land at the right edge of the primary-key B-tree instead of on a random leaf, which avoids page splits
+ * and keeps the hot part of the index in cache. Ids are strictly increasing across all threads of the JVM: the
+ * millis and sequence form one 60-bit counter advanced with a CAS, so a burst of more than 4096 ids in one
+ * millisecond (or a clock step backwards) borrows from the next millisecond rather than repeating.
+ * <p>
+ * The random tail uses {@link ThreadLocalRandom}; ids are identifiers, not secrets (access is gated by API keys).
+ */
+public class UuidV7Generator implements IdGenerator {
+
+  private final AtomicLong last = new AtomicLong();
+
+  @Override
+  public UUID generateId() {
+    long now = System.currentTimeMillis() << 12;
+    long prev;
+    long next;
+    do {
+      prev = last.get();
+      next = Math.max(now, prev + 1);
+    } while (!last.compareAndSet(prev, next));
+
+    long msb = ((next >>> 12) << 16) | 0x7000L | (next & 0xFFFL);
+    long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    return new UUID(msb, lsb);
+  }
+}
@@ -0,0 +1,252 @@
+package com.example.chatservice.push;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.OverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of committed messages to live subscribers of a session.
+ * <p>
+ * Publishing never blocks: each subscriber owns a bounded queue that is drained by a small shared dispatcher
+ * pool, at most one drain per subscriber at a time. A subscriber whose queue overflows is closed instead of
+ * slowing everyone else down; it reconnects and catches up from the database. The publisher only marks it
+ * closed: telling the sink is left to the dispatcher, since a sink stuck on a slow socket would block the caller.
+ * <p> Idle subscribers hold no thread,
+ * only their (empty) queue, so thousands of open streams are cheap.
+ */
+@Slf4j
+@Component
+public class MessageHub {
+
+  /** Where a subscription delivers to; calls for one subscription never overlap. */
+  public interface Sink {
+    void send(MessageDtos.MessageResponse message) throws IOException;
+
+    void heartbeat() throws IOException;
+
+    /** The hub dropped the subscription, e.g. because it fell behind; {@code reason} is a short code. */
+    void close(String reason);
+  }
+
+  private final ConcurrentHashMap<UUID, Set<Subscription>> topics = new ConcurrentHashMap<>();
+  private final AtomicInteger active = new AtomicInteger();
+  private final int bufferSize;
+  private final int maxSubscribers;
+  private final ExecutorService dispatcher;
+  private final ScheduledExecutorService heartbeats;
+  private final Counter dropped;
+
+  /**
+   * Drains run on {@code dispatch-threads} platform threads even with virtual threads enabled: {@code SseEmitter}
+   * sends and completes inside {@code synchronized}, so on Java 21 a drain blocked on a slow socket would pin its
+   * carrier, and enough slow subscribers would stall every virtual thread in the JVM. Here they can only hold up
+   * the other streams.
+   */
+  public MessageHub(AppProperties props, MeterRegistry meters) {
+    var cfg = props.getPush();
+    this.bufferSize = Math.max(1, cfg.getBufferSize());
+    this.maxSubscribers = cfg.getMaxSubscribers();
+    this.dispatcher = Executors.newFixedThreadPool(Math.max(1, cfg.getDispatchThreads()), daemon("message-push-"));
+    this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("message-push-heartbeat-"));
+    if (cfg.getHeartbeatSeconds() > 0) {
+      heartbeats.scheduleAtFixedRate(this::heartbeat, cfg.getHeartbeatSeconds(), cfg.getHeartbeatSeconds(), TimeUnit.SECONDS);
+    }
+    Gauge.builder("chat.push.subscribers", active, AtomicInteger::get)
+        .description("Open message stream subscriptions")
+        .register(meters);
+    this.dropped = Counter.builder("chat.push.dropped")
+        .description("Subscriptions closed because their buffer overflowed")
+        .register(meters);
+  }
+
+  @PreDestroy
+  void stop() {
+    heartbeats.shutdownNow();
+    dispatcher.shutdownNow();
+    topics.values().forEach(subs -> subs.forEach(Subscription::shutdown));
+  }
+
+  /**
+   * Registers a subscriber. Events are buffered but not delivered until {@link Subscription#start} is called,
+   * which lets the caller replay history first without missing or reordering anything published meanwhile.
+   */
+  public Subscription subscribe(UUID sessionId, Sink sink) {
+    if (active.incrementAndGet() > maxSubscribers) {
+      active.decrementAndGet();
+      throw new OverloadedException("too_many_streams");
+    }
+    var sub = new Subscription(sessionId, sink);
+    topics.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(sub);
+    return sub;
+  }
+
+  /** Runs after the appending transaction commits, so subscribers never see rolled-back messages. */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onAppended(MessagesAppendedEvent event) {
+    publish(event.sessionId(), event.messages());
+  }
+
+  public void publish(UUID sessionId, Iterable<MessageDtos.MessageResponse> messages) {
+    var subs = topics.get(sessionId);
+    if (subs == null) return;
+    for (var sub : subs) {
+      for (var m : messages) {
+        if (!sub.offer(m)) break;
+      }
+    }
+  }
+
+  public int subscriberCount() {
+    return active.get();
+  }
+
+  private void heartbeat() {
+    topics.values().forEach(subs -> subs.forEach(Subscription::ping));
+  }
+
+  private void remove(Subscription sub) {
+    topics.computeIfPresent(sub.sessionId, (k, subs) -> {
+      subs.remove(sub);
+      return subs.isEmpty() ? null : subs;
+    });
+    active.decrementAndGet();
+  }
+
+  private static ThreadFactory daemon(String prefix) {
+    var seq = new AtomicInteger();
+    return r -> {
+      var t = new Thread(r, prefix + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  public final class Subscription implements AutoCloseable {
+    private final UUID sessionId;
+    private final Sink sink;
+    private final BlockingQueue<MessageDtos.MessageResponse> buffer = new ArrayBlockingQueue<>(bufferSize);
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean pingPending;
+    private volatile boolean started;
+    /** Set once the hub closed the subscription and the sink has yet to hear why; only the drain reads it. */
+    private volatile String closeReason;
+    private volatile Set<UUID> alreadySent = Set.of();
+
+    private Subscription(UUID sessionId, Sink sink) {
+      this.sessionId = sessionId;
+      this.sink = sink;
+    }
+
+    /** Begins delivery, skipping buffered messages the caller already sent while replaying. */
+    public void start(Set<UUID> alreadySent) {
+      this.alreadySent = alreadySent;
+      this.started = true;
+      schedule();
+    }
+
+    /** Idempotent; safe to call from emitter completion callbacks. */
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) remove(this);
+    }
+
+    boolean offer(MessageDtos.MessageResponse m) {
+      if (closed.get()) return false;
+      if (!buffer.offer(m)) {
+        dropped.increment();
+        drop("slow_consumer");
+        return false;
+      }
+      schedule();
+      return true;
+    }
+
+    void ping() {
+      pingPending = true;
+      schedule();
+    }
+
+    /** Closes at once but leaves telling the sink to the drain, which runs only after {@link #start}. */
+    private void close(String reason) {
+      if (closed.compareAndSet(false, true)) {
+        remove(this);
+        closeReason = reason;
+        schedule();
+      }
+    }
+
+    /** The dispatcher is already stopped, so the sink is told from the calling thread. */
+    private void shutdown() {
+      if (closed.compareAndSet(false, true)) {
+        remove(this);
+        sink.close("shutdown");
+      }
+    }
+
+    private void drop(String reason) {
+      log.debug("closing stream for session {}: {}", sessionId, reason);
+      close(reason);
+    }
+
+    private void schedule() {
+      if (!started || (closed.get() && closeReason == null) || !draining.compareAndSet(false, true)) return;
+      try {
+        dispatcher.execute(this::drain);
+      } catch (RejectedExecutionException ex) {
+        draining.set(false);
+      }
+    }
+
+    private void drain() {
+      try {
+        MessageDtos.MessageResponse m;
+        while (!closed.get() && (m = buffer.poll()) != null) {
+          if (!alreadySent.contains(m.id())) sink.send(m);
+        }
+        if (pingPending && !closed.get()) {
+          pingPending = false;
+          sink.heartbeat();
+        }
+      } catch (IOException | RuntimeException ex) {
+        drop("send_failed");
+      }
+      String reason = closeReason;
+      if (reason != null) {
+        closeReason = null;
+        buffer.clear();
+        try {
+          sink.close(reason);
+        } catch (RuntimeException ex) {
+          log.debug("closing stream for session {} failed", sessionId, ex);
+        }
+      }
+      draining.set(false);
+      // an offer or a close may have landed after the checks above but before the flag was cleared
+      if (closed.get() ? closeReason != null : !buffer.isEmpty() || pingPending) schedule();
+    }
+  }
+}
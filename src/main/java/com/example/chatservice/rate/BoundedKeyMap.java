@@ -0,0 +1,45 @@
+package com.example.chatservice.rate;
+
+import com.example.chatservice.cache.BoundedLruMap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key state bounded two ways: an entry unused for the idle period is dropped, and once {@code maxEntries}
+ * are held the least recently used go first (see {@link BoundedLruMap}). Idle sweeps run on the calling thread
+ * at most once per idle period.
+ */
+final class BoundedKeyMap<V> {
+
+  private final BoundedLruMap<String, V> entries;
+  private final long idleNanos;
+  private final LongSupplier nanoClock;
+  private final AtomicLong lastSweep;
+
+  BoundedKeyMap(int maxEntries, long idleMinutes, LongSupplier nanoClock) {
+    this.entries = new BoundedLruMap<>(maxEntries, nanoClock);
+    this.idleNanos = TimeUnit.MINUTES.toNanos(Math.max(1, idleMinutes));
+    this.nanoClock = nanoClock;
+    this.lastSweep = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  V get(String key, Function<String, V> create) {
+    V value = entries.computeIfAbsent(key, create);
+    long now = nanoClock.getAsLong();
+    long last = lastSweep.get();
+    if (now - last > idleNanos && lastSweep.compareAndSet(last, now)) entries.removeIdle(idleNanos);
+    return value;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  void forEach(BiConsumer<String, V> action) {
+    entries.forEach(action);
+  }
+}
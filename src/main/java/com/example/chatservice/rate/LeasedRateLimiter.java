@@ -0,0 +1,202 @@
+package com.example.chatservice.rate;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.security.ApiKey;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide token buckets ({@code app.rate-limit.mode=distributed}). Each key has one row in
+ * {@code rate_limit_bucket}; an instance takes {@code lease-tokens} at a time from it and serves requests from
+ * that local lease, so only about one request in {@code lease-tokens} touches the database. Leased tokens count
+ * as spent for every other instance, which keeps the sum over the cluster within the bucket's limit. Tokens of
+ * a lease older than {@code lease-ttl-seconds} go back to the row with the key's next round trip (and on
+ * shutdown), capped at capacity, so a quiet instance neither hoards them nor loses them for the whole cluster.
+ * After a refusal the key is refused locally until the bucket is expected to have refilled, so a flood of
+ * over-limit requests does not turn into a flood of queries.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "mode", havingValue = "distributed")
+public class LeasedRateLimiter implements RateLimiter {
+
+  private static final String SELECT =
+      "SELECT tokens, refilled_at FROM rate_limit_bucket WHERE key_name = ? FOR UPDATE";
+  private static final String INSERT =
+      "INSERT INTO rate_limit_bucket (key_name, tokens, refilled_at) VALUES (?, ?, ?)";
+  private static final String UPDATE =
+      "UPDATE rate_limit_bucket SET tokens = ?, refilled_at = ? WHERE key_name = ?";
+  private static final String GIVE_BACK =
+      "UPDATE rate_limit_bucket SET tokens = LEAST(?, tokens + ?) WHERE key_name = ?";
+
+  /**
+   * Tokens this instance holds for one key. Guarded by a {@link ReentrantLock} rather than a monitor: the lease
+   * round trip blocks on JDBC, and a virtual thread blocking inside {@code synchronized} would pin its carrier.
+   */
+  private static final class Lease {
+    final ReentrantLock lock = new ReentrantLock();
+    long tokens;
+    long expiresAt;
+    long deniedUntil;
+    /** Tokens left in the shared row after our last lease, for the remaining-tokens header. */
+    long shared;
+    long capacity;
+  }
+
+  /** Result of one round trip: tokens granted to us, tokens left in the row, wait until {@code need} fits. */
+  record Grant(long granted, long left, long millisToWait) {}
+
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate tx;
+  private final Map<String, AppProperties.Tier> tiers;
+  private final AppProperties.Tier defaultTier;
+  private final int leaseTokens;
+  private final long leaseTtlNanos;
+  private final LongSupplier nanoClock;
+  private final LongSupplier wallClock;
+  private final BoundedKeyMap<Lease> leases;
+
+  @Autowired
+  public LeasedRateLimiter(AppProperties props, JdbcTemplate jdbc, PlatformTransactionManager txManager) {
+    this(props, jdbc, txManager, System::nanoTime, System::currentTimeMillis);
+  }
+
+  LeasedRateLimiter(AppProperties props, JdbcTemplate jdbc, PlatformTransactionManager txManager,
+                    LongSupplier nanoClock, LongSupplier wallClock) {
+    var cfg = props.getRateLimit();
+    this.jdbc = jdbc;
+    this.tx = new TransactionTemplate(txManager);
+    // never join a caller's transaction: the row lock must be released as soon as the lease is taken
+    tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.tiers = Map.copyOf(cfg.getTiers());
+    this.defaultTier = LocalBucketStore.defaultTier(cfg);
+    this.leaseTokens = Math.max(1, cfg.getLeaseTokens());
+    this.leaseTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, cfg.getLeaseTtlSeconds()));
+    this.nanoClock = nanoClock;
+    this.wallClock = wallClock;
+    this.leases = new BoundedKeyMap<>(cfg.getMaxBuckets(), cfg.getIdleEvictMinutes(), nanoClock);
+  }
+
+  @Override
+  public Decision tryConsume(ApiKey key, long tokens) {
+    var limits = tiers.getOrDefault(key.tier(), defaultTier);
+    long capacity = Math.max(1, limits.getCapacity());
+    long cost = Math.max(1, Math.min(tokens, capacity));
+    Lease lease = leases.get(key.name(), k -> new Lease());
+    lease.lock.lock();
+    try {
+      long now = nanoClock.getAsLong();
+      boolean expired = now - lease.expiresAt > 0;
+      if (!expired && lease.tokens >= cost) {
+        lease.tokens -= cost;
+        return new Decision(true, lease.tokens + lease.shared, 0);
+      }
+      if (now - lease.deniedUntil < 0) {
+        return new Decision(false, (expired ? 0 : lease.tokens) + lease.shared, lease.deniedUntil - now);
+      }
+      // an expired lease's tokens ride back to the row on the same round trip
+      long giveBack = expired ? lease.tokens : 0;
+      if (expired) lease.tokens = 0;
+      long need = cost - lease.tokens;
+      long chunk = Math.min(capacity, Math.max(need, leaseTokens));
+      Grant g = lease(key.name(), giveBack, need, chunk, capacity, Math.max(1, limits.getRefillPerMinute()));
+      lease.shared = g.left();
+      lease.capacity = capacity;
+      if (g.granted() == 0) {
+        long wait = TimeUnit.MILLISECONDS.toNanos(g.millisToWait());
+        lease.deniedUntil = now + wait;
+        return new Decision(false, lease.tokens + g.left(), wait);
+      }
+      lease.tokens += g.granted() - cost;
+      lease.expiresAt = now + leaseTtlNanos;
+      return new Decision(true, lease.tokens + g.left(), 0);
+    } finally {
+      lease.lock.unlock();
+    }
+  }
+
+  /** Returns every leased token to the rows, so stopping an instance does not shrink the cluster's budget. */
+  @PreDestroy
+  void returnLeases() {
+    leases.forEach((key, lease) -> {
+      lease.lock.lock();
+      try {
+        if (lease.tokens > 0) jdbc.update(GIVE_BACK, lease.capacity, lease.tokens, key);
+        lease.tokens = 0;
+      } catch (DataAccessException ex) {
+        log.warn("could not return {} leased tokens of {}", lease.tokens, key, ex);
+      } finally {
+        lease.lock.unlock();
+      }
+    });
+  }
+
+  /**
+   * Adds back {@code giveBack} unused tokens, refills the key's row for the time passed and takes {@code chunk}
+   * tokens, or as many as are left if at least {@code need} are; otherwise takes nothing. The row is created
+   * full on first use.
+   */
+  Grant lease(String key, long giveBack, long need, long chunk, long capacity, long refillPerMinute) {
+    while (true) {
+      Grant g = tx.execute(status -> leaseOnce(status, key, giveBack, need, chunk, capacity, refillPerMinute));
+      if (g != null) return g;
+    }
+  }
+
+  private Grant leaseOnce(TransactionStatus status, String key, long giveBack, long need, long chunk, long capacity,
+                          long refillPerMinute) {
+    long nowMs = wallClock.getAsLong();
+    List<long[]> rows = jdbc.query(SELECT, (rs, i) -> new long[] {rs.getLong(1), rs.getLong(2)}, key);
+    long available;
+    long refilledAt;
+    boolean exists = !rows.isEmpty();
+    if (exists) {
+      available = rows.get(0)[0];
+      refilledAt = rows.get(0)[1];
+      long added = Math.max(0, nowMs - refilledAt) * refillPerMinute / 60_000;
+      if (available + added + giveBack >= capacity) {
+        available = capacity;
+        refilledAt = nowMs;
+      } else {
+        available += added + giveBack;
+        // advance only by the time those whole tokens took, so the fraction carries into the next refill
+        refilledAt += Math.ceilDiv(added * 60_000, refillPerMinute);
+      }
+    } else {
+      available = capacity;
+      refilledAt = nowMs;
+    }
+    long granted = available >= need ? Math.min(available, chunk) : 0;
+    long left = available - granted;
+    if (exists) {
+      jdbc.update(UPDATE, left, refilledAt, key);
+    } else {
+      try {
+        jdbc.update(INSERT, key, left, refilledAt);
+      } catch (DuplicateKeyException raced) {
+        // another instance created the row first; retry against it in a fresh transaction
+        status.setRollbackOnly();
+        return null;
+      }
+    }
+    long missing = need - available;
+    long wait = granted > 0 ? 0 : Math.max(1, Math.ceilDiv(missing * 60_000, refillPerMinute) - (nowMs - refilledAt));
+    return new Grant(granted, left, wait);
+  }
+}
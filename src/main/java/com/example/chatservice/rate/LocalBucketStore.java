@@ -0,0 +1,90 @@
+package com.example.chatservice.rate;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.security.ApiKey;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory token buckets per authenticated API key ({@code app.rate-limit.mode=local}, the default). A bucket
+ * unused for {@code idle-evict-minutes}, or for as long as the slowest tier takes to refill from empty if that is
+ * longer, is dropped: by then it would have refilled to capacity, so dropping it changes nothing. Once
+ * {@code max-buckets} are held the least recently used go first.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "mode", havingValue = "local", matchIfMissing = true)
+public class LocalBucketStore implements RateLimiter {
+
+  private final Map<String, AppProperties.Tier> tiers;
+  private final AppProperties.Tier defaultTier;
+  private final BoundedKeyMap<Bucket> buckets;
+
+  @Autowired
+  public LocalBucketStore(AppProperties props) {
+    this(props, System::nanoTime);
+  }
+
+  LocalBucketStore(AppProperties props, LongSupplier nanoClock) {
+    var cfg = props.getRateLimit();
+    this.tiers = Map.copyOf(cfg.getTiers());
+    this.defaultTier = defaultTier(cfg);
+    this.buckets = new BoundedKeyMap<>(cfg.getMaxBuckets(), idleEvictMinutes(cfg), nanoClock);
+  }
+
+  @Override
+  public Decision tryConsume(ApiKey key, long tokens) {
+    var limits = limitsFor(key.tier());
+    var probe = bucketFor(key).tryConsumeAndReturnRemaining(Math.max(1, Math.min(tokens, limits.getCapacity())));
+    return new Decision(probe.isConsumed(), probe.getRemainingTokens(), probe.getNanosToWaitForRefill());
+  }
+
+  public Bucket bucketFor(ApiKey key) {
+    return buckets.get(key.name(), k -> newBucket(key.tier()));
+  }
+
+  /** Tokens per period for {@code tier}; unknown tiers get the default limits. */
+  public AppProperties.Tier limitsFor(String tier) {
+    return tiers.getOrDefault(tier, defaultTier);
+  }
+
+  public int size() {
+    return buckets.size();
+  }
+
+  static AppProperties.Tier defaultTier(AppProperties.RateLimit cfg) {
+    var t = new AppProperties.Tier();
+    t.setCapacity(cfg.getCapacity());
+    t.setRefillPerMinute(cfg.getRefillPerMinute());
+    return t;
+  }
+
+  /** {@code idle-evict-minutes}, raised to the longest time any tier needs to refill an empty bucket. */
+  static long idleEvictMinutes(AppProperties.RateLimit cfg) {
+    long minutes = cfg.getIdleEvictMinutes();
+    var all = new ArrayList<>(cfg.getTiers().values());
+    all.add(defaultTier(cfg));
+    for (var t : all) {
+      long capacity = Math.max(1, t.getCapacity());
+      long refill = Math.max(1, t.getRefillPerMinute());
+      minutes = Math.max(minutes, (capacity + refill - 1) / refill);
+    }
+    return minutes;
+  }
+
+  private Bucket newBucket(String tier) {
+    var t = limitsFor(tier);
+    int capacity = Math.max(1, t.getCapacity());
+    int refill = Math.max(1, t.getRefillPerMinute());
+    Bandwidth limit = Bandwidth.classic(capacity, Refill.intervally(refill, Duration.ofMinutes(1)));
+    return Bucket.builder().addLimit(limit).build();
+  }
+}
@@ -1,29 +1,38 @@
 package com.example.chatservice.rate;
 
 
-import com.example.chatservice.config.AppProperties;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import com.example.chatservice.security.ApiKey;
+import com.example.chatservice.timing.RequestTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Token-bucket limit per authenticated API key, enforced by the configured {@link RateLimiter}. Runs after
+ * {@code ApiKeyAuthFilter} in the security chain, so unknown keys are rejected before a bucket could be created
+ * for them. Each request costs {@link RouteCosts#cost} tokens. Decisions are counted in
+ * {@code chat.ratelimit.requests} by key tier and outcome.
+ */
 @Component
 @RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
 
-  private final AppProperties props;
-  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final RateLimiter limiter;
+  private final RouteCosts costs;
+  private final MeterRegistry meters;
+  /** Per tier: [allowed, rejected]; tiers come from the key registry, so the set is small. */
+  private final ConcurrentHashMap<String, Counter[]> decisions = new ConcurrentHashMap<>();
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -35,17 +44,19 @@ public class RateLimitFilter extends OncePerRequestFilter {
       return;
     }
 
-    String apiKey = request.getHeader("X-API-KEY");
-    if (apiKey == null || apiKey.isBlank()) {
+    var auth = SecurityContextHolder.getContext().getAuthentication();
+    if (auth == null || !(auth.getPrincipal() instanceof ApiKey key)) {
       filterChain.doFilter(request, response);
       return;
     }
 
-    var bucket = buckets.computeIfAbsent(apiKey, this::newBucket);
-    var probe = bucket.tryConsumeAndReturnRemaining(1);
-    response.setHeader("X-RateLimit-Remaining", Long.toString(Math.max(0, probe.getRemainingTokens())));
-    if (!probe.isConsumed()) {
-      long nanosToWait = probe.getNanosToWaitForRefill();
+    long startedAt = RequestTiming.start();
+    var decision = limiter.tryConsume(key, costs.cost(request));
+    RequestTiming.stop(RequestTiming.Phase.RATE_LIMIT, startedAt);
+    counters(key.tier())[decision.allowed() ? 0 : 1].increment();
+    response.setHeader("X-RateLimit-Remaining", Long.toString(Math.max(0, decision.remaining())));
+    if (!decision.allowed()) {
+      long nanosToWait = decision.nanosToWait();
       long seconds = Duration.ofNanos(nanosToWait).toSeconds();
       response.setHeader("Retry-After", Long.toString(Math.max(1, seconds)));
       response.sendError(429, "rate_limited");
@@ -54,10 +65,15 @@ public class RateLimitFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
-  private Bucket newBucket(String key) {
-    int capacity = Math.max(1, props.getRateLimit().getCapacity());
-    int refill = Math.max(1, props.getRateLimit().getRefillPerMinute());
-    Bandwidth limit = Bandwidth.classic(capacity, Refill.intervally(refill, Duration.ofMinutes(1)));
-    return Bucket.builder().addLimit(limit).build();
+  private Counter[] counters(String tier) {
+    return decisions.computeIfAbsent(tier, t -> new Counter[] {counter(t, "allowed"), counter(t, "rejected")});
+  }
+
+  private Counter counter(String tier, String outcome) {
+    return Counter.builder("chat.ratelimit.requests")
+        .description("Rate limit decisions for authenticated API requests")
+        .tag("tier", tier)
+        .tag("outcome", outcome)
+        .register(meters);
   }
 }
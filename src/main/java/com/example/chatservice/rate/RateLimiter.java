@@ -0,0 +1,17 @@
+package com.example.chatservice.rate;
+
+import com.example.chatservice.security.ApiKey;
+
+/**
+ * Token-bucket admission per API key. {@code app.rate-limit.mode} picks the implementation: {@code local}
+ * ({@link LocalBucketStore}, one bucket per key in each instance) or {@code distributed}
+ * ({@link LeasedRateLimiter}, one bucket per key shared by all instances through the database).
+ */
+public interface RateLimiter {
+
+  /** Outcome of one request; {@code nanosToWait} is only meaningful when not allowed. */
+  record Decision(boolean allowed, long remaining, long nanosToWait) {}
+
+  /** Takes {@code tokens} from the key's bucket, clamped to the bucket's capacity so no request is impossible. */
+  Decision tryConsume(ApiKey key, long tokens);
+}
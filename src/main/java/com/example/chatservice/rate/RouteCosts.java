@@ -0,0 +1,37 @@
+package com.example.chatservice.rate;
+
+import com.example.chatservice.config.AppProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/** Tokens a request costs, from {@code app.rate-limit.costs}; first match wins, unmatched requests cost 1. */
+@Component
+public class RouteCosts {
+
+  private record Rule(String method, PathPattern pattern, int tokens) {}
+
+  private final List<Rule> rules;
+
+  public RouteCosts(AppProperties props) {
+    var parser = PathPatternParser.defaultInstance;
+    this.rules = props.getRateLimit().getCosts().stream()
+        .map(c -> new Rule(c.getMethod(), parser.parse(c.getPath()), Math.max(1, c.getTokens())))
+        .toList();
+  }
+
+  public int cost(HttpServletRequest request) {
+    if (rules.isEmpty()) return 1;
+    var path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+    for (Rule r : rules) {
+      if ((r.method() == null || r.method().equalsIgnoreCase(request.getMethod())) && r.pattern().matches(path)) {
+        return r.tokens();
+      }
+    }
+    return 1;
+  }
+}
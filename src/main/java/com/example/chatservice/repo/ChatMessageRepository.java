@@ -1,13 +1,57 @@
 package com.example.chatservice.repo;
 
+import com.example.chatservice.api.dto.MessageDtos;
 import com.example.chatservice.domain.ChatMessage;
-import com.example.chatservice.domain.ChatSession;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID> {
-  Page<ChatMessage> findBySessionOrderByCreatedAtAsc(ChatSession session, Pageable pageable);
+  // Read path: project straight into the response record so no entity, proxy or dirty-checking
+  // snapshot is created per row.
+  String RESPONSE = "new com.example.chatservice.api.dto.MessageDtos$MessageResponse("
+      + "m.id, m.session.id, m.sender, m.content, m.contextJson, m.createdAt)";
+
+  @Query(value = "select " + RESPONSE + " from ChatMessage m where m.session.id = :sessionId order by m.createdAt asc, m.id asc",
+      countQuery = "select count(m) from ChatMessage m where m.session.id = :sessionId")
+  Page<MessageDtos.MessageResponse> findResponsesBySessionId(@Param("sessionId") UUID sessionId, Pageable pageable);
+
+  @Query("select " + RESPONSE + " from ChatMessage m where m.session.id = :sessionId order by m.createdAt asc, m.id asc")
+  Slice<MessageDtos.MessageResponse> findResponseSliceBySessionId(@Param("sessionId") UUID sessionId, Pageable pageable);
+
+  // Keyset (seek) queries on (created_at, id): no OFFSET and no COUNT, so cost is independent of page depth.
+  // The row-value comparison is a single range on idx_message_session_keyset(session_id, created_at, id); the
+  // redundant created_at bound keeps it a range on databases where the row value is expanded into OR terms.
+
+  @Query("select m from ChatMessage m where m.session.id = :sessionId order by m.createdAt asc, m.id asc")
+  List<ChatMessage> findHead(@Param("sessionId") UUID sessionId, Limit limit);
+
+  @Query("select m from ChatMessage m where m.session.id = :sessionId order by m.createdAt desc, m.id desc")
+  List<ChatMessage> findTail(@Param("sessionId") UUID sessionId, Limit limit);
+
+  @Query("""
+      select m from ChatMessage m
+      where m.session.id = :sessionId
+        and m.createdAt >= :createdAt
+        and (m.createdAt, m.id) > (:createdAt, :id)
+      order by m.createdAt asc, m.id asc""")
+  List<ChatMessage> findAfter(@Param("sessionId") UUID sessionId, @Param("createdAt") Instant createdAt,
+                              @Param("id") UUID id, Limit limit);
+
+  @Query("""
+      select m from ChatMessage m
+      where m.session.id = :sessionId
+        and m.createdAt <= :createdAt
+        and (m.createdAt, m.id) < (:createdAt, :id)
+      order by m.createdAt desc, m.id desc""")
+  List<ChatMessage> findBefore(@Param("sessionId") UUID sessionId, @Param("createdAt") Instant createdAt,
+                               @Param("id") UUID id, Limit limit);
 }
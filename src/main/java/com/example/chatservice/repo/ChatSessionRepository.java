@@ -1,14 +1,84 @@
 package com.example.chatservice.repo;
 
+import com.example.chatservice.api.dto.SessionDtos;
 import com.example.chatservice.domain.ChatSession;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface ChatSessionRepository extends JpaRepository<ChatSession, UUID> {
-  Page<ChatSession> findByUserId(String userId, Pageable pageable);
-  Page<ChatSession> findByUserIdAndFavorite(String userId, boolean favorite, Pageable pageable);
-  Page<ChatSession> findByUserIdAndTitleContainingIgnoreCase(String userId, String title, Pageable pageable);
+  // Finders take the result type so reads can project straight into a DTO (select new ...) and never
+  // build managed entities; the DTO's constructor parameter names must match ChatSession properties.
+  <T> Page<T> findByUserId(String userId, Pageable pageable, Class<T> type);
+  <T> Page<T> findByUserIdAndFavorite(String userId, boolean favorite, Pageable pageable, Class<T> type);
+
+  // Slice variants skip the COUNT query; they fetch size + 1 rows to answer hasNext.
+  <T> Slice<T> findSliceByUserId(String userId, Pageable pageable, Class<T> type);
+  <T> Slice<T> findSliceByUserIdAndFavorite(String userId, boolean favorite, Pageable pageable, Class<T> type);
+
+  // Title search runs on the normalized title_norm column: a LIKE 'x%' pattern is a range scan of
+  // idx_session_user_title_norm, '%x%' is served by the pg_trgm GIN index on Postgres. favorite is optional.
+  String SESSION_RESPONSE = "select new com.example.chatservice.api.dto.SessionDtos$SessionResponse("
+      + "s.id, s.userId, s.title, s.favorite, s.createdAt, s.updatedAt) from ChatSession s";
+  String TITLE_SEARCH = " where s.userId = :userId and s.titleNorm like :pattern escape '\\'"
+      + " and (:favorite is null or s.favorite = :favorite)";
+
+  @Query(SESSION_RESPONSE + " where s.id = :id")
+  Optional<SessionDtos.SessionResponse> findResponseById(@Param("id") UUID id);
+
+  @Query("select s.messageVersion from ChatSession s where s.id = :id")
+  Optional<Long> findMessageVersionById(@Param("id") UUID id);
+
+  // Bumped by imports, which can add history below the newest message; callers touching several sessions go in
+  // id order. Appends change the newest message instead and never lock the session row.
+  @Modifying
+  @Query("update ChatSession s set s.messageVersion = s.messageVersion + 1 where s.id = :id")
+  void bumpMessageVersion(@Param("id") UUID id);
+
+  @Query(value = SESSION_RESPONSE + TITLE_SEARCH, countQuery = "select count(s) from ChatSession s" + TITLE_SEARCH)
+  Page<SessionDtos.SessionResponse> searchByTitle(@Param("userId") String userId, @Param("pattern") String pattern,
+                                                  @Param("favorite") Boolean favorite, Pageable pageable);
+
+  @Query(SESSION_RESPONSE + TITLE_SEARCH)
+  Slice<SessionDtos.SessionResponse> searchSliceByTitle(@Param("userId") String userId, @Param("pattern") String pattern,
+                                                        @Param("favorite") Boolean favorite, Pageable pageable);
+
+  // Export cursor: one forward-only scan over sessions joined with their messages, fetched in chunks and
+  // projected into rows, so memory stays flat however large the result. Must be consumed inside a transaction.
+  String EXPORT_ROW = "select new com.example.chatservice.repo.ExportRow("
+      + "s.id, s.userId, s.title, s.favorite, s.createdAt, s.updatedAt, m.id, m.sender, m.content, m.contextJson, m.createdAt)"
+      + " from ChatSession s left join s.messages m";
+
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query(EXPORT_ROW + " where s.id = :sessionId order by m.createdAt asc, m.id asc")
+  Stream<ExportRow> streamExportBySessionId(@Param("sessionId") UUID sessionId);
+
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query(EXPORT_ROW + " where s.userId = :userId order by s.createdAt asc, s.id asc, m.createdAt asc, m.id asc")
+  Stream<ExportRow> streamExportByUserId(@Param("userId") String userId);
+
+  /** Every message of every user, unordered; rebuilds the in-process search index on databases without one. */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query(EXPORT_ROW + " where m.id is not null")
+  Stream<ExportRow> streamExportAll();
 }
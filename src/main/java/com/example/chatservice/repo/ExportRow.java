@@ -0,0 +1,16 @@
+package com.example.chatservice.repo;
+
+import com.example.chatservice.domain.ChatMessage;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One row of the export cursor: a session joined with one of its messages. The message columns are null for a
+ * session without messages.
+ */
+public record ExportRow(
+    UUID sessionId, String userId, String title, boolean favorite, Instant sessionCreatedAt, Instant sessionUpdatedAt,
+    UUID messageId, ChatMessage.Sender sender, String content, String contextJson, Instant messageCreatedAt
+) {
+}
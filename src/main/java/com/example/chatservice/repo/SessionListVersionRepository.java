@@ -0,0 +1,58 @@
+package com.example.chatservice.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * One counter per user in {@code user_session_version}, bumped in the transaction of every write to the user's
+ * sessions. Session-list ETags are built from it, so any instance can tell whether a list changed from one row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SessionListVersionRepository {
+
+  private static final String SELECT = "SELECT version FROM user_session_version WHERE user_id = ?";
+  private static final String BUMP = "UPDATE user_session_version SET version = version + 1 WHERE user_id = ?";
+  private static final String INSERT = "INSERT INTO user_session_version (user_id, version) VALUES (?, 1)";
+  private static final String UNIQUE_VIOLATION = "23505";
+
+  private final JdbcTemplate jdbc;
+
+  /** 0 for a user who never had a session. */
+  public long find(String userId) {
+    var rows = jdbc.queryForList(SELECT, Long.class, userId);
+    return rows.isEmpty() ? 0 : rows.get(0);
+  }
+
+  /**
+   * Runs in the caller's transaction, whose commit publishes the new version. A user's first write inserts the
+   * row under a savepoint, so losing that race to a concurrent first write falls back to the update instead of
+   * aborting the transaction.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void bump(String userId) {
+    if (jdbc.update(BUMP, userId) > 0) return;
+    boolean inserted = jdbc.execute((ConnectionCallback<Boolean>) con -> {
+      Savepoint savepoint = con.setSavepoint();
+      try (PreparedStatement insert = con.prepareStatement(INSERT)) {
+        insert.setString(1, userId);
+        insert.executeUpdate();
+        con.releaseSavepoint(savepoint);
+        return true;
+      } catch (SQLException ex) {
+        if (!UNIQUE_VIOLATION.equals(ex.getSQLState())) throw ex;
+        con.rollback(savepoint);
+        return false;
+      }
+    });
+    if (!inserted) jdbc.update(BUMP, userId);
+  }
+}
@@ -0,0 +1,172 @@
+package com.example.chatservice.search;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inverted index kept in memory for databases without full-text search (H2 in dev and tests).
+ * <p>
+ * The index is built from the database on the first search, then kept current from committed appends and
+ * session deletes. Bulk imports bypass the entity layer, so they only mark it stale and the next search
+ * rebuilds. Postings are partitioned by user, so a query only ever touches that user's words.
+ */
+@Slf4j
+public class InMemoryMessageIndex implements MessageSearch {
+
+  record Doc(UUID id, UUID sessionId, ChatMessage.Sender sender, String content, Instant createdAt,
+             Map<String, Integer> termFrequencies) {}
+
+  private final ConcurrentHashMap<String, UserIndex> users = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<UUID, String> sessionOwners = new ConcurrentHashMap<>();
+  private final ChatSessionRepository sessionRepo;
+  private final TransactionTemplate readTx;
+  private volatile boolean stale = true;
+  /** Not a monitor: rebuilding streams from JDBC, which would pin a virtual thread inside {@code synchronized}. */
+  private final ReentrantLock rebuilding = new ReentrantLock();
+
+  public InMemoryMessageIndex(ChatSessionRepository sessionRepo, PlatformTransactionManager txManager) {
+    this.sessionRepo = sessionRepo;
+    this.readTx = new TransactionTemplate(txManager);
+    this.readTx.setReadOnly(true);
+  }
+
+  @Override
+  public List<MessageDtos.SearchHit> search(String userId, String query, int limit) {
+    if (stale) rebuild();
+    var terms = SearchText.queryTerms(query);
+    var index = users.get(userId);
+    if (terms.isEmpty() || index == null) return List.of();
+    return index.search(terms, limit);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onAppended(MessagesAppendedEvent event) {
+    // the pending rebuild will read these rows anyway
+    if (stale) return;
+    sessionOwners.put(event.sessionId(), event.userId());
+    var index = users.computeIfAbsent(event.userId(), k -> new UserIndex());
+    event.messages().forEach(m -> index.add(doc(m.id(), m.sessionId(), m.sender(), m.content(), m.createdAt())));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeleted(SessionDeletedEvent event) {
+    var owner = sessionOwners.remove(event.sessionId());
+    var index = owner == null ? null : users.get(owner);
+    if (index != null) index.removeSession(event.sessionId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImported(MessagesImportedEvent event) {
+    stale = true;
+  }
+
+  /** Adding is idempotent, so appends that race with a rebuild are harmless. */
+  void rebuild() {
+    rebuilding.lock();
+    try {
+      if (!stale) return;
+      stale = false;
+      long started = System.nanoTime();
+      users.clear();
+      sessionOwners.clear();
+      var count = new AtomicLong();
+      readTx.executeWithoutResult(status -> {
+        try (var rows = sessionRepo.streamExportAll()) {
+          rows.forEach(r -> {
+            sessionOwners.put(r.sessionId(), r.userId());
+            users.computeIfAbsent(r.userId(), k -> new UserIndex())
+                .add(doc(r.messageId(), r.sessionId(), r.sender(), r.content(), r.messageCreatedAt()));
+            count.incrementAndGet();
+          });
+        }
+      });
+      log.info("built message search index: {} messages in {} ms", count.get(), (System.nanoTime() - started) / 1_000_000);
+    } finally {
+      rebuilding.unlock();
+    }
+  }
+
+  private static Doc doc(UUID id, UUID sessionId, ChatMessage.Sender sender, String content, Instant createdAt) {
+    Map<String, Integer> tf = new HashMap<>();
+    for (String w : SearchText.words(content)) tf.merge(w, 1, Integer::sum);
+    return new Doc(id, sessionId, sender, content, createdAt, tf);
+  }
+
+  /** One user's documents and postings, guarded by its own monitor. */
+  static final class UserIndex {
+    private final Map<UUID, Doc> docs = new HashMap<>();
+    private final Map<String, Set<UUID>> postings = new HashMap<>();
+    private final Map<UUID, Set<UUID>> bySession = new HashMap<>();
+
+    synchronized void add(Doc d) {
+      if (docs.putIfAbsent(d.id(), d) != null) return;
+      d.termFrequencies().keySet().forEach(t -> postings.computeIfAbsent(t, k -> new HashSet<>()).add(d.id()));
+      bySession.computeIfAbsent(d.sessionId(), k -> new HashSet<>()).add(d.id());
+    }
+
+    synchronized void removeSession(UUID sessionId) {
+      var ids = bySession.remove(sessionId);
+      if (ids == null) return;
+      for (UUID id : ids) {
+        var d = docs.remove(id);
+        for (String t : d.termFrequencies().keySet()) {
+          var p = postings.get(t);
+          p.remove(id);
+          if (p.isEmpty()) postings.remove(t);
+        }
+      }
+    }
+
+    /** Intersects postings smallest first, then scores with log-scaled tf-idf. */
+    synchronized List<MessageDtos.SearchHit> search(List<String> terms, int limit) {
+      List<Set<UUID>> lists = new ArrayList<>(terms.size());
+      for (String t : terms) {
+        var p = postings.get(t);
+        if (p == null) return List.of();
+        lists.add(p);
+      }
+      lists.sort(Comparator.comparingInt(Set::size));
+      Set<UUID> candidates = new HashSet<>(lists.get(0));
+      for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) candidates.retainAll(lists.get(i));
+
+      int n = docs.size();
+      List<MessageDtos.SearchHit> hits = new ArrayList<>(candidates.size());
+      for (UUID id : candidates) {
+        var d = docs.get(id);
+        double score = 0;
+        for (String t : terms) {
+          double idf = Math.log(1 + (double) n / postings.get(t).size());
+          score += (1 + Math.log(d.termFrequencies().get(t))) * idf;
+        }
+        hits.add(new MessageDtos.SearchHit(d.id(), d.sessionId(), d.sender(), null, score, d.createdAt()));
+      }
+      hits.sort(Comparator.comparingDouble(MessageDtos.SearchHit::score).reversed()
+          .thenComparing(MessageDtos.SearchHit::createdAt, Comparator.reverseOrder()));
+      return hits.subList(0, Math.min(limit, hits.size())).stream()
+          .map(h -> new MessageDtos.SearchHit(h.messageId(), h.sessionId(), h.sender(),
+              SearchText.snippet(docs.get(h.messageId()).content(), terms), h.score(), h.createdAt()))
+          .toList();
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.example.chatservice.search;
+
+import com.example.chatservice.api.dto.MessageDtos;
+
+import java.util.List;
+
+/**
+ * Full-text search over message content, scoped to one user. Every query word must match; hits come back best
+ * first. Implementations are picked by {@link com.example.chatservice.config.MessageSearchConfig}.
+ */
+public interface MessageSearch {
+
+  List<MessageDtos.SearchHit> search(String userId, String query, int limit);
+}
@@ -0,0 +1,26 @@
+package com.example.chatservice.search;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.service.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class MessageSearchService {
+
+  static final int MAX_LIMIT = 100;
+  static final int MAX_QUERY_LENGTH = 200;
+
+  private final MessageSearch search;
+
+  @Transactional(readOnly = true)
+  public List<MessageDtos.SearchHit> search(String userId, String q, int limit) {
+    if (q == null || q.isBlank()) throw new BadRequestException("query_required");
+    if (q.length() > MAX_QUERY_LENGTH) throw new BadRequestException("query_too_long");
+    return search.search(userId, q.strip(), Math.max(1, Math.min(limit, MAX_LIMIT)));
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.chatservice.search;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.domain.ChatMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ranks matches of {@code to_tsvector('simple', content)} with {@code ts_rank}. The expression must stay identical
+ * to the GIN expression index in {@code db/vendor/postgresql/V2__message_search.sql}, which finds the candidates
+ * without parsing any content. Ranking does parse it, once per row, since no tsvector is stored; so only the
+ * newest {@link #CANDIDATES} matches are ranked, and a common word over a large history returns the best of those
+ * rather than of all. Only the top {@code limit} rows carry their content back for the snippet.
+ */
+@RequiredArgsConstructor
+public class PostgresMessageSearch implements MessageSearch {
+
+  /** Most matches ranked per search; bounds the tsvector parsing a query can cause. */
+  static final int CANDIDATES = 1_000;
+
+  private static final String SQL = """
+      WITH q AS (SELECT plainto_tsquery('simple', ?) AS query),
+      candidates AS (
+        SELECT m.id, m.session_id, m.sender, m.content, m.created_at
+        FROM chat_message m
+        JOIN chat_session s ON s.id = m.session_id
+        CROSS JOIN q
+        WHERE s.user_id = ? AND to_tsvector('simple', m.content) @@ q.query
+        ORDER BY m.created_at DESC
+        LIMIT ?
+      )
+      SELECT c.*, ts_rank(to_tsvector('simple', c.content), q.query) AS rank
+      FROM candidates c CROSS JOIN q
+      ORDER BY rank DESC, c.created_at DESC
+      LIMIT ?
+      """;
+
+  private final JdbcTemplate jdbc;
+
+  @Override
+  public List<MessageDtos.SearchHit> search(String userId, String query, int limit) {
+    var terms = SearchText.queryTerms(query);
+    if (terms.isEmpty()) return List.of();
+    return jdbc.query(SQL, (rs, i) -> new MessageDtos.SearchHit(
+        rs.getObject("id", UUID.class),
+        rs.getObject("session_id", UUID.class),
+        ChatMessage.Sender.valueOf(rs.getString("sender")),
+        SearchText.snippet(rs.getString("content"), terms),
+        rs.getDouble("rank"),
+        rs.getTimestamp("created_at").toInstant()
+    ), String.join(" ", terms), userId, CANDIDATES, limit);
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.chatservice.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Word splitting and snippets shared by both search backends. Words are runs of letters and digits, lower-cased,
+ * which is what Postgres' {@code simple} text search configuration produces for ordinary text.
+ */
+final class SearchText {
+
+  private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+  private static final int BEFORE = 60;
+  private static final int AFTER = 140;
+
+  private SearchText() {
+  }
+
+  static List<String> words(String text) {
+    List<String> out = new ArrayList<>();
+    Matcher m = WORD.matcher(text);
+    while (m.find()) out.add(m.group().toLowerCase(Locale.ROOT));
+    return out;
+  }
+
+  /** Distinct query words in input order. */
+  static List<String> queryTerms(String query) {
+    return List.copyOf(new LinkedHashSet<>(words(query)));
+  }
+
+  /** An excerpt of {@code content} around the first occurrence of any of {@code terms}, on word boundaries. */
+  static String snippet(String content, Collection<String> terms) {
+    int hit = 0;
+    Matcher m = WORD.matcher(content);
+    while (m.find()) {
+      if (terms.contains(m.group().toLowerCase(Locale.ROOT))) {
+        hit = m.start();
+        break;
+      }
+    }
+    int start = Math.max(0, hit - BEFORE);
+    int end = Math.min(content.length(), hit + AFTER);
+    if (start > 0) {
+      int space = content.indexOf(' ', start);
+      if (space >= 0 && space < hit) start = space + 1;
+    }
+    if (end < content.length()) {
+      int space = content.lastIndexOf(' ', end);
+      if (space > hit) end = space;
+    }
+    String excerpt = content.substring(start, end).replaceAll("\\s+", " ").strip();
+    return (start > 0 ? "…" : "") + excerpt + (end < content.length() ? "…" : "");
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.chatservice.security;
+
+/**
+ * An accepted API key as seen by the rest of the app: only its name and rate-limit tier, never the secret.
+ * Used as the authentication principal.
+ */
+public record ApiKey(String name, String tier) {
+
+  public static final String DEFAULT_TIER = "standard";
+}
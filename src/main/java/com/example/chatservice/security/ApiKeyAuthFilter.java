@@ -1,6 +1,6 @@
 package com.example.chatservice.security;
 
-import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.timing.RequestTiming;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,37 +12,40 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class ApiKeyAuthFilter extends OncePerRequestFilter {
-  private final AppProperties props;
+  private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_API"));
+
+  private final ApiKeyRegistry registry;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-    String path = request.getRequestURI();
-    if (!path.startsWith("/api/")) {
+    if (!requiresKey(request.getRequestURI())) {
       filterChain.doFilter(request, response);
       return;
     }
+    long startedAt = RequestTiming.start();
     String apiKey = request.getHeader("X-API-KEY");
-    if (apiKey == null || apiKey.isBlank() || !isAllowedKey(apiKey)) {
+    var key = apiKey == null || apiKey.isBlank() ? Optional.<ApiKey>empty() : registry.lookup(apiKey);
+    RequestTiming.stop(RequestTiming.Phase.AUTH, startedAt);
+    if (key.isEmpty()) {
       response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
       response.setContentType("application/json");
       response.getWriter().write("{\"error\":\"missing_or_invalid_api_key\"}");
       return;
     }
-    var auth = new ApiKeyAuthenticationToken(apiKey, List.of(new SimpleGrantedAuthority("ROLE_API")));
+    var auth = new ApiKeyAuthenticationToken(key.get(), AUTHORITIES);
     SecurityContextHolder.getContext().setAuthentication(auth);
     filterChain.doFilter(request, response);
   }
 
-  private boolean isAllowedKey(String key) {
-    Set<String> keys = Arrays.stream(props.getApiKeys().split(",")).map(String::trim).collect(Collectors.toSet());
-    return keys.contains(key);
+  /** The API and every actuator endpoint except the public health and info probes. */
+  static boolean requiresKey(String path) {
+    if (path.startsWith("/api/")) return true;
+    return path.startsWith("/actuator/") && !path.startsWith("/actuator/health") && !path.startsWith("/actuator/info");
   }
 }
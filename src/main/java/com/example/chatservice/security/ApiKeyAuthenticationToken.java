@@ -6,11 +6,11 @@ import org.springframework.security.core.GrantedAuthority;
 import java.util.Collection;
 
 class ApiKeyAuthenticationToken extends AbstractAuthenticationToken {
-  private final String principal;
+  private final ApiKey principal;
 
-  ApiKeyAuthenticationToken(String apiKey, Collection<? extends GrantedAuthority> authorities) {
+  ApiKeyAuthenticationToken(ApiKey key, Collection<? extends GrantedAuthority> authorities) {
     super(authorities);
-    this.principal = apiKey;
+    this.principal = key;
     setAuthenticated(true);
   }
 
@@ -20,7 +20,12 @@ class ApiKeyAuthenticationToken extends AbstractAuthenticationToken {
   }
 
   @Override
-  public Object getPrincipal() {
+  public ApiKey getPrincipal() {
     return principal;
   }
+
+  @Override
+  public String getName() {
+    return principal.name();
+  }
 }
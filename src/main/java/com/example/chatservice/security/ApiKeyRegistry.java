@@ -0,0 +1,184 @@
+package com.example.chatservice.security;
+
+import com.example.chatservice.config.AppProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepted API keys, parsed once into SHA-256 digests. Lookups hash the presented key and find it by digest;
+ * the request path reads one volatile snapshot and never locks or allocates per configured key. Matching on the
+ * digest rather than the secret is what defeats timing attacks: how far a comparison gets before it fails says
+ * something about the hash of a guess, not about the key itself.
+ * <p>
+ * Keys come from {@code app.api-keys} (comma separated) and, when set, {@code app.api-keys-file} (one per
+ * line, {@code #} comments). Each entry is {@code [name:]key[:tier]}; {@code key} is either the secret itself
+ * or <code>{sha256}</code> followed by its hex digest, so secrets need not be stored in plain text. A literal
+ * {@code :} in any field is written {@code \:}, so a plain key that contains colons must escape them. The file is
+ * polled every {@code app.api-keys-reload-seconds} and a changed file replaces the whole snapshot at once; an
+ * invalid file is logged and the previous keys stay in force.
+ */
+@Slf4j
+@Component
+public class ApiKeyRegistry {
+
+  static final String HASHED_PREFIX = "{sha256}";
+
+  private record Entry(byte[] digest, ApiKey key) {}
+
+  private static final MessageDigest SHA256;
+
+  static {
+    try {
+      SHA256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  private final String inlineKeys;
+  private final Path file;
+  private final ScheduledExecutorService reloader;
+  private volatile Map<ByteBuffer, Entry> byDigest;
+  private volatile FileTime fileVersion;
+
+  public ApiKeyRegistry(AppProperties props) {
+    this.inlineKeys = props.getApiKeys();
+    this.file = props.getApiKeysFile() == null || props.getApiKeysFile().isBlank() ? null : Path.of(props.getApiKeysFile());
+    this.byDigest = load();
+    long interval = props.getApiKeysReloadSeconds();
+    if (file != null && interval > 0) {
+      this.reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "api-key-reloader");
+        t.setDaemon(true);
+        return t;
+      });
+      reloader.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.SECONDS);
+    } else {
+      this.reloader = null;
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (reloader != null) reloader.shutdownNow();
+  }
+
+  /** The key's metadata if {@code presented} is an accepted key. */
+  public Optional<ApiKey> lookup(String presented) {
+    Entry e = byDigest.get(ByteBuffer.wrap(digest(presented)));
+    return e != null ? Optional.of(e.key()) : Optional.empty();
+  }
+
+  public int size() {
+    return byDigest.size();
+  }
+
+  /** Re-reads every source and swaps the snapshot; throws and keeps the old keys if any entry is invalid. */
+  public synchronized void reload() {
+    byDigest = load();
+    log.info("reloaded {} API keys", byDigest.size());
+  }
+
+  private void reloadIfChanged() {
+    try {
+      FileTime modified = Files.getLastModifiedTime(file);
+      if (modified.equals(fileVersion)) return;
+      reload();
+    } catch (IOException | RuntimeException ex) {
+      log.error("API key reload from {} failed, keeping the previous keys", file, ex);
+    }
+  }
+
+  private Map<ByteBuffer, Entry> load() {
+    List<String> entries = new ArrayList<>();
+    if (inlineKeys != null) entries.addAll(List.of(inlineKeys.split(",")));
+    if (file != null) {
+      try {
+        fileVersion = Files.getLastModifiedTime(file);
+        entries.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+      } catch (IOException ex) {
+        throw new IllegalStateException("cannot read API key file " + file, ex);
+      }
+    }
+    Map<ByteBuffer, Entry> out = new HashMap<>();
+    for (String raw : entries) {
+      String line = raw.strip();
+      if (line.isEmpty() || line.startsWith("#")) continue;
+      Entry e = parse(line);
+      out.put(ByteBuffer.wrap(e.digest()), e);
+    }
+    return Map.copyOf(out);
+  }
+
+  static Entry parse(String line) {
+    String[] parts = fields(line);
+    if (parts.length > 3) {
+      throw new IllegalStateException("API key entry must be [name:]key[:tier]; escape ':' inside a key as '\\:'");
+    }
+    String secret = parts.length == 1 ? parts[0] : parts[1];
+    if (secret.isBlank()) throw new IllegalStateException("API key entry has an empty key");
+    byte[] digest;
+    if (secret.startsWith(HASHED_PREFIX)) {
+      String hex = secret.substring(HASHED_PREFIX.length());
+      if (hex.length() != 64) throw new IllegalStateException("sha256 API key digest must be 64 hex characters");
+      try {
+        digest = HexFormat.of().parseHex(hex);
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalStateException("sha256 API key digest is not hex", ex);
+      }
+    } else {
+      digest = digest(secret);
+    }
+    String name = parts.length > 1 && !parts[0].isBlank() ? parts[0] : "key-" + HexFormat.of().formatHex(digest, 0, 4);
+    String tier = parts.length == 3 && !parts[2].isBlank() ? parts[2] : ApiKey.DEFAULT_TIER;
+    return new Entry(digest, new ApiKey(name, tier));
+  }
+
+  /** {@code line} split on unescaped colons, with {@code \:} turned back into {@code :}. */
+  private static String[] fields(String line) {
+    List<String> out = new ArrayList<>(3);
+    var field = new StringBuilder();
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\\' && i + 1 < line.length() && line.charAt(i + 1) == ':') {
+        field.append(':');
+        i++;
+      } else if (c == ':') {
+        out.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    out.add(field.toString());
+    return out.toArray(String[]::new);
+  }
+
+  static byte[] digest(String secret) {
+    try {
+      var md = (MessageDigest) SHA256.clone();
+      return md.digest(secret.getBytes(StandardCharsets.UTF_8));
+    } catch (CloneNotSupportedException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.example.chatservice.security;
 
 import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.rate.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +27,7 @@ import java.util.List;
 public class SecurityConfig {
   private final AppProperties props;
   private final ApiKeyAuthFilter apiKeyAuthFilter;
+  private final RateLimitFilter rateLimitFilter;
   private final Environment env;
 
   @Bean
@@ -46,13 +49,19 @@ public class SecurityConfig {
             auth.requestMatchers("/swagger-ui/**", "/swagger-ui.html").denyAll();
             auth.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
             auth.requestMatchers("/error").permitAll();
+            // SSE completion re-dispatches asynchronously; the original request was already authorized
+            auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
             auth.requestMatchers("/h2/**", "/h2-console/**", "/h2-console").permitAll();
             auth.requestMatchers("/api/**").authenticated();
+            // metrics are scraped with an API key like any other client
+            auth.requestMatchers("/actuator/prometheus", "/actuator/metrics", "/actuator/metrics/**").authenticated();
             auth.anyRequest().denyAll();
         })
         .headers(h -> h.frameOptions(f -> f.sameOrigin()));
     // API key filter will populate authentication for requests bearing X-API-KEY
     http.addFilterBefore(apiKeyAuthFilter, UsernamePasswordAuthenticationFilter.class);
+    // rate limiting keys on the authenticated principal, so it must come after authentication
+    http.addFilterAfter(rateLimitFilter, ApiKeyAuthFilter.class);
     return http.build();
   }
 
@@ -62,8 +71,8 @@ public class SecurityConfig {
     var origins = Arrays.stream(props.getCors().getAllowedOrigins().split(",")).map(String::trim).toList();
     cfg.setAllowedOrigins(origins);
     cfg.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-    cfg.setAllowedHeaders(List.of("Content-Type", "X-API-KEY", "Authorization"));
-    cfg.setExposedHeaders(List.of("X-RateLimit-Remaining", "Retry-After"));
+    cfg.setAllowedHeaders(List.of("Content-Type", "X-API-KEY", "Authorization", "Last-Event-ID", "If-None-Match"));
+    cfg.setExposedHeaders(List.of("X-RateLimit-Remaining", "Retry-After", "Server-Timing", "ETag"));
     cfg.setAllowCredentials(false);
     var src = new UrlBasedCorsConfigurationSource();
     src.registerCorsConfiguration("/**", cfg);
@@ -0,0 +1,7 @@
+package com.example.chatservice.service;
+
+public class BadRequestException extends RuntimeException {
+  public BadRequestException(String code) {
+    super(code);
+  }
+}
@@ -1,43 +1,203 @@
 package com.example.chatservice.service;
 
 import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.cache.ContentVersions;
+import com.example.chatservice.cache.MessageTailCache;
+import com.example.chatservice.cache.SessionMetadataCache;
+import com.example.chatservice.config.AppProperties;
 import com.example.chatservice.domain.ChatMessage;
 import com.example.chatservice.domain.ChatSession;
 import com.example.chatservice.repo.ChatMessageRepository;
 import com.example.chatservice.repo.ChatSessionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.IdGenerator;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ChatMessageService {
 
+  static final int MAX_BATCH_SIZE = 100;
+
   private final ChatMessageRepository messageRepo;
   private final ChatSessionRepository sessionRepo;
+  private final IdGenerator ids;
+  private final ApplicationEventPublisher events;
+  private final MessageTailCache tailCache;
+  private final SessionMetadataCache sessionCache;
+  private final AppProperties props;
 
+  /**
+   * The session is checked through {@link SessionMetadataCache} and referenced without loading it, so a warm
+   * append issues the INSERT alone.
+   */
   @Transactional
   public ChatMessage append(UUID sessionId, MessageDtos.CreateMessageRequest req) {
-    ChatSession session = sessionRepo.findById(sessionId)
-        .orElseThrow(() -> new NotFoundException("session_not_found"));
-    ChatMessage msg = ChatMessage.builder()
-        .id(UUID.randomUUID())
+    String userId = requireSession(sessionId).userId();
+    var saved = messageRepo.save(newMessage(ids.generateId(), sessionRepo.getReferenceById(sessionId), req));
+    publishAppended(sessionId, userId, List.of(saved));
+    return saved;
+  }
+
+  /**
+   * Appends several messages in one transaction. Ids are assigned up front and the rows go out as a single
+   * JDBC batch (see {@code hibernate.jdbc.batch_size}); the result keeps the request order.
+   */
+  @Transactional
+  public List<ChatMessage> appendAll(UUID sessionId, List<MessageDtos.CreateMessageRequest> reqs) {
+    if (reqs == null || reqs.isEmpty() || reqs.size() > MAX_BATCH_SIZE) {
+      throw new BadRequestException("batch_size_out_of_range");
+    }
+    String userId = requireSession(sessionId).userId();
+    ChatSession session = sessionRepo.getReferenceById(sessionId);
+    List<ChatMessage> msgs = new ArrayList<>(reqs.size());
+    for (var req : reqs) {
+      msgs.add(newMessage(ids.generateId(), session, req));
+    }
+    var saved = messageRepo.saveAll(msgs);
+    publishAppended(sessionId, userId, saved);
+    return saved;
+  }
+
+  /**
+   * Delivered to live subscribers and the tail cache once the surrounding transaction commits. Flushes first:
+   * {@code createdAt} is only assigned when the insert is issued, and listeners order messages by it. A session
+   * deleted since it was cached fails the insert's foreign key here.
+   */
+  private void publishAppended(UUID sessionId, String userId, List<ChatMessage> saved) {
+    try {
+      messageRepo.flush();
+    } catch (DataIntegrityViolationException e) {
+      sessionCache.invalidate(sessionId);
+      throw new NotFoundException("session_not_found");
+    }
+    events.publishEvent(new MessagesAppendedEvent(sessionId, userId, saved.stream().map(MessageDtos.MessageResponse::from).toList()));
+  }
+
+  private SessionDtos.SessionResponse requireSession(UUID sessionId) {
+    return sessionCache.find(sessionId).orElseThrow(() -> new NotFoundException("session_not_found"));
+  }
+
+  @Transactional(readOnly = true)
+  public Page<MessageDtos.MessageResponse> history(UUID sessionId, int page, int size) {
+    requireSession(sessionId);
+    return messageRepo.findResponsesBySessionId(sessionId, PageRequest.of(page, Math.min(size, 200)));
+  }
+
+  @Transactional(readOnly = true)
+  public Slice<MessageDtos.MessageResponse> historySlice(UUID sessionId, int page, int size) {
+    requireSession(sessionId);
+    return messageRepo.findResponseSliceBySessionId(sessionId, PageRequest.of(page, Math.min(size, 200)));
+  }
+
+  /**
+   * Keyset variant of {@link #history}: seeks on (createdAt, id) from {@code cursor}, or from the oldest
+   * ({@code FORWARD}) / newest ({@code BACKWARD}) message when no cursor is given.
+   */
+  @Transactional(readOnly = true)
+  public MessageWindow scroll(UUID sessionId, MessageCursor cursor, MessageCursor.Direction startFrom, int size) {
+    requireSession(sessionId);
+    int limit = pageLimit(size);
+    var direction = cursor != null ? cursor.direction() : startFrom;
+    boolean forward = direction == MessageCursor.Direction.FORWARD;
+    // fetch one extra row to learn whether another page exists without counting
+    var probe = Limit.of(limit + 1);
+    List<ChatMessage> rows;
+    if (cursor == null) {
+      rows = forward ? messageRepo.findHead(sessionId, probe) : messageRepo.findTail(sessionId, probe);
+    } else if (forward) {
+      rows = messageRepo.findAfter(sessionId, cursor.createdAt(), cursor.id(), probe);
+    } else {
+      rows = messageRepo.findBefore(sessionId, cursor.createdAt(), cursor.id(), probe);
+    }
+    return window(rows.stream().map(MessageDtos.MessageResponse::from).toList(), limit, forward, cursor);
+  }
+
+  /**
+   * Same as {@code scroll(sessionId, null, BACKWARD, size)}, but answered from {@link MessageTailCache} when it
+   * holds enough of the session. Not transactional, so a hit needs no connection; a miss reads the tail in one
+   * query (sized to fill the cache) after the existence check.
+   */
+  public MessageWindow latest(UUID sessionId, int size) {
+    int limit = pageLimit(size);
+    var cached = tailCache.latest(sessionId, limit + 1);
+    if (cached != null) {
+      return window(cached.reversed(), limit, false, null);
+    }
+    requireSession(sessionId);
+    long stamp = tailCache.stamp(sessionId);
+    int fetch = tailCache.isEnabled() ? Math.max(limit + 1, tailCache.capacity()) : limit + 1;
+    var rows = messageRepo.findTail(sessionId, Limit.of(fetch)).stream().map(MessageDtos.MessageResponse::from).toList();
+    tailCache.fill(sessionId, stamp, rows, rows.size() < fetch);
+    return window(rows.size() > limit + 1 ? rows.subList(0, limit + 1) : rows, limit, false, null);
+  }
+
+  /**
+   * Weak ETag for any view of the session's history (see {@link ContentVersions}), or null while its newest message
+   * is too recent to vouch for it. The newest message comes from the cached tail when there is one, otherwise from
+   * a single-row index seek; the session's import version is cached by {@link SessionMetadataCache}.
+   */
+  public String historyTag(UUID sessionId) {
+    long version = sessionCache.messageVersion(sessionId).orElseThrow(() -> new NotFoundException("session_not_found"));
+    var cached = tailCache.newest(sessionId);
+    MessageDtos.MessageResponse newest;
+    if (cached != null) {
+      newest = cached.orElse(null);
+    } else {
+      var rows = messageRepo.findTail(sessionId, Limit.of(1));
+      newest = rows.isEmpty() ? null : MessageDtos.MessageResponse.from(rows.get(0));
+    }
+    long settleMs = props.getCache().getEtags().getHistorySettleMs();
+    if (newest != null && newest.createdAt().isAfter(Instant.now().minusMillis(settleMs))) return null;
+    return ContentVersions.historyTag(version, newest == null ? null : newest.id());
+  }
+
+  private static int pageLimit(int size) {
+    return Math.max(1, Math.min(size, 200));
+  }
+
+  /** {@code rows} in query order with up to one extra row past {@code limit}. */
+  private static MessageWindow window(List<MessageDtos.MessageResponse> rows, int limit, boolean forward, MessageCursor cursor) {
+    boolean more = rows.size() > limit;
+    List<MessageDtos.MessageResponse> items = new ArrayList<>(more ? rows.subList(0, limit) : rows);
+    if (!forward) Collections.reverse(items);
+
+    if (items.isEmpty()) {
+      // ran off the end: let the client turn around at the same position
+      return new MessageWindow(items,
+          !forward && cursor != null ? cursor.reverse() : null,
+          forward && cursor != null ? cursor.reverse() : null);
+    }
+    boolean hasAfter = forward ? more : cursor != null;
+    boolean hasBefore = forward ? cursor != null : more;
+    var last = items.get(items.size() - 1);
+    var first = items.get(0);
+    return new MessageWindow(items,
+        hasAfter ? new MessageCursor(MessageCursor.Direction.FORWARD, last.createdAt(), last.id()) : null,
+        hasBefore ? new MessageCursor(MessageCursor.Direction.BACKWARD, first.createdAt(), first.id()) : null);
+  }
+
+  static ChatMessage newMessage(UUID id, ChatSession session, MessageDtos.CreateMessageRequest req) {
+    return ChatMessage.builder()
+        .id(id)
         .session(session)
         .sender(req.sender())
         .content(req.content())
         .contextJson(req.contextJson())
         .build();
-    return messageRepo.save(msg);
-  }
-
-  @Transactional(readOnly = true)
-  public Page<ChatMessage> history(UUID sessionId, int page, int size) {
-    ChatSession session = sessionRepo.findById(sessionId)
-        .orElseThrow(() -> new NotFoundException("session_not_found"));
-    return messageRepo.findBySessionOrderByCreatedAtAsc(session, PageRequest.of(page, Math.min(size, 200)));
   }
 }
@@ -1,13 +1,18 @@
 package com.example.chatservice.service;
 
 import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.cache.SessionMetadataCache;
 import com.example.chatservice.domain.ChatSession;
 import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.repo.SessionListVersionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.IdGenerator;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -17,34 +22,68 @@ import java.util.UUID;
 public class ChatSessionService {
 
   private final ChatSessionRepository sessionRepo;
+  private final IdGenerator ids;
+  private final ApplicationEventPublisher events;
+  private final SessionMetadataCache sessionCache;
+  private final SessionListVersionRepository listVersions;
 
   @Transactional
   public ChatSession create(SessionDtos.CreateSessionRequest req) {
     var session = ChatSession.builder()
-        .id(UUID.randomUUID())
+        .id(ids.generateId())
         .userId(req.userId())
         .title(Optional.ofNullable(req.title()).filter(t -> !t.isBlank()).orElse("New Chat"))
         .favorite(false)
         .build();
-    return sessionRepo.save(session);
+    var saved = sessionRepo.save(session);
+    listVersions.bump(saved.getUserId());
+    events.publishEvent(new SessionChangedEvent(saved.getId(), saved.getUserId()));
+    return saved;
+  }
+
+  /** How {@code q} is matched against the normalized title. */
+  public enum TitleMatch { CONTAINS, PREFIX }
+
+  @Transactional(readOnly = true)
+  public Page<SessionDtos.SessionResponse> list(String userId, Boolean favorite, String q, TitleMatch match, int page, int size) {
+    var pageable = PageRequest.of(page, Math.min(size, 200));
+    if (q != null && !q.isBlank()) {
+      return sessionRepo.searchByTitle(userId, titlePattern(q, match), favorite, pageable);
+    }
+    if (favorite != null) {
+      return sessionRepo.findByUserIdAndFavorite(userId, favorite, pageable, SessionDtos.SessionResponse.class);
+    }
+    return sessionRepo.findByUserId(userId, pageable, SessionDtos.SessionResponse.class);
   }
 
   @Transactional(readOnly = true)
-  public Page<ChatSession> list(String userId, Boolean favorite, String q, int page, int size) {
+  public Slice<SessionDtos.SessionResponse> listSlice(String userId, Boolean favorite, String q, TitleMatch match, int page, int size) {
     var pageable = PageRequest.of(page, Math.min(size, 200));
     if (q != null && !q.isBlank()) {
-      return sessionRepo.findByUserIdAndTitleContainingIgnoreCase(userId, q, pageable);
+      return sessionRepo.searchSliceByTitle(userId, titlePattern(q, match), favorite, pageable);
     }
     if (favorite != null) {
-      return sessionRepo.findByUserIdAndFavorite(userId, favorite, pageable);
+      return sessionRepo.findSliceByUserIdAndFavorite(userId, favorite, pageable, SessionDtos.SessionResponse.class);
     }
-    return sessionRepo.findByUserId(userId, pageable);
+    return sessionRepo.findSliceByUserId(userId, pageable, SessionDtos.SessionResponse.class);
+  }
+
+  /** LIKE pattern over {@code title_norm}; wildcards typed by the user are escaped with a backslash. */
+  static String titlePattern(String q, TitleMatch match) {
+    String escaped = ChatSession.normalizeTitle(q).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    return match == TitleMatch.PREFIX ? escaped + "%" : "%" + escaped + "%";
+  }
+
+  public void requireExists(UUID id) {
+    if (sessionCache.find(id).isEmpty()) throw new NotFoundException("session_not_found");
   }
 
   @Transactional
   public ChatSession rename(UUID id, String title) {
     var s = sessionRepo.findById(id).orElseThrow(() -> new NotFoundException("session_not_found"));
     s.setTitle(title);
+    listVersions.bump(s.getUserId());
+    events.publishEvent(new SessionChangedEvent(id, s.getUserId()));
     return s;
   }
 
@@ -52,12 +91,16 @@ public class ChatSessionService {
   public ChatSession favorite(UUID id, boolean favorite) {
     var s = sessionRepo.findById(id).orElseThrow(() -> new NotFoundException("session_not_found"));
     s.setFavorite(favorite);
+    listVersions.bump(s.getUserId());
+    events.publishEvent(new SessionChangedEvent(id, s.getUserId()));
     return s;
   }
 
   @Transactional
   public void delete(UUID id) {
-    if (!sessionRepo.existsById(id)) throw new NotFoundException("session_not_found");
-    sessionRepo.deleteById(id);
+    var s = sessionRepo.findById(id).orElseThrow(() -> new NotFoundException("session_not_found"));
+    sessionRepo.delete(s);
+    listVersions.bump(s.getUserId());
+    events.publishEvent(new SessionDeletedEvent(id, s.getUserId()));
   }
 }
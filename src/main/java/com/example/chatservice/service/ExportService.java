@@ -0,0 +1,124 @@
+package com.example.chatservice.service;
+
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.repo.ExportRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Streams sessions and their messages as NDJSON, one object per line:
+ * <pre>
+ * {"type":"session","id":...,"userId":...,"title":...,"favorite":...,"createdAt":...,"updatedAt":...}
+ * {"type":"message","id":...,"sessionId":...,"sender":...,"content":...,"contextJson":...,"createdAt":...}
+ * </pre>
+ * Each session line is followed by its messages in history order. Rows come off a database cursor and are
+ * written straight to the output, so nothing proportional to the export size is held in memory.
+ */
+@Service
+public class ExportService {
+
+  private static final int FLUSH_EVERY = 500;
+
+  private final ChatSessionRepository sessionRepo;
+  private final ObjectMapper mapper;
+  private final AtomicInteger active = new AtomicInteger();
+
+  public ExportService(ChatSessionRepository sessionRepo, ObjectMapper mapper, MeterRegistry meters) {
+    this.sessionRepo = sessionRepo;
+    this.mapper = mapper;
+    Gauge.builder("chat.export.active", active, AtomicInteger::get)
+        .description("Export streams currently being written")
+        .register(meters);
+  }
+
+  @Transactional(readOnly = true)
+  public void exportSession(UUID sessionId, OutputStream out) {
+    try (var rows = sessionRepo.streamExportBySessionId(sessionId)) {
+      write(rows, out);
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public void exportUser(String userId, OutputStream out) {
+    try (var rows = sessionRepo.streamExportByUserId(userId)) {
+      write(rows, out);
+    }
+  }
+
+  private void write(Stream<ExportRow> rows, OutputStream out) {
+    active.incrementAndGet();
+    try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+      gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      // lines are terminated explicitly below instead of Jackson's default root separator (a space)
+      gen.setRootValueSeparator(null);
+      UUID current = null;
+      int lines = 0;
+      for (Iterator<ExportRow> it = rows.iterator(); it.hasNext(); ) {
+        ExportRow r = it.next();
+        if (!Objects.equals(current, r.sessionId())) {
+          current = r.sessionId();
+          writeSession(gen, r);
+          lines++;
+        }
+        if (r.messageId() != null) {
+          writeMessage(gen, r);
+          lines++;
+        }
+        if (lines >= FLUSH_EVERY) {
+          gen.flush();
+          lines = 0;
+        }
+      }
+      gen.flush();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      active.decrementAndGet();
+    }
+  }
+
+  private static void writeSession(JsonGenerator gen, ExportRow r) throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("type", "session");
+    gen.writeStringField("id", r.sessionId().toString());
+    gen.writeStringField("userId", r.userId());
+    gen.writeStringField("title", r.title());
+    gen.writeBooleanField("favorite", r.favorite());
+    writeInstant(gen, "createdAt", r.sessionCreatedAt());
+    writeInstant(gen, "updatedAt", r.sessionUpdatedAt());
+    gen.writeEndObject();
+    gen.writeRaw('\n');
+  }
+
+  private static void writeMessage(JsonGenerator gen, ExportRow r) throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("type", "message");
+    gen.writeStringField("id", r.messageId().toString());
+    gen.writeStringField("sessionId", r.sessionId().toString());
+    gen.writeStringField("sender", r.sender().name());
+    gen.writeStringField("content", r.content());
+    gen.writeStringField("contextJson", r.contextJson());
+    writeInstant(gen, "createdAt", r.messageCreatedAt());
+    gen.writeEndObject();
+    gen.writeRaw('\n');
+  }
+
+  private static void writeInstant(JsonGenerator gen, String field, Instant value) throws IOException {
+    if (value == null) gen.writeNullField(field);
+    else gen.writeStringField(field, value.toString());
+  }
+}
@@ -0,0 +1,252 @@
+package com.example.chatservice.service;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.cache.SessionMetadataCache;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind ingestion for single-message appends ({@code app.ingest.mode=group-commit}).
+ * <p>
+ * Callers enqueue into a bounded queue and block until their row is committed. One writer thread drains the
+ * queue and commits up to {@code maxBatchSize} appends per transaction, waiting at most {@code maxDelayMs} for a
+ * batch to fill, so under bursts many appends share one commit (and one fsync) instead of paying for their own.
+ * A full queue is rejected immediately rather than queued, which keeps latency bounded under overload. A caller
+ * that times out withdraws its entry if the writer has not taken it yet, so a 503 means nothing was stored and a
+ * retry cannot duplicate the message; once the entry is in a batch the caller waits up to {@code commitTimeoutMs}
+ * for its outcome and then gives up with {@code ingest_outcome_unknown}, since the row may still commit.
+ * <p>
+ * A batch that violates a constraint is retried row by row so one bad append cannot fail its neighbours; any other
+ * failure (no connection, no transaction) fails the whole batch at once rather than once per row.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.ingest", name = "mode", havingValue = "group-commit")
+public class GroupCommitIngestor {
+
+  record Pending(UUID sessionId, MessageDtos.CreateMessageRequest req, CompletableFuture<ChatMessage> result,
+                 AtomicBoolean claimed) {
+
+    Pending(UUID sessionId, MessageDtos.CreateMessageRequest req, CompletableFuture<ChatMessage> result) {
+      this(sessionId, req, result, new AtomicBoolean());
+    }
+
+    /**
+     * Decides the entry's fate exactly once: the writer claims it before writing, a caller that gives up claims
+     * it to withdraw. Whoever loses must respect the winner.
+     */
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+  }
+
+  private final ChatSessionRepository sessionRepo;
+  private final ChatMessageRepository messageRepo;
+  private final TransactionTemplate tx;
+  private final IdGenerator ids;
+  private final ApplicationEventPublisher events;
+  private final SessionMetadataCache sessionCache;
+  private final BlockingQueue<Pending> queue;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final long ackTimeoutMs;
+  private final long commitTimeoutMs;
+  private final DistributionSummary batchSize;
+  private final Timer commitTimer;
+  final Thread writer;
+  private volatile boolean running = true;
+
+  public GroupCommitIngestor(AppProperties props, ChatSessionRepository sessionRepo, ChatMessageRepository messageRepo,
+                             PlatformTransactionManager txManager, IdGenerator ids, ApplicationEventPublisher events,
+                             SessionMetadataCache sessionCache, MeterRegistry meters) {
+    var cfg = props.getIngest();
+    this.sessionRepo = sessionRepo;
+    this.messageRepo = messageRepo;
+    this.tx = new TransactionTemplate(txManager);
+    this.ids = ids;
+    this.events = events;
+    this.sessionCache = sessionCache;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, cfg.getQueueCapacity()));
+    this.maxBatchSize = Math.max(1, cfg.getMaxBatchSize());
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, cfg.getMaxDelayMs()));
+    this.ackTimeoutMs = cfg.getAckTimeoutMs();
+    this.commitTimeoutMs = cfg.getCommitTimeoutMs();
+    Gauge.builder("chat.ingest.queue.depth", queue, BlockingQueue::size)
+        .description("Appends waiting for the group-commit writer")
+        .register(meters);
+    this.batchSize = DistributionSummary.builder("chat.ingest.batch.size")
+        .description("Appends committed per transaction")
+        .register(meters);
+    this.commitTimer = Timer.builder("chat.ingest.commit")
+        .description("Time to write and commit one batch")
+        .register(meters);
+    this.writer = new Thread(this::run, "message-ingest-writer");
+    this.writer.setDaemon(true);
+  }
+
+  @PostConstruct
+  void start() {
+    writer.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    writer.join(TimeUnit.SECONDS.toMillis(10));
+  }
+
+  /** Enqueues one append and waits for its batch to commit. */
+  public ChatMessage append(UUID sessionId, MessageDtos.CreateMessageRequest req) {
+    var pending = new Pending(sessionId, req, new CompletableFuture<>());
+    if (!running) throw new OverloadedException("ingest_stopped");
+    if (!queue.offer(pending)) throw new OverloadedException("ingest_queue_full");
+    try {
+      try {
+        return pending.result().get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException ex) {
+        if (withdraw(pending)) throw new OverloadedException("ingest_timeout");
+        // already part of a batch: its transaction decides, so wait for it, but not forever
+        try {
+          return pending.result().get(commitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException stuck) {
+          throw new OverloadedException("ingest_outcome_unknown");
+        }
+      }
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException re) throw re;
+      throw new IllegalStateException(ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      withdraw(pending);
+      throw new OverloadedException("ingest_interrupted");
+    }
+  }
+
+  private boolean withdraw(Pending pending) {
+    if (!pending.claim()) return false;
+    queue.remove(pending);
+    pending.result().cancel(false);
+    return true;
+  }
+
+  private void run() {
+    List<Pending> batch = new ArrayList<>(maxBatchSize);
+    try {
+      while (running || !queue.isEmpty()) {
+        Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+          queue.drainTo(batch, maxBatchSize - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() >= maxBatchSize || remaining <= 0) break;
+          Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) break;
+          batch.add(next);
+        }
+        // entries withdrawn by a timed-out caller are dropped; the rest can no longer be withdrawn
+        batch.removeIf(p -> !p.claim());
+        try {
+          if (!batch.isEmpty()) commit(batch);
+        } catch (RuntimeException ex) {
+          log.error("group commit writer failed", ex);
+          batch.forEach(p -> p.result().completeExceptionally(ex));
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      running = false;
+      // nothing drained so far was written: fail it and whatever is still queued, then stop
+      queue.drainTo(batch);
+      var stopped = new OverloadedException("ingest_stopped");
+      batch.forEach(p -> p.result().completeExceptionally(stopped));
+    }
+  }
+
+  void commit(List<Pending> batch) {
+    batchSize.record(batch.size());
+    try {
+      var saved = commitTimer.record(() -> tx.execute(status -> write(batch)));
+      // acknowledge only after the transaction has committed
+      for (int i = 0; i < batch.size(); i++) {
+        var p = batch.get(i);
+        var m = saved.get(i);
+        if (m == null) p.result().completeExceptionally(new NotFoundException("session_not_found"));
+        else p.result().complete(m);
+      }
+    } catch (DataIntegrityViolationException ex) {
+      if (batch.size() == 1) {
+        // as in direct mode: the session was deleted after it was looked up, so the insert failed its foreign key
+        var p = batch.get(0);
+        sessionCache.invalidate(p.sessionId());
+        p.result().completeExceptionally(new NotFoundException("session_not_found"));
+        return;
+      }
+      // one bad row must not fail its neighbours: retry each on its own
+      log.warn("group commit of {} appends failed, retrying individually", batch.size(), ex);
+      for (var p : batch) commit(List.of(p));
+    } catch (RuntimeException ex) {
+      // not caused by any one row (no connection, no transaction): retrying row by row would only wait longer
+      log.warn("group commit of {} appends failed", batch.size(), ex);
+      batch.forEach(p -> p.result().completeExceptionally(ex));
+    }
+  }
+
+  /** Writes the batch in the current transaction; entries for missing sessions come back as null. */
+  private List<ChatMessage> write(List<Pending> batch) {
+    Set<UUID> sessionIds = new HashSet<>();
+    batch.forEach(p -> sessionIds.add(p.sessionId()));
+    Map<UUID, ChatSession> sessions = new HashMap<>();
+    sessionRepo.findAllById(sessionIds).forEach(s -> sessions.put(s.getId(), s));
+    List<ChatMessage> out = new ArrayList<>(batch.size());
+    List<ChatMessage> toSave = new ArrayList<>(batch.size());
+    for (var p : batch) {
+      var session = sessions.get(p.sessionId());
+      var m = session == null ? null : ChatMessageService.newMessage(ids.generateId(), session, p.req());
+      out.add(m);
+      if (m != null) toSave.add(m);
+    }
+    messageRepo.saveAll(toSave);
+    // createdAt is assigned on insert; the events below need it
+    messageRepo.flush();
+    Map<ChatSession, List<MessageDtos.MessageResponse>> appended = new HashMap<>();
+    toSave.forEach(m -> appended.computeIfAbsent(m.getSession(), k -> new ArrayList<>())
+        .add(MessageDtos.MessageResponse.from(m)));
+    appended.forEach((s, msgs) -> events.publishEvent(new MessagesAppendedEvent(s.getId(), s.getUserId(), msgs)));
+    return out;
+  }
+}
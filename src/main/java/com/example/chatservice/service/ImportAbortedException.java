@@ -0,0 +1,16 @@
+package com.example.chatservice.service;
+
+/** An import stopped at a bad line; the first {@code committedLines} lines are stored and need not be re-sent. */
+public class ImportAbortedException extends BadRequestException {
+
+  private final long committedLines;
+
+  public ImportAbortedException(String code, long committedLines) {
+    super(code);
+    this.committedLines = committedLines;
+  }
+
+  public long getCommittedLines() {
+    return committedLines;
+  }
+}
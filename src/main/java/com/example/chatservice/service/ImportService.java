@@ -0,0 +1,262 @@
+package com.example.chatservice.service;
+
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.repo.SessionListVersionRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Bulk-loads the NDJSON format written by {@link ExportService}. Sessions must appear before their messages or
+ * already exist. Rows are validated against the {@code V1__init.sql} constraints while streaming, buffered in
+ * chunks and written with {@code COPY ... FROM STDIN} on Postgres or large JDBC batches elsewhere.
+ * <p>
+ * Each chunk commits in its own transaction, so a long import never holds one transaction open and a bad line
+ * only discards the chunk it is in. The import is therefore not atomic: a failure reports how many lines were
+ * committed ({@link ImportAbortedException}), and the client resumes by re-sending the stream from the next line.
+ */
+@Slf4j
+@Service
+public class ImportService {
+
+  static final int CHUNK_SIZE = 5_000;
+
+  private static final String SESSION_COLUMNS = "chat_session (id, user_id, title, title_norm, favorite, created_at, updated_at)";
+  private static final String MESSAGE_COLUMNS = "chat_message (id, session_id, sender, content, context_json, created_at)";
+
+  private final ObjectMapper mapper;
+  private final JdbcTemplate jdbc;
+  private final ChatSessionRepository sessionRepo;
+  private final SessionListVersionRepository listVersions;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+
+  public ImportService(ObjectMapper mapper, JdbcTemplate jdbc, ChatSessionRepository sessionRepo,
+                       SessionListVersionRepository listVersions, ApplicationEventPublisher events,
+                       PlatformTransactionManager txManager) {
+    this.mapper = mapper;
+    this.jdbc = jdbc;
+    this.sessionRepo = sessionRepo;
+    this.listVersions = listVersions;
+    this.events = events;
+    this.tx = new TransactionTemplate(txManager);
+  }
+
+  /** One NDJSON line; which fields apply depends on {@code type}. */
+  record Line(String type, UUID id, String userId, String title, Boolean favorite, UUID sessionId,
+              ChatMessage.Sender sender, String content, String contextJson, Instant createdAt, Instant updatedAt) {}
+
+  public record Result(long sessions, long messages) {}
+
+  /** Rows buffered since the last commit, and what earlier chunks have committed. */
+  private static final class Progress {
+    final List<Object[]> sessions = new ArrayList<>(CHUNK_SIZE);
+    final List<Object[]> messages = new ArrayList<>(CHUNK_SIZE);
+    long committedLines;
+    long committedSessions;
+    long committedMessages;
+  }
+
+  public Result importNdjson(InputStream in) {
+    var progress = new Progress();
+    try {
+      read(in, progress);
+    } catch (BadRequestException ex) {
+      throw new ImportAbortedException(ex.getMessage(), progress.committedLines);
+    } catch (RuntimeException ex) {
+      log.warn("import failed; lines 1-{} are committed", progress.committedLines, ex);
+      throw ex;
+    } finally {
+      if (progress.committedLines > 0) {
+        events.publishEvent(new MessagesImportedEvent(progress.committedSessions, progress.committedMessages));
+      }
+    }
+    return new Result(progress.committedSessions, progress.committedMessages);
+  }
+
+  private void read(InputStream in, Progress progress) {
+    List<Object[]> sessions = progress.sessions;
+    List<Object[]> messages = progress.messages;
+    Set<UUID> knownSessions = new HashSet<>();
+    long lineNo = 0;
+    try (MappingIterator<Line> it = mapper.readerFor(Line.class).readValues(in)) {
+      while (true) {
+        // counted before reading, so a parse failure in either call reports the line it happened on
+        lineNo++;
+        if (!it.hasNextValue()) break;
+        Line line = it.nextValue();
+        Instant now = Instant.now();
+        if ("session".equals(line.type())) {
+          validateSession(line, lineNo);
+          Instant created = line.createdAt() != null ? line.createdAt() : now;
+          sessions.add(new Object[] {line.id(), line.userId(), line.title(), ChatSession.normalizeTitle(line.title()),
+              Boolean.TRUE.equals(line.favorite()), created, line.updatedAt() != null ? line.updatedAt() : created});
+          knownSessions.add(line.id());
+        } else if ("message".equals(line.type())) {
+          validateMessage(line, lineNo);
+          if (!knownSessions.contains(line.sessionId())) {
+            if (!sessionRepo.existsById(line.sessionId())) throw invalid(lineNo, "unknown sessionId");
+            knownSessions.add(line.sessionId());
+          }
+          messages.add(new Object[] {line.id(), line.sessionId(), line.sender().name(), line.content(),
+              line.contextJson(), line.createdAt() != null ? line.createdAt() : now});
+        } else {
+          throw invalid(lineNo, "type must be session or message");
+        }
+        if (sessions.size() >= CHUNK_SIZE || messages.size() >= CHUNK_SIZE) {
+          flush(progress, lineNo);
+          // committed sessions are now visible to existsById, so the set only needs to cover the open chunk
+          knownSessions.clear();
+        }
+      }
+    } catch (IOException | RuntimeJsonMappingException ex) {
+      throw invalid(lineNo, "malformed json");
+    }
+    // the last iteration counted the end of input as a line
+    flush(progress, lineNo - 1);
+  }
+
+  private static void validateSession(Line l, long lineNo) {
+    if (l.id() == null) throw invalid(lineNo, "id is required");
+    if (l.userId() == null || l.userId().isBlank()) throw invalid(lineNo, "userId is required");
+    if (l.userId().length() > 128) throw invalid(lineNo, "userId longer than 128");
+    if (l.title() == null) throw invalid(lineNo, "title is required");
+    if (l.title().length() > 255) throw invalid(lineNo, "title longer than 255");
+  }
+
+  private static void validateMessage(Line l, long lineNo) {
+    if (l.id() == null) throw invalid(lineNo, "id is required");
+    if (l.sessionId() == null) throw invalid(lineNo, "sessionId is required");
+    if (l.sender() == null) throw invalid(lineNo, "sender is required");
+    if (l.content() == null) throw invalid(lineNo, "content is required");
+  }
+
+  private static BadRequestException invalid(long lineNo, String reason) {
+    return new BadRequestException("line " + lineNo + ": " + reason);
+  }
+
+  /**
+   * Commits the buffered chunk, which ends at {@code lineNo}. Sessions go first so messages in the same chunk
+   * satisfy the foreign key. The same transaction bumps the ETag versions of every user given a session and every
+   * existing session given messages, in sorted order like other writers. A row the database rejects (an id that
+   * already exists, or a session deleted since it was checked) discards the chunk; which line it was is not known.
+   */
+  private void flush(Progress progress, long lineNo) {
+    var sessions = progress.sessions;
+    var messages = progress.messages;
+    if (!sessions.isEmpty() || !messages.isEmpty()) {
+      try {
+        tx.executeWithoutResult(status -> {
+          jdbc.execute((ConnectionCallback<Void>) con -> {
+            write(con, SESSION_COLUMNS, sessions);
+            write(con, MESSAGE_COLUMNS, messages);
+            return null;
+          });
+          bumpVersions(sessions, messages);
+        });
+      } catch (DataIntegrityViolationException ex) {
+        log.debug("import chunk ending at line {} rejected", lineNo, ex);
+        throw new BadRequestException("lines " + (progress.committedLines + 1) + "-" + lineNo
+            + ": duplicate id or unknown sessionId");
+      }
+    }
+    progress.committedLines = lineNo;
+    progress.committedSessions += sessions.size();
+    progress.committedMessages += messages.size();
+    sessions.clear();
+    messages.clear();
+  }
+
+  private void bumpVersions(List<Object[]> sessions, List<Object[]> messages) {
+    Set<String> users = new TreeSet<>();
+    Set<UUID> created = new HashSet<>();
+    for (Object[] row : sessions) {
+      created.add((UUID) row[0]);
+      users.add((String) row[1]);
+    }
+    // a session created in this chunk has no history tag anyone could hold yet
+    Set<UUID> appendedTo = new TreeSet<>();
+    for (Object[] row : messages) {
+      if (!created.contains((UUID) row[1])) appendedTo.add((UUID) row[1]);
+    }
+    users.forEach(listVersions::bump);
+    appendedTo.forEach(sessionRepo::bumpMessageVersion);
+  }
+
+  private void write(Connection con, String table, List<Object[]> rows) throws SQLException {
+    if (rows.isEmpty()) return;
+    if (con.isWrapperFor(PGConnection.class)) {
+      var copy = new PGCopyOutputStream(con.unwrap(PGConnection.class), "COPY " + table + " FROM STDIN WITH (FORMAT csv)");
+      try (Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8))) {
+        writeCsv(rows, out);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      return;
+    }
+    int columns = rows.get(0).length;
+    String sql = "INSERT INTO " + table + " VALUES (" + "?, ".repeat(columns - 1) + "?)";
+    List<Object[]> bound = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      Object[] b = row.clone();
+      for (int i = 0; i < b.length; i++) {
+        if (b[i] instanceof Instant instant) b[i] = Timestamp.from(instant);
+      }
+      bound.add(b);
+    }
+    jdbc.batchUpdate(sql, bound);
+  }
+
+  /**
+   * Streams CSV for {@code COPY}, row by row: every non-null value is quoted, null is an empty unquoted field.
+   * Timestamps are written as local time in the JVM zone, which is the session time zone pgjdbc sets and how
+   * Hibernate stores them.
+   */
+  private static void writeCsv(List<Object[]> rows, Writer out) throws IOException {
+    ZoneId zone = ZoneId.systemDefault();
+    for (Object[] row : rows) {
+      for (int i = 0; i < row.length; i++) {
+        if (i > 0) out.write(',');
+        Object v = row[i];
+        if (v == null) continue;
+        String s = v instanceof Instant instant ? LocalDateTime.ofInstant(instant, zone).toString() : v.toString();
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+      }
+      out.write('\n');
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.example.chatservice.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position inside a session's message history. The (createdAt, id) pair matches the
+ * ordering of {@code idx_message_session_keyset}, so a page is a single index range scan regardless of depth.
+ * Clients only ever see the opaque {@link #encode()} form.
+ */
+public record MessageCursor(Direction direction, Instant createdAt, UUID id) {
+
+  public enum Direction { FORWARD, BACKWARD }
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  public MessageCursor reverse() {
+    return new MessageCursor(direction == Direction.FORWARD ? Direction.BACKWARD : Direction.FORWARD, createdAt, id);
+  }
+
+  public String encode() {
+    String raw = (direction == Direction.FORWARD ? "f" : "b") + "|" + createdAt + "|" + id;
+    return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static MessageCursor decode(String token) {
+    try {
+      String[] parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split("\\|");
+      if (parts.length != 3) throw new BadRequestException("invalid_cursor");
+      Direction direction = switch (parts[0]) {
+        case "f" -> Direction.FORWARD;
+        case "b" -> Direction.BACKWARD;
+        default -> throw new BadRequestException("invalid_cursor");
+      };
+      return new MessageCursor(direction, Instant.parse(parts[1]), UUID.fromString(parts[2]));
+    } catch (IllegalArgumentException | DateTimeException ex) {
+      throw new BadRequestException("invalid_cursor");
+    }
+  }
+}
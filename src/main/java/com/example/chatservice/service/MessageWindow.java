@@ -0,0 +1,12 @@
+package com.example.chatservice.service;
+
+import com.example.chatservice.api.dto.MessageDtos;
+
+import java.util.List;
+
+/**
+ * One keyset page of history, always in ascending (createdAt, id) order. {@code next}/{@code prev}
+ * are null when there is nothing further in that direction.
+ */
+public record MessageWindow(List<MessageDtos.MessageResponse> items, MessageCursor next, MessageCursor prev) {
+}
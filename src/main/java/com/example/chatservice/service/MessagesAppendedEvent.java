@@ -0,0 +1,10 @@
+package com.example.chatservice.service;
+
+import com.example.chatservice.api.dto.MessageDtos;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Published inside the appending transaction; {@link com.example.chatservice.push.MessageHub} fans it out once that transaction commits. */
+public record MessagesAppendedEvent(UUID sessionId, String userId, List<MessageDtos.MessageResponse> messages) {
+}
@@ -0,0 +1,5 @@
+package com.example.chatservice.service;
+
+/** Published once per bulk import; the rows themselves are too many to carry, so listeners re-read what they need. */
+public record MessagesImportedEvent(long sessions, long messages) {
+}
@@ -0,0 +1,8 @@
+package com.example.chatservice.service;
+
+/** Signals load shedding; mapped to 503 with a Retry-After hint. */
+public class OverloadedException extends RuntimeException {
+  public OverloadedException(String code) {
+    super(code);
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.chatservice.service;
+
+import java.util.UUID;
+
+/**
+ * Published inside a transaction that created or changed a session's row; caches of its metadata and of its
+ * owner's session list react after commit.
+ */
+public record SessionChangedEvent(UUID sessionId, String userId) {
+}
@@ -0,0 +1,7 @@
+package com.example.chatservice.service;
+
+import java.util.UUID;
+
+/** Published inside the deleting transaction; listeners that hold per-session state react after commit. */
+public record SessionDeletedEvent(UUID sessionId, String userId) {
+}
@@ -0,0 +1,125 @@
+package com.example.chatservice.timing;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Where the time of one sampled request went, collected on the request thread. Instrumented code brackets its
+ * work with {@link #start()} and {@link #stop}; both are a thread-local read when the request is not sampled.
+ * Phases may overlap: {@code sql} is part of {@code tx}, and {@code app} is the whole request so far.
+ */
+public final class RequestTiming {
+
+  public enum Phase {
+    AUTH("auth"), RATE_LIMIT("ratelimit"), TX("tx"), SQL("sql"), SERIALIZE("ser");
+
+    final String metric;
+
+    Phase(String metric) {
+      this.metric = metric;
+    }
+  }
+
+  private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+  private static final Phase[] PHASES = Phase.values();
+
+  private final long startedAt;
+  /** Where to put the {@code Server-Timing} header, or null when it is not wanted. */
+  private final HttpServletResponse response;
+  private final long[] nanos = new long[PHASES.length];
+  private final int[] counts = new int[PHASES.length];
+  private int txDepth;
+  private long txStartedAt;
+  private boolean headerWritten;
+
+  RequestTiming(long startedAt, HttpServletResponse response) {
+    this.startedAt = startedAt;
+    this.response = response;
+  }
+
+  static RequestTiming begin(long startedAt, HttpServletResponse response) {
+    var timing = new RequestTiming(startedAt, response);
+    CURRENT.set(timing);
+    return timing;
+  }
+
+  static void end() {
+    CURRENT.remove();
+  }
+
+  /** The timing of the request on this thread, or null when it is not sampled. */
+  public static RequestTiming current() {
+    return CURRENT.get();
+  }
+
+  /** A start mark for {@link #stop}; 0 when the request is not sampled. */
+  public static long start() {
+    return CURRENT.get() == null ? 0 : System.nanoTime();
+  }
+
+  public static void stop(Phase phase, long startedAt) {
+    var timing = CURRENT.get();
+    if (timing != null && startedAt != 0) timing.add(phase, System.nanoTime() - startedAt);
+  }
+
+  public void add(Phase phase, long elapsedNanos) {
+    nanos[phase.ordinal()] += elapsedNanos;
+    counts[phase.ordinal()]++;
+  }
+
+  /** Only the outermost transaction counts; a nested REQUIRES_NEW one is already inside its time. */
+  void transactionStarted() {
+    if (txDepth++ == 0) txStartedAt = System.nanoTime();
+  }
+
+  void transactionFinished() {
+    if (txDepth > 0 && --txDepth == 0) add(Phase.TX, System.nanoTime() - txStartedAt);
+  }
+
+  public long nanos(Phase phase) {
+    return nanos[phase.ordinal()];
+  }
+
+  public int count(Phase phase) {
+    return counts[phase.ordinal()];
+  }
+
+  /**
+   * Sets {@code Server-Timing} once, if wanted and the response is not committed yet. Called right before the
+   * body is written and again when the request ends, for responses without a JSON body.
+   */
+  public void writeHeader() {
+    if (response == null || headerWritten || response.isCommitted()) return;
+    response.setHeader("Server-Timing", header(System.nanoTime() - startedAt));
+    headerWritten = true;
+  }
+
+  String header(long totalNanos) {
+    var sb = new StringBuilder(128);
+    for (Phase p : PHASES) {
+      int i = p.ordinal();
+      if (counts[i] == 0) continue;
+      sb.append(p.metric).append(";dur=").append(millis(nanos[i]));
+      if (p == Phase.SQL) sb.append(";desc=\"").append(counts[i]).append(counts[i] == 1 ? " statement\"" : " statements\"");
+      sb.append(", ");
+    }
+    return sb.append("app;dur=").append(millis(totalNanos)).toString();
+  }
+
+  /** Per-phase milliseconds and the SQL statement count, for the slow-request log. */
+  Map<String, Object> fields() {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    for (Phase p : PHASES) {
+      fields.put(p.metric + "_ms", Math.round(nanos[p.ordinal()] / 10_000.0) / 100.0);
+    }
+    fields.put("sql_count", counts[Phase.SQL.ordinal()]);
+    return fields;
+  }
+
+  static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.chatservice.timing;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds JDBC statement and batch execution time to the current {@link RequestTiming}. Hibernate creates one per
+ * session, from {@code hibernate.session.events.auto} in {@code application.yml}; queries issued through
+ * {@code JdbcTemplate} bypass it.
+ */
+public class SqlTimingListener implements SessionEventListener {
+
+  private long startedAt;
+
+  @Override
+  public void jdbcExecuteStatementStart() {
+    startedAt = RequestTiming.start();
+  }
+
+  @Override
+  public void jdbcExecuteStatementEnd() {
+    RequestTiming.stop(RequestTiming.Phase.SQL, startedAt);
+  }
+
+  @Override
+  public void jdbcExecuteBatchStart() {
+    startedAt = RequestTiming.start();
+  }
+
+  @Override
+  public void jdbcExecuteBatchEnd() {
+    RequestTiming.stop(RequestTiming.Phase.SQL, startedAt);
+  }
+}
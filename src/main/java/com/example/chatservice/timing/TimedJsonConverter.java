@@ -0,0 +1,50 @@
+package com.example.chatservice.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Replaces Spring Boot's JSON converter. For sampled requests the body is serialized into a buffer first, so
+ * serialization is timed apart from the socket write and {@code Server-Timing} can still be set before the
+ * response commits; other requests are written straight through.
+ */
+@Component
+class TimedJsonConverter extends MappingJackson2HttpMessageConverter {
+
+  TimedJsonConverter(ObjectMapper mapper) {
+    super(mapper);
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+    var timing = RequestTiming.current();
+    if (timing == null) {
+      super.writeInternal(object, type, outputMessage);
+      return;
+    }
+    long startedAt = System.nanoTime();
+    var buffer = new ByteArrayOutputStream(1024);
+    super.writeInternal(object, type, new HttpOutputMessage() {
+      @Override
+      public OutputStream getBody() {
+        return buffer;
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+        return outputMessage.getHeaders();
+      }
+    });
+    timing.add(RequestTiming.Phase.SERIALIZE, System.nanoTime() - startedAt);
+    timing.writeHeader();
+    buffer.writeTo(outputMessage.getBody());
+  }
+}
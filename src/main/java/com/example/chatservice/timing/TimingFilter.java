@@ -0,0 +1,74 @@
+package com.example.chatservice.timing;
+
+import com.example.chatservice.config.AppProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.logstash.logback.marker.Markers;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outermost filter: starts a {@link RequestTiming} for a sampled fraction of requests (every request while the
+ * {@code Server-Timing} header is enabled) and logs requests slower than {@code app.timing.slow-threshold-ms}.
+ * Unsampled requests only pay for two clock reads; their slow-request entries carry the total without a
+ * breakdown.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TimingFilter extends OncePerRequestFilter {
+
+  private final AppProperties props;
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    var cfg = props.getTiming();
+    long startedAt = System.nanoTime();
+    boolean header = cfg.isServerTimingHeader();
+    RequestTiming timing = header || sampled(cfg.getSampleRate())
+        ? RequestTiming.begin(startedAt, header ? response : null)
+        : null;
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      long total = System.nanoTime() - startedAt;
+      if (timing != null) {
+        timing.writeHeader();
+        RequestTiming.end();
+      }
+      if (cfg.getSlowThresholdMs() > 0 && total >= TimeUnit.MILLISECONDS.toNanos(cfg.getSlowThresholdMs())) {
+        logSlow(request, response, total, timing);
+      }
+    }
+  }
+
+  private static boolean sampled(double rate) {
+    return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+  }
+
+  private static void logSlow(HttpServletRequest request, HttpServletResponse response, long total, RequestTiming timing) {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    fields.put("http_method", request.getMethod());
+    fields.put("uri", request.getRequestURI());
+    fields.put("status", response.getStatus());
+    fields.put("duration_ms", Math.round(total / 10_000.0) / 100.0);
+    fields.put("sampled", timing != null);
+    if (timing != null) fields.putAll(timing.fields());
+    log.warn(Markers.appendEntries(fields), "slow request {} {} took {} ms",
+        request.getMethod(), request.getRequestURI(), RequestTiming.millis(total));
+  }
+}
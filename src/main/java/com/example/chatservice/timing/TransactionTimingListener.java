@@ -0,0 +1,39 @@
+package com.example.chatservice.timing;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Times service transactions from begin to commit or rollback. Spring Boot registers listener beans with the
+ * transaction manager, which only calls them for transactions it actually starts, not for joined ones.
+ */
+@Component
+class TransactionTimingListener implements TransactionExecutionListener {
+
+  @Override
+  public void beforeBegin(TransactionExecution transaction) {
+    var timing = RequestTiming.current();
+    if (timing != null) timing.transactionStarted();
+  }
+
+  @Override
+  public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+    if (beginFailure != null) finished();
+  }
+
+  @Override
+  public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+    finished();
+  }
+
+  @Override
+  public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+    finished();
+  }
+
+  private static void finished() {
+    var timing = RequestTiming.current();
+    if (timing != null) timing.transactionFinished();
+  }
+}
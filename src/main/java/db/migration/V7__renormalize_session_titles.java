@@ -0,0 +1,51 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Recomputes {@code title_norm} the way {@code ChatSession.normalizeTitle} did when this migration was written. The
+ * V3 backfill used SQL {@code LOWER(TRIM(title))}, which only trims spaces, so titles with tabs, newlines or other
+ * leading or trailing whitespace disagreed with what the application writes and searches for. Only rows that differ
+ * are updated. The normalization is copied rather than called so the migration stays frozen if the entity changes.
+ */
+public class V7__renormalize_session_titles extends BaseJavaMigration {
+
+  private static final int BATCH_SIZE = 1_000;
+
+  @Override
+  public void migrate(Context context) throws SQLException {
+    renormalize(context.getConnection());
+  }
+
+  static void renormalize(Connection con) throws SQLException {
+    try (Statement select = con.createStatement();
+         PreparedStatement update = con.prepareStatement("UPDATE chat_session SET title_norm = ? WHERE id = ?")) {
+      // runs inside Flyway's transaction, so Postgres streams the rows instead of loading them all
+      select.setFetchSize(BATCH_SIZE);
+      int pending = 0;
+      try (ResultSet rs = select.executeQuery("SELECT id, title, title_norm FROM chat_session")) {
+        while (rs.next()) {
+          String norm = normalize(rs.getString(2));
+          if (norm.equals(rs.getString(3))) continue;
+          update.setString(1, norm);
+          update.setObject(2, rs.getObject(1));
+          update.addBatch();
+          if (++pending % BATCH_SIZE == 0) update.executeBatch();
+        }
+      }
+      if (pending % BATCH_SIZE != 0) update.executeBatch();
+    }
+  }
+
+  private static String normalize(String title) {
+    return title == null ? null : title.strip().toLowerCase(Locale.ROOT);
+  }
+}
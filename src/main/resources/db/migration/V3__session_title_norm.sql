@@ -0,0 +1,7 @@
+-- Normalized title for index-backed title search; kept in sync by ChatSession on insert and update.
+ALTER TABLE chat_session ADD COLUMN IF NOT EXISTS title_norm VARCHAR(255);
+UPDATE chat_session SET title_norm = LOWER(TRIM(title)) WHERE title_norm IS NULL;
+ALTER TABLE chat_session ALTER COLUMN title_norm SET NOT NULL;
+
+-- serves title_norm LIKE 'prefix%' per user on databases whose default collation allows it (H2, C-collated Postgres)
+CREATE INDEX IF NOT EXISTS idx_session_user_title_norm ON chat_session(user_id, title_norm);
@@ -0,0 +1,7 @@
+-- Shared token buckets for app.rate-limit.mode=distributed; instances lease tokens from these rows in chunks.
+-- refilled_at is epoch milliseconds of the last whole token added, so fractional refill carries over.
+CREATE TABLE IF NOT EXISTS rate_limit_bucket (
+  key_name VARCHAR(128) PRIMARY KEY,
+  tokens BIGINT NOT NULL,
+  refilled_at BIGINT NOT NULL
+);
@@ -0,0 +1,15 @@
+-- Persisted validators for session-list and history ETags, so every instance computes the same tag and tags
+-- survive restarts. Both counters are bumped in the transaction of the write they describe.
+
+-- History: bumped by imports into an existing session; appends are covered by the newest message, so they do not
+-- write the session row. A constant default adds the column without rewriting the table on Postgres 11+.
+ALTER TABLE chat_session ADD COLUMN IF NOT EXISTS message_version BIGINT DEFAULT 0 NOT NULL;
+
+-- Session lists: bumped when one of the user's sessions is created, renamed, (un)favorited, deleted or imported.
+CREATE TABLE IF NOT EXISTS user_session_version (
+  user_id VARCHAR(128) PRIMARY KEY,
+  version BIGINT NOT NULL
+);
+
+INSERT INTO user_session_version (user_id, version)
+SELECT DISTINCT user_id, 0 FROM chat_session;
@@ -0,0 +1,132 @@
+package com.example.chatservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// same properties as TimingTests, so both share one application context
+@SpringBootTest(properties = {
+    "app.timing.server-timing-header=true",
+    "app.timing.slow-threshold-ms=1"
+})
+@AutoConfigureMockMvc
+class ConditionalRequestTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  private void append(String sid) throws Exception {
+    mvc.perform(post("/api/v1/sessions/" + sid + "/messages").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"sender\":\"USER\",\"content\":\"hi\"}"))
+        .andExpect(status().isCreated());
+  }
+
+  private MockHttpServletResponse read(String path, String etag, String... params) throws Exception {
+    var req = get(path).header("X-API-KEY", "dev-key");
+    for (int i = 0; i < params.length; i += 2) req.param(params[i], params[i + 1]);
+    if (etag != null) req.header("If-None-Match", etag);
+    return mvc.perform(req).andReturn().getResponse();
+  }
+
+  @Test
+  void sessionList_isNotModifiedUntilOneOfTheUsersSessionsChanges() throws Exception {
+    String sid = TestSessions.create(mvc, "cond-u1", "Cond");
+    var first = read("/api/v1/sessions", null, "userId", "cond-u1");
+    String etag = first.getHeader("ETag");
+    assertThat(first.getStatus()).isEqualTo(200);
+    assertThat(etag).startsWith("W/\"");
+    assertThat(first.getHeader("Cache-Control")).contains("no-cache", "private");
+
+    var again = read("/api/v1/sessions", etag, "userId", "cond-u1", "count", "false");
+    assertThat(again.getStatus()).isEqualTo(304);
+    assertThat(again.getContentAsString()).isEmpty();
+    assertThat(again.getHeader("Server-Timing")).doesNotContain("sql;");
+
+    mvc.perform(patch("/api/v1/sessions/" + sid + "/rename").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Renamed\"}"))
+        .andExpect(status().isOk());
+    var renamed = read("/api/v1/sessions", etag, "userId", "cond-u1");
+    assertThat(renamed.getStatus()).isEqualTo(200);
+    assertThat(renamed.getContentAsString()).contains("Renamed");
+    assertThat(renamed.getHeader("ETag")).isNotEqualTo(etag);
+  }
+
+  @Test
+  void history_isNotModifiedUntilAMessageIsAppended() throws Exception {
+    String sid = TestSessions.create(mvc, "cond-u2", "Cond");
+    String path = "/api/v1/sessions/" + sid + "/messages";
+    append(sid);
+    String etag = read(path, null, "cursor", "", "from", "BACKWARD").getHeader("ETag");
+
+    var cached = read(path, etag, "cursor", "", "from", "BACKWARD");
+    assertThat(cached.getStatus()).isEqualTo(304);
+    assertThat(cached.getHeader("Server-Timing")).doesNotContain("sql;");
+    assertThat(read(path, etag, "page", "0").getStatus()).isEqualTo(304);
+
+    append(sid);
+    var appended = read(path, etag, "page", "0");
+    assertThat(appended.getStatus()).isEqualTo(200);
+    assertThat(appended.getHeader("ETag")).isNotEqualTo(etag);
+  }
+
+  @Test
+  void tagsFromOneInstance_validateOnAnother() throws Exception {
+    ConfigurableApplicationContext a = node();
+    ConfigurableApplicationContext b = node();
+    try {
+      var created = send(HttpRequest.newBuilder(uri(a, "/api/v1/sessions"))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":\"cond-u3\",\"title\":\"Cond\"}")));
+      String sid = new ObjectMapper().readTree(created.body()).get("id").asText();
+      String messages = "/api/v1/sessions/" + sid + "/messages";
+      send(HttpRequest.newBuilder(uri(a, messages)).header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString("{\"sender\":\"USER\",\"content\":\"hi\"}")));
+      String list = send(HttpRequest.newBuilder(uri(a, "/api/v1/sessions?userId=cond-u3"))).headers()
+          .firstValue("ETag").orElseThrow();
+      String history = send(HttpRequest.newBuilder(uri(a, messages + "?page=0"))).headers()
+          .firstValue("ETag").orElseThrow();
+
+      assertThat(send(HttpRequest.newBuilder(uri(b, "/api/v1/sessions?userId=cond-u3"))
+          .header("If-None-Match", list)).statusCode()).isEqualTo(304);
+      assertThat(send(HttpRequest.newBuilder(uri(b, messages + "?page=0"))
+          .header("If-None-Match", history)).statusCode()).isEqualTo(304);
+    } finally {
+      b.close();
+      a.close();
+    }
+  }
+
+  /** A separate instance; all of them share one database and nothing else. */
+  private static ConfigurableApplicationContext node() {
+    return new SpringApplicationBuilder(ChatServiceApplication.class).run(
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:conditional-cluster;DB_CLOSE_DELAY=-1");
+  }
+
+  private static URI uri(ConfigurableApplicationContext node, String path) {
+    return URI.create("http://localhost:" + node.getEnvironment().getProperty("local.server.port") + path);
+  }
+
+  private static HttpResponse<String> send(HttpRequest.Builder req) throws Exception {
+    return HttpClient.newHttpClient().send(req.header("X-API-KEY", "dev-key").build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.chatservice;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Three app instances on one H2 database enforce a single shared limit per key. */
+class DistributedRateLimitTests {
+
+  private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+  private static final HttpClient http = HttpClient.newHttpClient();
+
+  @BeforeAll
+  static void startCluster() {
+    for (int i = 0; i < 3; i++) {
+      nodes.add(new SpringApplicationBuilder(ChatServiceApplication.class).run(
+          "--server.port=0",
+          "--spring.datasource.url=jdbc:h2:mem:rate-limit-cluster;DB_CLOSE_DELAY=-1",
+          "--app.api-keys=cluster:cluster-key,trickle:trickle-key",
+          "--app.rate-limit.mode=distributed",
+          "--app.rate-limit.capacity=20",
+          "--app.rate-limit.refill-per-minute=1",
+          "--app.rate-limit.lease-tokens=5",
+          "--app.rate-limit.lease-ttl-seconds=1"));
+    }
+  }
+
+  @AfterAll
+  static void stopCluster() {
+    nodes.forEach(ConfigurableApplicationContext::close);
+  }
+
+  private static int get(ConfigurableApplicationContext node, String apiKey) throws Exception {
+    String port = node.getEnvironment().getProperty("local.server.port");
+    var req = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/sessions?userId=cluster-u"))
+        .header("X-API-KEY", apiKey).build();
+    return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+
+  @Test
+  void limitHoldsAcrossInstances() throws Exception {
+    int ok = 0;
+    int limited = 0;
+    for (int i = 0; i < 45; i++) {
+      int status = get(nodes.get(i % nodes.size()), "cluster-key");
+      if (status == 200) ok++;
+      if (status == 429) limited++;
+    }
+    assertThat(ok).isEqualTo(20);
+    assertThat(limited).isEqualTo(25);
+  }
+
+  @Test
+  void slowTrafficSpreadOverInstances_canUseTheWholeLimit() throws Exception {
+    // every instance serves one request per lease lifetime, so each lease expires almost unused
+    int ok = 0;
+    for (int round = 0; round < 7; round++) {
+      for (var node : nodes) {
+        if (get(node, "trickle-key") == 200) ok++;
+      }
+      Thread.sleep(1_100);
+    }
+    assertThat(ok).isEqualTo(20);
+  }
+}
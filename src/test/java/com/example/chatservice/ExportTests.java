@@ -0,0 +1,91 @@
+package com.example.chatservice;
+
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  @Autowired
+  ChatSessionRepository sessionRepo;
+
+  @Autowired
+  ChatMessageRepository messageRepo;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  private ChatSession seed(String userId, String title, int messages) {
+    var s = sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId(userId).title(title).favorite(false).build());
+    for (int i = 0; i < messages; i++) {
+      messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s).sender(ChatMessage.Sender.USER)
+          .content("line \"" + i + "\"\nwith newline").build());
+    }
+    return s;
+  }
+
+  @Test
+  void exportSession_streamsSessionThenMessages() throws Exception {
+    var s = seed("export-u1", "Exported", 3);
+
+    var body = mvc.perform(get("/api/v1/sessions/" + s.getId() + "/export").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+        .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+    var lines = body.split("\n");
+    assertThat(lines).hasSize(4);
+    var head = mapper.readTree(lines[0]);
+    assertThat(head.get("type").asText()).isEqualTo("session");
+    assertThat(head.get("title").asText()).isEqualTo("Exported");
+    var first = mapper.readTree(lines[1]);
+    assertThat(first.get("type").asText()).isEqualTo("message");
+    assertThat(first.get("sessionId").asText()).isEqualTo(s.getId().toString());
+    assertThat(first.get("content").asText()).isEqualTo("line \"0\"\nwith newline");
+  }
+
+  @Test
+  void exportUser_gzipped_includesEverySession() throws Exception {
+    seed("export-u2", "A", 2);
+    seed("export-u2", "B", 0);
+
+    var bytes = mvc.perform(get("/api/v1/sessions/export").param("userId", "export-u2").param("gzip", "true")
+            .header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    var body = new String(new GZIPInputStream(new ByteArrayInputStream(bytes)).readAllBytes(), StandardCharsets.UTF_8);
+    var lines = body.split("\n");
+    assertThat(lines).hasSize(4);
+    assertThat(body).contains("\"title\":\"A\"", "\"title\":\"B\"");
+  }
+
+  @Test
+  void exportSession_unknown_returns404() throws Exception {
+    mvc.perform(get("/api/v1/sessions/" + UUID.randomUUID() + "/export").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isNotFound());
+  }
+}
@@ -0,0 +1,142 @@
+package com.example.chatservice;
+
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImportTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  @Autowired
+  ChatSessionRepository sessionRepo;
+
+  @Autowired
+  ChatMessageRepository messageRepo;
+
+  private static String session(UUID id, String userId, String title) {
+    return "{\"type\":\"session\",\"id\":\"" + id + "\",\"userId\":\"" + userId + "\",\"title\":\"" + title
+        + "\",\"favorite\":true,\"createdAt\":\"2024-01-02T03:04:05.123456Z\"}\n";
+  }
+
+  private static String message(UUID id, UUID sessionId, String content) {
+    return "{\"type\":\"message\",\"id\":\"" + id + "\",\"sessionId\":\"" + sessionId
+        + "\",\"sender\":\"ASSISTANT\",\"content\":\"" + content + "\",\"createdAt\":\"2024-01-02T03:04:06Z\"}\n";
+  }
+
+  @Test
+  void import_loadsSessionsAndMessages() throws Exception {
+    UUID sid = UUID.randomUUID();
+    String body = session(sid, "import-u1", "Imported") + message(UUID.randomUUID(), sid, "a")
+        + message(UUID.randomUUID(), sid, "b \\\"quoted\\\", with comma");
+
+    mvc.perform(post("/api/v1/import").header("X-API-KEY", "dev-key")
+            .contentType("application/x-ndjson").content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions").value(1))
+        .andExpect(jsonPath("$.messages").value(2));
+
+    var s = sessionRepo.findById(sid).orElseThrow();
+    assertThat(s.isFavorite()).isTrue();
+    assertThat(s.getCreatedAt()).isEqualTo(Instant.parse("2024-01-02T03:04:05.123456Z"));
+    var history = messageRepo.findResponsesBySessionId(sid, PageRequest.of(0, 10)).getContent();
+    assertThat(history).extracting(m -> m.content()).containsExactlyInAnyOrder("a", "b \"quoted\", with comma");
+    assertThat(history.get(0).createdAt()).isEqualTo(Instant.parse("2024-01-02T03:04:06Z"));
+  }
+
+  @Test
+  void import_gzipped() throws Exception {
+    UUID sid = UUID.randomUUID();
+    var buf = new ByteArrayOutputStream();
+    try (var gz = new GZIPOutputStream(buf)) {
+      gz.write((session(sid, "import-u2", "Zipped") + message(UUID.randomUUID(), sid, "z")).getBytes(StandardCharsets.UTF_8));
+    }
+
+    mvc.perform(post("/api/v1/import").header("X-API-KEY", "dev-key").header("Content-Encoding", "gzip")
+            .contentType("application/x-ndjson").content(buf.toByteArray()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.messages").value(1));
+  }
+
+  @Test
+  void import_rejectsInvalidLineAndRollsBack() throws Exception {
+    UUID sid = UUID.randomUUID();
+    String body = session(sid, "import-u3", "Rolled back") + message(UUID.randomUUID(), UUID.randomUUID(), "orphan");
+
+    mvc.perform(post("/api/v1/import").header("X-API-KEY", "dev-key")
+            .contentType("application/x-ndjson").content(body))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.detail").value("line 2: unknown sessionId"))
+        .andExpect(jsonPath("$.committedLines").value(0));
+
+    assertThat(sessionRepo.existsById(sid)).isFalse();
+  }
+
+  @Test
+  void import_keepsCommittedChunksAndReportsWhereToResume() throws Exception {
+    UUID sid = UUID.randomUUID();
+    var body = new StringBuilder(session(sid, "import-u5", "Chunked"));
+    // the first chunk closes once it holds CHUNK_SIZE messages, on line CHUNK_SIZE + 1
+    for (int i = 0; i < 5_000; i++) body.append(message(UUID.randomUUID(), sid, "m" + i));
+    UUID lost = UUID.randomUUID();
+    body.append(session(lost, "import-u5", "Lost")).append("not json\n");
+
+    mvc.perform(post("/api/v1/import").header("X-API-KEY", "dev-key")
+            .contentType("application/x-ndjson").content(body.toString()))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.detail").value("line 5003: malformed json"))
+        .andExpect(jsonPath("$.committedLines").value(5001));
+
+    assertThat(sessionRepo.existsById(sid)).isTrue();
+    assertThat(messageRepo.findResponsesBySessionId(sid, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(5_000);
+    assertThat(sessionRepo.existsById(lost)).isFalse();
+  }
+
+  @Test
+  void import_duplicateId_abortsWithTheCommittedLines() throws Exception {
+    UUID sid = UUID.randomUUID();
+    UUID mid = UUID.randomUUID();
+    String body = session(sid, "import-u6", "Twice") + message(mid, sid, "a");
+    mvc.perform(post("/api/v1/import").header("X-API-KEY", "dev-key")
+            .contentType("application/x-ndjson").content(body))
+        .andExpect(status().isOk());
+
+    mvc.perform(post("/api/v1/import").header("X-API-KEY", "dev-key")
+            .contentType("application/x-ndjson").content(body))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.detail").value("lines 1-2: duplicate id or unknown sessionId"))
+        .andExpect(jsonPath("$.committedLines").value(0));
+
+    assertThat(messageRepo.findResponsesBySessionId(sid, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+  }
+
+  @Test
+  void import_reportsTheLineThatFailedToParse() throws Exception {
+    UUID sid = UUID.randomUUID();
+    for (String broken : new String[] {"{\"type\":\"message\",\"sender\":\"NOPE\"}\n", "not json\n"}) {
+      mvc.perform(post("/api/v1/import").header("X-API-KEY", "dev-key")
+              .contentType("application/x-ndjson").content(session(sid, "import-u4", "Broken") + broken))
+          .andExpect(status().isBadRequest())
+          .andExpect(jsonPath("$.detail").value("line 2: malformed json"));
+    }
+  }
+}
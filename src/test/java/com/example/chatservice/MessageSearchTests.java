@@ -0,0 +1,57 @@
+package com.example.chatservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MessageSearchTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  private void append(String sessionId, String content) throws Exception {
+    mvc.perform(post("/api/v1/sessions/" + sessionId + "/messages").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"sender\":\"USER\",\"content\":\"" + content + "\"}"))
+        .andExpect(status().isCreated());
+  }
+
+  @Test
+  void search_findsAppendedMessagesForThatUserOnly() throws Exception {
+    var sid = TestSessions.create(mvc, "search-u1", "s");
+    append(sid, "How do I rotate the kafka consumer offsets?");
+    append(sid, "Unrelated question about lunch");
+    append(TestSessions.create(mvc, "search-u2", "s"), "kafka offsets for someone else");
+
+    mvc.perform(get("/api/v1/search/messages").param("userId", "search-u1").param("q", "Kafka offsets")
+            .header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].sessionId").value(sid))
+        .andExpect(jsonPath("$[0].snippet").value("How do I rotate the kafka consumer offsets?"));
+
+    mvc.perform(delete("/api/v1/sessions/" + sid).header("X-API-KEY", "dev-key"))
+        .andExpect(status().isNoContent());
+    mvc.perform(get("/api/v1/search/messages").param("userId", "search-u1").param("q", "kafka")
+            .header("X-API-KEY", "dev-key"))
+        .andExpect(jsonPath("$", hasSize(0)));
+  }
+
+  @Test
+  void search_blankQuery_returns400() throws Exception {
+    mvc.perform(get("/api/v1/search/messages").param("userId", "search-u1").param("q", " ")
+            .header("X-API-KEY", "dev-key"))
+        .andExpect(status().isBadRequest());
+  }
+}
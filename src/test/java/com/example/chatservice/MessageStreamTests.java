@@ -0,0 +1,110 @@
+package com.example.chatservice;
+
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.service.MessageCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MessageStreamTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  @Autowired
+  ChatSessionRepository sessionRepo;
+
+  @Autowired
+  ChatMessageRepository messageRepo;
+
+  private ChatSession session() {
+    return sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("stream-u").title("Live").favorite(false).build());
+  }
+
+  private static String body(MockHttpServletResponse response) throws Exception {
+    return response.getContentAsString(StandardCharsets.UTF_8);
+  }
+
+  private static void awaitContains(MockHttpServletResponse response, String text) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!body(response).contains(text)) {
+      if (System.nanoTime() > deadline) throw new AssertionError("stream never contained " + text + ": " + body(response));
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  void stream_deliversMessagesAppendedAfterSubscribing() throws Exception {
+    var s = session();
+    var stream = mvc.perform(get("/api/v1/sessions/" + s.getId() + "/messages/stream").header("X-API-KEY", "dev-key"))
+        .andExpect(request().asyncStarted())
+        .andReturn().getResponse();
+
+    mvc.perform(post("/api/v1/sessions/" + s.getId() + "/messages").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"sender\":\"USER\",\"content\":\"live hello\"}"))
+        .andExpect(status().isCreated());
+
+    awaitContains(stream, "live hello");
+    assertThat(body(stream)).contains("event:message", "id:");
+  }
+
+  @Test
+  void stream_withLastEventId_replaysOnlyMissedMessages() throws Exception {
+    var s = session();
+    var seen = messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s).sender(ChatMessage.Sender.USER).content("seen").build());
+    Thread.sleep(2);
+    messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s).sender(ChatMessage.Sender.ASSISTANT).content("missed").build());
+    var lastEventId = new MessageCursor(MessageCursor.Direction.FORWARD, seen.getCreatedAt(), seen.getId()).encode();
+
+    var stream = mvc.perform(get("/api/v1/sessions/" + s.getId() + "/messages/stream").header("X-API-KEY", "dev-key")
+            .header("Last-Event-ID", lastEventId))
+        .andExpect(request().asyncStarted())
+        .andReturn().getResponse();
+
+    awaitContains(stream, "missed");
+    assertThat(body(stream)).doesNotContain("\"content\":\"seen\"");
+  }
+
+  @Test
+  void stream_withLastEventId_alsoReplaysMessagesJustBeforeIt() throws Exception {
+    var s = session();
+    // stands in for an append that committed after a newer message had already been streamed
+    messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s).sender(ChatMessage.Sender.USER).content("late").build());
+    Thread.sleep(2);
+    var last = messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s).sender(ChatMessage.Sender.ASSISTANT).content("last").build());
+    var lastEventId = new MessageCursor(MessageCursor.Direction.FORWARD, last.getCreatedAt(), last.getId()).encode();
+
+    var stream = mvc.perform(get("/api/v1/sessions/" + s.getId() + "/messages/stream").header("X-API-KEY", "dev-key")
+            .header("Last-Event-ID", lastEventId))
+        .andExpect(request().asyncStarted())
+        .andReturn().getResponse();
+
+    awaitContains(stream, "late");
+    assertThat(body(stream)).doesNotContain("\"content\":\"last\"");
+  }
+
+  @Test
+  void stream_unknownSession_returns404() throws Exception {
+    mvc.perform(get("/api/v1/sessions/" + UUID.randomUUID() + "/messages/stream").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isNotFound());
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.chatservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// tests disable metric exporters by default; this class checks the Prometheus one
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  @Autowired
+  MeterRegistry meters;
+
+  @Test
+  void metricsEndpoint_requiresApiKey() throws Exception {
+    mvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+    mvc.perform(get("/actuator/metrics").header("X-API-KEY", "nope")).andExpect(status().isUnauthorized());
+    mvc.perform(get("/actuator/metrics").header("X-API-KEY", "dev-key")).andExpect(status().isOk());
+    mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+  }
+
+  @Test
+  void prometheusEndpoint_isAvailableInTheDefaultBuild() throws Exception {
+    mvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+    var body = mvc.perform(get("/actuator/prometheus").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertThat(body).contains("# TYPE jvm_memory_used_bytes gauge");
+  }
+
+  @Test
+  void hotPaths_areInstrumented() throws Exception {
+    mvc.perform(get("/api/v1/sessions").param("userId", "metrics-u1").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk());
+    mvc.perform(get("/api/v1/sessions/" + UUID.randomUUID() + "/messages").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isNotFound());
+
+    assertThat(meters.get("chat.ratelimit.requests").tags("tier", "standard", "outcome", "allowed").counter().count())
+        .isPositive();
+    assertThat(meters.get("spring.data.repository.invocations").tag("repository", "ChatSessionRepository").timers())
+        .isNotEmpty();
+    assertThat(meters.get("chat.push.subscribers").gauge()).isNotNull();
+    assertThat(meters.get("chat.export.active").gauge().value()).isZero();
+    assertThat(meters.get("hikaricp.connections.pending").gauge()).isNotNull();
+
+    mvc.perform(get("/actuator/metrics/http.server.requests").param("tag", "uri:/api/v1/sessions")
+            .header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.measurements[0].value").value(org.hamcrest.Matchers.greaterThanOrEqualTo(1.0)));
+  }
+}
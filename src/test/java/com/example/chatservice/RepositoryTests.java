@@ -1,11 +1,17 @@
 package com.example.chatservice;
 
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.domain.ChatMessage;
 import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatMessageRepository;
 import com.example.chatservice.repo.ChatSessionRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -16,6 +22,9 @@ class RepositoryTests {
   @Autowired
   ChatSessionRepository sessionRepo;
 
+  @Autowired
+  ChatMessageRepository messageRepo;
+
   @Test
   void createSession() {
     var s = ChatSession.builder()
@@ -27,4 +36,61 @@ class RepositoryTests {
     sessionRepo.save(s);
     assertThat(sessionRepo.findById(s.getId())).isPresent();
   }
+
+  @Test
+  void keysetQueries_seekOnCreatedAtAndId() {
+    var s = sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("u1").title("T").favorite(false).build());
+    for (int i = 0; i < 5; i++) {
+      messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s)
+          .sender(ChatMessage.Sender.USER).content("m" + i).build());
+    }
+    messageRepo.flush();
+
+    var head = messageRepo.findHead(s.getId(), Limit.of(2));
+    assertThat(head).hasSize(2);
+    var last = head.get(1);
+    var after = messageRepo.findAfter(s.getId(), last.getCreatedAt(), last.getId(), Limit.of(10));
+    assertThat(after).hasSize(3).doesNotContainAnyElementsOf(head);
+
+    var tail = messageRepo.findTail(s.getId(), Limit.of(1)).get(0);
+    var before = messageRepo.findBefore(s.getId(), tail.getCreatedAt(), tail.getId(), Limit.of(10));
+    assertThat(before).hasSize(4).doesNotContain(tail);
+    assertThat(messageRepo.findHead(s.getId(), Limit.of(10))).last().isEqualTo(tail);
+  }
+
+  @Test
+  void readProjections_mapStraightToResponses() {
+    var s = sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("u2").title("Proj").favorite(true).build());
+    messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s)
+        .sender(ChatMessage.Sender.ASSISTANT).content("hi").contextJson("{}").build());
+    messageRepo.flush();
+
+    var messages = messageRepo.findResponsesBySessionId(s.getId(), PageRequest.of(0, 10));
+    assertThat(messages.getTotalElements()).isEqualTo(1);
+    var m = messages.getContent().get(0);
+    assertThat(m.sessionId()).isEqualTo(s.getId());
+    assertThat(m.content()).isEqualTo("hi");
+    assertThat(m.createdAt()).isNotNull();
+
+    var sessions = sessionRepo.findByUserIdAndFavorite("u2", true, PageRequest.of(0, 10), SessionDtos.SessionResponse.class);
+    assertThat(sessions.getContent()).singleElement()
+        .satisfies(r -> assertThat(r.title()).isEqualTo("Proj"));
+  }
+
+  @Test
+  void titleSearch_matchesNormalizedTitleAndOptionalFavorite() {
+    sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("u3").title("  Trip to Rome").favorite(true).build());
+    sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("u3").title("Rome 100% guide").favorite(false).build());
+    sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("u4").title("Rome").favorite(true).build());
+    sessionRepo.flush();
+    var page = PageRequest.of(0, 10);
+
+    assertThat(sessionRepo.searchByTitle("u3", "%rome%", null, page).getContent())
+        .extracting(SessionDtos.SessionResponse::title).containsExactlyInAnyOrder("  Trip to Rome", "Rome 100% guide");
+    assertThat(sessionRepo.searchByTitle("u3", "%rome%", true, page).getContent())
+        .extracting(SessionDtos.SessionResponse::title).containsExactly("  Trip to Rome");
+    assertThat(sessionRepo.searchSliceByTitle("u3", "trip%", null, page).getContent()).hasSize(1);
+    assertThat(sessionRepo.searchSliceByTitle("u3", "%100\\%%", null, page).getContent()).hasSize(1);
+    assertThat(sessionRepo.searchSliceByTitle("u3", "%10\\%%", null, page).getContent()).isEmpty();
+  }
 }
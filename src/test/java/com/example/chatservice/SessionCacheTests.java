@@ -0,0 +1,59 @@
+package com.example.chatservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// same properties as TimingTests, so both share one application context
+@SpringBootTest(properties = {
+    "app.timing.server-timing-header=true",
+    "app.timing.slow-threshold-ms=1"
+})
+@AutoConfigureMockMvc
+class SessionCacheTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  private String append(String sid) throws Exception {
+    return mvc.perform(post("/api/v1/sessions/" + sid + "/messages").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"sender\":\"USER\",\"content\":\"hi\"}"))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.sessionId").value(sid))
+        .andReturn().getResponse().getHeader("Server-Timing");
+  }
+
+  @Test
+  void warmAppend_issuesOnlyTheInsert() throws Exception {
+    String sid = TestSessions.create(mvc, "meta-u1", "Meta");
+    append(sid);
+    assertThat(append(sid)).contains("desc=\"1 statement\"");
+    // history ETags must not cost appends a write of their own
+    mvc.perform(get("/api/v1/sessions/" + sid + "/messages").header("X-API-KEY", "dev-key")
+            .param("cursor", "").param("from", "BACKWARD"))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"));
+    assertThat(append(sid)).contains("desc=\"1 statement\"");
+
+    mvc.perform(patch("/api/v1/sessions/" + sid + "/rename").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Renamed\"}"))
+        .andExpect(status().isOk());
+    mvc.perform(delete("/api/v1/sessions/" + sid).header("X-API-KEY", "dev-key"))
+        .andExpect(status().is2xxSuccessful());
+    mvc.perform(post("/api/v1/sessions/" + sid + "/messages").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"sender\":\"USER\",\"content\":\"late\"}"))
+        .andExpect(status().isNotFound());
+  }
+}
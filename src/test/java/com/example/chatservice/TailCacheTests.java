@@ -0,0 +1,65 @@
+package com.example.chatservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TailCacheTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  @Autowired
+  MeterRegistry meters;
+
+  private void append(String sid, String content) throws Exception {
+    mvc.perform(post("/api/v1/sessions/" + sid + "/messages").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"sender\":\"USER\",\"content\":\"" + content + "\"}"))
+        .andExpect(status().isCreated());
+  }
+
+  private double hits() {
+    return meters.get("chat.cache.tail.requests").tag("result", "hit").counter().count();
+  }
+
+  @Test
+  void latestPage_servedFromTailAndKeptCurrentByAppends() throws Exception {
+    String sid = TestSessions.create(mvc, "tail-u1", "Tail");
+    append(sid, "one");
+    mvc.perform(get("/api/v1/sessions/" + sid + "/messages").param("cursor", "").param("from", "BACKWARD")
+            .header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[0].content").value("one"));
+
+    append(sid, "two");
+    double before = hits();
+    mvc.perform(get("/api/v1/sessions/" + sid + "/messages").param("cursor", "").param("from", "BACKWARD")
+            .param("size", "1").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items.length()").value(1))
+        .andExpect(jsonPath("$.items[0].content").value("two"))
+        .andExpect(jsonPath("$.prevCursor").isNotEmpty());
+    assertThat(hits()).isEqualTo(before + 1);
+    // "two" was serialized for the append response, so the page reuses its bytes
+    assertThat(meters.get("chat.cache.json.requests").tag("result", "hit").counter().count()).isPositive();
+
+    mvc.perform(delete("/api/v1/sessions/" + sid).header("X-API-KEY", "dev-key"))
+        .andExpect(status().is2xxSuccessful());
+    mvc.perform(get("/api/v1/sessions/" + sid + "/messages").param("cursor", "").param("from", "BACKWARD")
+            .header("X-API-KEY", "dev-key"))
+        .andExpect(status().isNotFound());
+  }
+}
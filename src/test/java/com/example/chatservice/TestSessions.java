@@ -0,0 +1,29 @@
+package com.example.chatservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Session setup shared by the MockMvc integration tests. */
+final class TestSessions {
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  private TestSessions() {
+  }
+
+  /** Creates a session through the API and returns its id. */
+  static String create(MockMvc mvc, String userId, String title) throws Exception {
+    var body = mvc.perform(post("/api/v1/sessions").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(JSON.writeValueAsString(Map.of("userId", userId, "title", title))))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    return JSON.readTree(body).get("id").asText();
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.chatservice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"app.timing.server-timing-header=true", "app.timing.slow-threshold-ms=1"})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class TimingTests {
+
+  @Autowired
+  MockMvc mvc;
+
+  @Test
+  void serverTiming_breaksDownTheRequest(CapturedOutput output) throws Exception {
+    var created = mvc.perform(post("/api/v1/sessions").header("X-API-KEY", "dev-key")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"userId\":\"timing-u1\",\"title\":\"Timed\"}"))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse();
+    assertThat(created.getHeader("Server-Timing")).contains("auth;dur=", "ratelimit;dur=", "tx;dur=", "ser;dur=", "app;dur=");
+
+    var listed = mvc.perform(get("/api/v1/sessions").param("userId", "timing-u1").header("X-API-KEY", "dev-key"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+    assertThat(listed.getHeader("Server-Timing")).containsPattern("sql;dur=[0-9.]+;desc=\"\\d+ statements?\"");
+
+    assertThat(output.getOut()).contains("\"message\":\"slow request GET /api/v1/sessions took ", "\"sampled\":true",
+        "\"sql_count\":");
+  }
+
+  @Test
+  void serverTiming_setOnResponsesWithoutJsonBody() throws Exception {
+    var res = mvc.perform(get("/api/v1/sessions/" + UUID.randomUUID() + "/export").header("X-API-KEY", "nope"))
+        .andExpect(status().isUnauthorized())
+        .andReturn().getResponse();
+    assertThat(res.getHeader("Server-Timing")).startsWith("auth;dur=");
+  }
+}
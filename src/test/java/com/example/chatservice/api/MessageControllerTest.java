@@ -1,9 +1,13 @@
 package com.example.chatservice.api;
 
+import com.example.chatservice.api.dto.MessageDtos.CreateMessageRequest;
+import com.example.chatservice.cache.ReadCoalescer;
+import com.example.chatservice.config.AppProperties;
 import com.example.chatservice.domain.ChatMessage;
 import com.example.chatservice.domain.ChatSession;
 import com.example.chatservice.service.ChatMessageService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -12,9 +16,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -32,7 +40,8 @@ class MessageControllerTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        mvc = MockMvcBuilders.standaloneSetup(new MessageController(messageService)).build();
+        mvc = MockMvcBuilders.standaloneSetup(new MessageController(messageService,
+            new ReadCoalescer(new AppProperties(), new SimpleMeterRegistry()), Optional.empty())).build();
     }
 
     @Test
@@ -43,12 +52,40 @@ class MessageControllerTest {
                 .content("hello").build();
         when(messageService.append(any(), any())).thenReturn(msg);
 
-        var req = new com.example.chatservice.api.dto.MessageDtos.CreateMessageRequest(ChatMessage.Sender.USER, "hello",
-                null);
+        var req = new CreateMessageRequest(ChatMessage.Sender.USER, "hello", null);
         mvc.perform(post("/api/v1/sessions/" + sid + "/messages").contentType(MediaType.APPLICATION_JSON)
                 .content(mapper.writeValueAsString(req)))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.sessionId").value(sid.toString()))
                 .andExpect(jsonPath("$.content").value("hello"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void appendBatch_returnsCreatedInOrder() throws Exception {
+        UUID sid = UUID.randomUUID();
+        var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
+        var m1 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER)
+                .content("question").build();
+        var m2 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.ASSISTANT)
+                .content("answer").build();
+        when(messageService.appendAll(eq(sid), anyList())).thenReturn(List.of(m1, m2));
+
+        var req = List.of(
+                new CreateMessageRequest(ChatMessage.Sender.USER, "question", null),
+                new CreateMessageRequest(ChatMessage.Sender.ASSISTANT, "answer", null));
+        mvc.perform(post("/api/v1/sessions/" + sid + "/messages:batch").contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].content").value("question"))
+                .andExpect(jsonPath("$[1].sender").value("ASSISTANT"));
+    }
+
+    @Test
+    void appendBatch_rejectsInvalidElement() throws Exception {
+        UUID sid = UUID.randomUUID();
+        var req = List.of(new CreateMessageRequest(ChatMessage.Sender.USER, "", null));
+        mvc.perform(post("/api/v1/sessions/" + sid + "/messages:batch").contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.chatservice.api;
 
+import com.example.chatservice.api.dto.SessionDtos.CreateSessionRequest;
+import com.example.chatservice.api.dto.SessionDtos.SessionResponse;
+import com.example.chatservice.cache.ContentVersions;
+import com.example.chatservice.cache.ReadCoalescer;
+import com.example.chatservice.config.AppProperties;
 import com.example.chatservice.domain.ChatSession;
 import com.example.chatservice.service.ChatSessionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -28,10 +42,14 @@ class SessionControllerTest {
     @Mock
     ChatSessionService sessionService;
 
+    @Mock
+    ContentVersions versions;
+
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        mvc = MockMvcBuilders.standaloneSetup(new SessionController(sessionService)).build();
+        mvc = MockMvcBuilders.standaloneSetup(new SessionController(sessionService,
+                new ReadCoalescer(new AppProperties(), new SimpleMeterRegistry()), versions)).build();
     }
 
     @Test
@@ -39,11 +57,39 @@ class SessionControllerTest {
         var s = ChatSession.builder().id(UUID.randomUUID()).userId("u").title("t").favorite(false).build();
         when(sessionService.create(any())).thenReturn(s);
 
-        var req = new com.example.chatservice.api.dto.SessionDtos.CreateSessionRequest("u", "t");
+        var req = new CreateSessionRequest("u", "t");
         mvc.perform(post("/api/v1/sessions").contentType(MediaType.APPLICATION_JSON)
                 .content(mapper.writeValueAsString(req)))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.userId").value("u"))
                 .andExpect(jsonPath("$.title").value("t"));
     }
+
+    @Test
+    void list_withoutCount_returnsSlice() throws Exception {
+        var s = new SessionResponse(UUID.randomUUID(), "u", "t", false, null, null);
+        when(sessionService.listSlice(eq("u"), any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(s), PageRequest.of(0, 1), true));
+
+        mvc.perform(get("/api/v1/sessions").param("userId", "u").param("count", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.items[0].title").value("t"));
+    }
+
+    @Test
+    void list_withCurrentEtag_isNotModifiedWithoutQuerying() throws Exception {
+        when(versions.sessionListTag("u")).thenReturn("W/\"s1\"");
+        when(sessionService.listSlice(eq("u"), any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 1), false));
+        String etag = mvc.perform(get("/api/v1/sessions").param("userId", "u").param("count", "false"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/api/v1/sessions").param("userId", "u").param("count", "false").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verify(sessionService, times(1)).listSlice(eq("u"), any(), any(), any(), anyInt(), anyInt());
+    }
 }
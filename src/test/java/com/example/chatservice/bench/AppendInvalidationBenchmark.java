@@ -0,0 +1,117 @@
+package com.example.chatservice.bench;
+
+import com.example.chatservice.ChatServiceApplication;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append throughput and latency with cross-instance cache invalidation off, announcing each append on its own
+ * ({@code messages-delay-ms=0}) and coalescing appends per session (the default delay). Each mode boots the full
+ * app on a random port with {@code bench.concurrency} closed-loop clients spread over {@code bench.sessions}
+ * sessions for {@code bench.seconds}.
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=AppendInvalidationBenchmark}. Only Postgres has the notifying bus;
+ * on the default in-memory H2 all three modes invalidate in-process, so point
+ * {@code -Dspring.datasource.url/username/password} at Postgres to compare them.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class AppendInvalidationBenchmark {
+
+  @Test
+  void busOffVsPerAppendVsCoalesced() throws Exception {
+    int concurrency = Integer.getInteger("bench.concurrency", 64);
+    int sessions = Integer.getInteger("bench.sessions", 50);
+    int seconds = Integer.getInteger("bench.seconds", 10);
+    run("bus-off", concurrency, sessions, seconds, "--app.cache.invalidation.enabled=false");
+    run("per-append", concurrency, sessions, seconds, "--app.cache.invalidation.messages-delay-ms=0");
+    run("coalesced", concurrency, sessions, seconds);
+  }
+
+  private void run(String mode, int concurrency, int sessions, int seconds, String... extraArgs) throws Exception {
+    List<String> args = new ArrayList<>(List.of(
+        "--server.port=0",
+        "--spring.datasource.url=" + System.getProperty("spring.datasource.url",
+            "jdbc:h2:mem:append-bench-" + mode + ";DB_CLOSE_DELAY=-1"),
+        "--app.api-keys=bench-key",
+        "--app.rate-limit.capacity=1000000000",
+        "--app.rate-limit.refill-per-minute=1000000000",
+        "--logging.level.root=WARN"));
+    args.addAll(List.of(extraArgs));
+    try (var app = new SpringApplicationBuilder(ChatServiceApplication.class).run(args.toArray(String[]::new))) {
+      var sessionRepo = app.getBean(ChatSessionRepository.class);
+      String port = app.getEnvironment().getProperty("local.server.port");
+      var requests = new ArrayList<HttpRequest>();
+      for (int i = 0; i < sessions; i++) {
+        var s = sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("bench-" + mode)
+            .title("append " + i).favorite(false).build());
+        requests.add(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/sessions/" + s.getId() + "/messages"))
+            .header("X-API-KEY", "bench-key")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"sender\":\"USER\",\"content\":\"append benchmark message\"}"))
+            .build());
+      }
+
+      try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+        var http = HttpClient.newBuilder().executor(clients).build();
+        // warm up JIT and pools before measuring
+        drive(http, requests, clients, concurrency, TimeUnit.SECONDS.toNanos(2), new ConcurrentLinkedQueue<>(), new AtomicLong());
+
+        var samples = new ConcurrentLinkedQueue<Long>();
+        var errors = new AtomicLong();
+        long elapsed = drive(http, requests, clients, concurrency, TimeUnit.SECONDS.toNanos(seconds), samples, errors);
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("append-%s concurrency=%d sessions=%d appends=%d errors=%d throughput=%.0f/s p50=%.2fms p99=%.2fms%n",
+            mode, concurrency, sessions, sorted.length, errors.get(), sorted.length / (elapsed / 1e9),
+            percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+      }
+    }
+  }
+
+  /** Closed loop: client {@code c} keeps appending to session {@code c % sessions}. */
+  private static long drive(HttpClient http, List<HttpRequest> requests, ExecutorService clients,
+                            int concurrency, long durationNanos, ConcurrentLinkedQueue<Long> samples, AtomicLong errors)
+      throws Exception {
+    long start = System.nanoTime();
+    long deadline = start + durationNanos;
+    var futures = new ArrayList<Future<?>>();
+    for (int c = 0; c < concurrency; c++) {
+      var request = requests.get(c % requests.size());
+      futures.add(clients.submit(() -> {
+        while (System.nanoTime() < deadline) {
+          long t0 = System.nanoTime();
+          try {
+            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 201) errors.incrementAndGet();
+          } catch (Exception ex) {
+            errors.incrementAndGet();
+          }
+          samples.add(System.nanoTime() - t0);
+        }
+        return null;
+      }));
+    }
+    for (var f : futures) f.get();
+    return System.nanoTime() - start;
+  }
+
+  private static long percentile(long[] sorted, double p) {
+    return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.chatservice.bench;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Allocation and time per history page: managed entities + mapping vs the DTO projection read path.
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=ReadPathBenchmark}. The persistence context is cleared after
+ * every call so each iteration looks like a fresh request.
+ */
+@DataJpaTest
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class ReadPathBenchmark {
+
+  private static final int PAGE = 50;
+
+  @Autowired
+  ChatSessionRepository sessionRepo;
+
+  @Autowired
+  ChatMessageRepository messageRepo;
+
+  @Autowired
+  EntityManager em;
+
+  @Test
+  void entityVsProjection() {
+    var s = sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("bench").title("bench").favorite(false).build());
+    for (int i = 0; i < PAGE; i++) {
+      messageRepo.save(ChatMessage.builder().id(UUID.randomUUID()).session(s).sender(ChatMessage.Sender.USER)
+          .content("message body " + i).contextJson("{\"i\":" + i + "}").build());
+    }
+    em.flush();
+    em.clear();
+    UUID sid = s.getId();
+    int iterations = Integer.getInteger("bench.iterations", 5_000);
+
+    measure("entity", iterations, () -> em.createQuery(
+            "select m from ChatMessage m where m.session.id = :sid order by m.createdAt asc, m.id asc", ChatMessage.class)
+        .setParameter("sid", sid).setMaxResults(PAGE).getResultList().stream()
+        .map(m -> new MessageDtos.MessageResponse(m.getId(), m.getSession().getId(), m.getSender(), m.getContent(),
+            m.getContextJson(), m.getCreatedAt()))
+        .toList());
+    measure("projection", iterations, () -> messageRepo.findResponseSliceBySessionId(sid, PageRequest.of(0, PAGE)).getContent());
+  }
+
+  private void measure(String name, int iterations, Supplier<List<MessageDtos.MessageResponse>> call) {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long tid = Thread.currentThread().getId();
+    for (int i = 0; i < iterations / 5; i++) {
+      call.get();
+      em.clear();
+    }
+    long bytes = threads.getThreadAllocatedBytes(tid);
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      if (call.get().size() != PAGE) throw new IllegalStateException("unexpected page size");
+      em.clear();
+    }
+    long nanos = System.nanoTime() - start;
+    bytes = threads.getThreadAllocatedBytes(tid) - bytes;
+    System.out.printf("read-path-%s page=%d avg=%.1fus alloc=%d bytes/op%n",
+        name, PAGE, nanos / 1e3 / iterations, bytes / iterations);
+  }
+}
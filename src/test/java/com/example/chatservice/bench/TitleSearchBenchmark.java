@@ -0,0 +1,89 @@
+package com.example.chatservice.bench;
+
+import com.example.chatservice.repo.ChatSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Title search cost as one user's session count grows: prefix (btree range on {@code title_norm}) vs contains
+ * (trigram GIN on Postgres, a scan of the user's rows elsewhere). Prefix time should stay flat across sizes.
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=TitleSearchBenchmark}. Runs on in-memory H2 unless
+ * {@code -Dspring.datasource.url/username/password} point at Postgres, where the pg_trgm migration applies.
+ * {@code -Dbench.sizes} takes a comma-separated list of session counts.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class TitleSearchBenchmark {
+
+  private static final String[] WORDS = {"rome", "kafka", "budget", "recipe", "postgres", "travel", "draft", "notes"};
+
+  @Autowired
+  ChatSessionRepository sessionRepo;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void prefixVsContains() {
+    int iterations = Integer.getInteger("bench.iterations", 200);
+    for (String size : System.getProperty("bench.sizes", "1000,10000,100000").split(",")) {
+      int sessions = Integer.parseInt(size.trim());
+      String userId = "bench-title-" + sessions;
+      seed(userId, sessions);
+      var page = PageRequest.of(0, 20);
+      measure("prefix", sessions, iterations, () -> sessionRepo.searchSliceByTitle(userId, "topic 777%", null, page).getContent());
+      measure("contains", sessions, iterations, () -> sessionRepo.searchSliceByTitle(userId, "%777 kafka%", null, page).getContent());
+      measure("contains+favorite", sessions, iterations,
+          () -> sessionRepo.searchSliceByTitle(userId, "%777 kafka%", true, page).getContent());
+    }
+  }
+
+  private void seed(String userId, int sessions) {
+    Timestamp now = Timestamp.from(Instant.now());
+    List<Object[]> batch = new ArrayList<>(1_000);
+    for (int i = 0; i < sessions; i++) {
+      String title = "Topic " + i + " " + WORDS[i % WORDS.length];
+      batch.add(new Object[] {UUID.randomUUID(), userId, title, title.toLowerCase(), i % 3 == 0, now, now});
+      if (batch.size() == 1_000 || i == sessions - 1) {
+        jdbc.batchUpdate("INSERT INTO chat_session (id, user_id, title, title_norm, favorite, created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+      }
+    }
+    // keep planner statistics current after the bulk load
+    jdbc.execute(isPostgres() ? "ANALYZE chat_session" : "ANALYZE TABLE chat_session");
+  }
+
+  private boolean isPostgres() {
+    return System.getProperty("spring.datasource.url", "").startsWith("jdbc:postgresql");
+  }
+
+  private void measure(String name, int sessions, int iterations, Supplier<List<?>> call) {
+    for (int i = 0; i < iterations / 5; i++) call.get();
+    long[] samples = new long[iterations];
+    int hits = 0;
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      hits = call.get().size();
+      samples[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(samples);
+    System.out.printf("title-search-%s sessions=%d hits=%d p50=%.1fus p99=%.1fus%n",
+        name, sessions, hits, samples[iterations / 2] / 1e3, samples[(int) (iterations * 0.99)] / 1e3);
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.chatservice.bench;
+
+import com.example.chatservice.domain.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Insert throughput and primary-key index size for random (v4) vs time-ordered (v7) UUID keys.
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=UuidInsertBenchmark}. Runs against in-memory H2 by default;
+ * point {@code -Dbench.jdbc.url/-Dbench.jdbc.user/-Dbench.jdbc.password} at Postgres to get index sizes
+ * (H2 does not report them). Use at least a few million rows ({@code -Dbench.rows}) to see the effect once
+ * the index no longer fits in shared buffers.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class UuidInsertBenchmark {
+
+  private static final int BATCH = 1_000;
+
+  @Test
+  void v4_vs_v7() {
+    var ds = new DriverManagerDataSource(
+        System.getProperty("bench.jdbc.url", "jdbc:h2:mem:uuidbench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"),
+        System.getProperty("bench.jdbc.user", "sa"),
+        System.getProperty("bench.jdbc.password", ""));
+    var jdbc = new JdbcTemplate(ds);
+    int rows = Integer.getInteger("bench.rows", 500_000);
+    boolean postgres = System.getProperty("bench.jdbc.url", "").startsWith("jdbc:postgresql");
+
+    run(jdbc, "v4", new JdkIdGenerator(), rows, postgres);
+    run(jdbc, "v7", new UuidV7Generator(), rows, postgres);
+  }
+
+  private void run(JdbcTemplate jdbc, String name, IdGenerator ids, int rows, boolean postgres) {
+    String table = "bench_uuid_" + name;
+    jdbc.execute("DROP TABLE IF EXISTS " + table);
+    jdbc.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, payload VARCHAR(64) NOT NULL)");
+    long start = System.nanoTime();
+    for (int done = 0; done < rows; done += BATCH) {
+      List<Object[]> batch = new ArrayList<>(BATCH);
+      for (int i = 0; i < BATCH; i++) batch.add(new Object[] {ids.generateId(), "row-" + (done + i)});
+      jdbc.batchUpdate("INSERT INTO " + table + " (id, payload) VALUES (?, ?)", batch);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    String indexSize = postgres
+        ? jdbc.queryForObject("SELECT pg_size_pretty(pg_relation_size('" + table + "_pkey'))", String.class)
+        : "n/a";
+    System.out.printf("uuid-%s rows=%d time=%.2fs throughput=%.0f rows/s pk_index=%s%n",
+        name, rows, seconds, rows / seconds, indexSize);
+    jdbc.execute("DROP TABLE " + table);
+  }
+}
@@ -0,0 +1,124 @@
+package com.example.chatservice.bench;
+
+import com.example.chatservice.ChatServiceApplication;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and latency of history reads with request handling on Tomcat's platform pool vs virtual threads.
+ * Each mode boots the full app on a random port with {@code bench.concurrency} closed-loop clients for
+ * {@code bench.seconds}; the platform run keeps {@code bench.tomcat-threads} workers so the thread cap is what
+ * differs. Both runs share the same connection pool size.
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=VirtualThreadLoadBenchmark}. In-memory H2 answers in microseconds,
+ * so the gap is small there; point {@code -Dspring.datasource.url/username/password} at Postgres to see the
+ * effect of real blocking I/O.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class VirtualThreadLoadBenchmark {
+
+  private static final int PAGE_MESSAGES = 50;
+
+  @Test
+  void platformVsVirtual() throws Exception {
+    int concurrency = Integer.getInteger("bench.concurrency", 400);
+    int seconds = Integer.getInteger("bench.seconds", 10);
+    int tomcatThreads = Integer.getInteger("bench.tomcat-threads", 50);
+    run("platform", concurrency, seconds, "--spring.threads.virtual.enabled=false",
+        "--server.tomcat.threads.max=" + tomcatThreads);
+    run("virtual", concurrency, seconds, "--spring.threads.virtual.enabled=true");
+  }
+
+  private void run(String mode, int concurrency, int seconds, String... extraArgs) throws Exception {
+    List<String> args = new ArrayList<>(List.of(
+        "--server.port=0",
+        "--spring.datasource.url=" + System.getProperty("spring.datasource.url",
+            "jdbc:h2:mem:vt-bench-" + mode + ";DB_CLOSE_DELAY=-1"),
+        "--app.api-keys=bench-key",
+        "--app.rate-limit.capacity=1000000000",
+        "--app.rate-limit.refill-per-minute=1000000000",
+        "--logging.level.root=WARN"));
+    args.addAll(List.of(extraArgs));
+    try (var app = new SpringApplicationBuilder(ChatServiceApplication.class).run(args.toArray(String[]::new))) {
+      UUID sid = seed(app.getBean(ChatSessionRepository.class), app.getBean(ChatMessageRepository.class), mode);
+      String port = app.getEnvironment().getProperty("local.server.port");
+      var uri = URI.create("http://localhost:" + port + "/api/v1/sessions/" + sid + "/messages?size=" + PAGE_MESSAGES);
+      var request = HttpRequest.newBuilder(uri).header("X-API-KEY", "bench-key").build();
+
+      try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+        var http = HttpClient.newBuilder().executor(clients).build();
+        // warm up JIT and pools before measuring
+        drive(http, request, clients, concurrency, TimeUnit.SECONDS.toNanos(2), new ConcurrentLinkedQueue<>(), new AtomicLong());
+
+        var samples = new ConcurrentLinkedQueue<Long>();
+        var errors = new AtomicLong();
+        long elapsed = drive(http, request, clients, concurrency, TimeUnit.SECONDS.toNanos(seconds), samples, errors);
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("load-%s concurrency=%d requests=%d errors=%d throughput=%.0f/s p50=%.2fms p99=%.2fms%n",
+            mode, concurrency, sorted.length, errors.get(), sorted.length / (elapsed / 1e9),
+            percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+      }
+    }
+  }
+
+  /** Closed loop: each client sends its next request as soon as the previous one completes. */
+  private static long drive(HttpClient http, HttpRequest request, ExecutorService clients,
+                            int concurrency, long durationNanos, ConcurrentLinkedQueue<Long> samples, AtomicLong errors)
+      throws Exception {
+    long start = System.nanoTime();
+    long deadline = start + durationNanos;
+    var futures = new ArrayList<Future<?>>();
+    for (int c = 0; c < concurrency; c++) {
+      futures.add(clients.submit(() -> {
+        while (System.nanoTime() < deadline) {
+          long t0 = System.nanoTime();
+          try {
+            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 200) errors.incrementAndGet();
+          } catch (Exception ex) {
+            errors.incrementAndGet();
+          }
+          samples.add(System.nanoTime() - t0);
+        }
+        return null;
+      }));
+    }
+    for (var f : futures) f.get();
+    return System.nanoTime() - start;
+  }
+
+  private static UUID seed(ChatSessionRepository sessionRepo, ChatMessageRepository messageRepo, String mode) {
+    var s = sessionRepo.save(ChatSession.builder().id(UUID.randomUUID()).userId("bench-" + mode).title("load")
+        .favorite(false).build());
+    var messages = new ArrayList<ChatMessage>();
+    for (int i = 0; i < PAGE_MESSAGES; i++) {
+      messages.add(ChatMessage.builder().id(UUID.randomUUID()).session(s).sender(ChatMessage.Sender.USER)
+          .content("message body " + i).build());
+    }
+    messageRepo.saveAll(messages);
+    return s.getId();
+  }
+
+  private static long percentile(long[] sorted, double p) {
+    return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+  }
+}
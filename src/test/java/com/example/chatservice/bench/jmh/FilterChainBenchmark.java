@@ -0,0 +1,70 @@
+package com.example.chatservice.bench.jmh;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.rate.LocalBucketStore;
+import com.example.chatservice.rate.RateLimitFilter;
+import com.example.chatservice.rate.RouteCosts;
+import com.example.chatservice.security.ApiKeyAuthFilter;
+import com.example.chatservice.security.ApiKeyRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServlet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/** API key authentication followed by rate limiting, as they run in front of every {@code /api/**} call. */
+@State(Scope.Benchmark)
+public class FilterChainBenchmark {
+
+  private ApiKeyAuthFilter auth;
+  private RateLimitFilter rateLimit;
+  private final HttpServlet endpoint = new HttpServlet() {
+    @Override
+    public void service(ServletRequest req, ServletResponse res) {
+    }
+  };
+
+  @Setup
+  public void setUp() {
+    var props = new AppProperties();
+    props.setApiKeys("bench:bench-key,other:other-key:premium");
+    props.getRateLimit().setCapacity(Integer.MAX_VALUE);
+    props.getRateLimit().setRefillPerMinute(Integer.MAX_VALUE);
+    auth = new ApiKeyAuthFilter(new ApiKeyRegistry(props));
+    rateLimit = new RateLimitFilter(new LocalBucketStore(props), new RouteCosts(props), new SimpleMeterRegistry());
+  }
+
+  private int call(String method, String path, String apiKey) throws Exception {
+    var req = new MockHttpServletRequest(method, path);
+    if (apiKey != null) req.addHeader("X-API-KEY", apiKey);
+    var res = new MockHttpServletResponse();
+    try {
+      new MockFilterChain(endpoint, auth, rateLimit).doFilter(req, res);
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+    return res.getStatus();
+  }
+
+  @Benchmark
+  public int validKey() throws Exception {
+    return call("GET", "/api/v1/sessions/0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5b/messages", "bench-key");
+  }
+
+  @Benchmark
+  public int validKeyCostedRoute() throws Exception {
+    return call("GET", "/api/v1/search/messages", "bench-key");
+  }
+
+  @Benchmark
+  public int invalidKey() throws Exception {
+    return call("GET", "/api/v1/sessions", "not-a-key");
+  }
+}
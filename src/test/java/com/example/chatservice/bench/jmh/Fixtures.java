@@ -0,0 +1,40 @@
+package com.example.chatservice.bench.jmh;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Deterministic, realistically sized rows shared by the benchmarks. */
+final class Fixtures {
+
+  static final String CONTENT = "Sure - here is a short summary of the trade-offs we discussed: the keyset cursor keeps "
+      + "page time flat as history grows, while offset paging degrades linearly. Let me know if you want the numbers.";
+  static final String CONTEXT_JSON = "{\"model\":\"m-1\",\"tokens\":512,\"tools\":[\"search\"]}";
+
+  private Fixtures() {
+  }
+
+  static ChatSession session(int i, Instant now) {
+    return ChatSession.builder().id(new UUID(0x0190_0000_0000_7000L + i, 0x8000_0000_0000_0000L + i))
+        .userId("user-" + (i % 10)).title("Trip planning notes " + i).favorite(i % 3 == 0)
+        .createdAt(now).updatedAt(now).build();
+  }
+
+  static ChatMessage message(ChatSession s, int i, Instant now) {
+    return ChatMessage.builder().id(new UUID(0x0191_0000_0000_7000L + i, 0x8000_0000_0000_0000L + i)).session(s)
+        .sender(i % 2 == 0 ? ChatMessage.Sender.USER : ChatMessage.Sender.ASSISTANT)
+        .content(CONTENT).contextJson(i % 2 == 0 ? null : CONTEXT_JSON).createdAt(now.plusMillis(i)).build();
+  }
+
+  static MessageDtos.MessageResponse messageResponse(int i, Instant now) {
+    return MessageDtos.MessageResponse.from(message(session(0, now), i, now));
+  }
+
+  static SessionDtos.SessionResponse sessionResponse(int i, Instant now) {
+    return SessionDtos.SessionResponse.from(session(i, now));
+  }
+}
@@ -0,0 +1,47 @@
+package com.example.chatservice.bench.jmh;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the JMH benchmarks in this package and writes their results as JSON, one entry per benchmark and
+ * parameter set with score, error and percentiles plus {@code gc.alloc.rate.norm} (bytes per operation), for
+ * comparing runs over time, e.g. with jmh.morethan.pages.dev or by diffing the {@code primaryMetric.score}s.
+ * <p>
+ * Opt-in: {@code mvn -Pjmh test -Dbench=true -Dtest=JmhBenchmarks}. Options: {@code -Djmh.include} (regex,
+ * default every {@code *Benchmark} here), {@code -Djmh.result} (default {@code target/jmh-result.json}),
+ * {@code -Djmh.forks} (1), {@code -Djmh.warmup} and {@code -Djmh.iterations} (seconds, 5 each).
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class JmhBenchmarks {
+
+  @Test
+  void run() throws Exception {
+    int warmup = Integer.getInteger("jmh.warmup", 5);
+    int iterations = Integer.getInteger("jmh.iterations", 5);
+    var options = new OptionsBuilder()
+        .include(System.getProperty("jmh.include", JmhBenchmarks.class.getPackageName() + "\\..*Benchmark"))
+        .mode(Mode.AverageTime)
+        .timeUnit(TimeUnit.MICROSECONDS)
+        .forks(Integer.getInteger("jmh.forks", 1))
+        .warmupIterations(warmup)
+        .warmupTime(TimeValue.seconds(1))
+        .measurementIterations(iterations)
+        .measurementTime(TimeValue.seconds(1))
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(System.getProperty("jmh.result", "target/jmh-result.json"))
+        .build();
+    assertThat(new Runner(options).run()).isNotEmpty();
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.chatservice.bench.jmh;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.api.dto.PageResponse;
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.api.dto.SliceResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Jackson serialization of the page envelopes the list and history endpoints return, to UTF-8 bytes. */
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+  @Param({"20", "50", "200"})
+  public int size;
+
+  private ObjectMapper mapper;
+  private PageResponse<MessageDtos.MessageResponse> history;
+  private SliceResponse<MessageDtos.MessageResponse> historySlice;
+  private PageResponse<SessionDtos.SessionResponse> sessions;
+
+  @Setup
+  public void setUp() {
+    // the same settings Spring Boot applies to the MVC converter's mapper
+    mapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    Instant now = Instant.now();
+    List<MessageDtos.MessageResponse> messages = new ArrayList<>(size);
+    List<SessionDtos.SessionResponse> sessionItems = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      messages.add(Fixtures.messageResponse(i, now));
+      sessionItems.add(Fixtures.sessionResponse(i, now));
+    }
+    history = new PageResponse<>(messages, 0, size, 10_000, 10_000 / size);
+    historySlice = new SliceResponse<>(messages, 0, size, true);
+    sessions = new PageResponse<>(sessionItems, 0, size, 10_000, 10_000 / size);
+  }
+
+  @Benchmark
+  public byte[] historyPage() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(history);
+  }
+
+  @Benchmark
+  public byte[] historySlice() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(historySlice);
+  }
+
+  @Benchmark
+  public byte[] sessionPage() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(sessions);
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.chatservice.bench.jmh;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Entity to response DTO mapping, as done by the controllers for single-entity responses and entity reads. */
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+  @Param({"20", "50"})
+  public int size;
+
+  private List<ChatMessage> messages;
+  private List<ChatSession> sessions;
+
+  @Setup
+  public void setUp() {
+    messages = new ArrayList<>(size);
+    sessions = new ArrayList<>(size);
+    Instant now = Instant.now();
+    for (int i = 0; i < size; i++) {
+      var s = Fixtures.session(i, now);
+      sessions.add(s);
+      messages.add(Fixtures.message(s, i, now));
+    }
+  }
+
+  @Benchmark
+  public List<MessageDtos.MessageResponse> messages() {
+    return messages.stream().map(MessageDtos.MessageResponse::from).toList();
+  }
+
+  @Benchmark
+  public List<SessionDtos.SessionResponse> sessions() {
+    return sessions.stream().map(SessionDtos.SessionResponse::from).toList();
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.chatservice.bench.jmh;
+
+import com.example.chatservice.ChatServiceApplication;
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.service.ChatMessageService;
+import com.example.chatservice.service.MessageCursor;
+import com.example.chatservice.service.MessageWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read queries against embedded H2 through the real Spring Data repositories and Hibernate, with the schema
+ * from the Flyway migrations. One user owns {@code SESSIONS} sessions; one session holds {@code MESSAGES}
+ * messages.
+ */
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+  private static final int SESSIONS = 2_000;
+  private static final int MESSAGES = 5_000;
+  private static final int PAGE = 50;
+
+  private ConfigurableApplicationContext app;
+  private ChatSessionRepository sessionRepo;
+  private ChatMessageRepository messageRepo;
+  private ChatMessageService messageService;
+  private UUID sessionId;
+  private MessageCursor middle;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    app = new SpringApplicationBuilder(ChatServiceApplication.class).run(
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:jmh-repo;DB_CLOSE_DELAY=-1",
+        "--logging.level.root=WARN");
+    sessionRepo = app.getBean(ChatSessionRepository.class);
+    messageRepo = app.getBean(ChatMessageRepository.class);
+    messageService = app.getBean(ChatMessageService.class);
+    seed(app.getBean(JdbcTemplate.class));
+    var window = messageService.scroll(sessionId, null, MessageCursor.Direction.FORWARD, MESSAGES / 2);
+    middle = window.next();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    app.close();
+  }
+
+  private void seed(JdbcTemplate jdbc) {
+    Timestamp now = Timestamp.from(Instant.now());
+    List<Object[]> sessions = new ArrayList<>(SESSIONS);
+    for (int i = 0; i < SESSIONS; i++) {
+      String title = "Trip planning notes " + i;
+      sessions.add(new Object[] {UUID.randomUUID(), "jmh-user", title, title.toLowerCase(), i % 3 == 0, now, now});
+    }
+    jdbc.batchUpdate("INSERT INTO chat_session (id, user_id, title, title_norm, favorite, created_at, updated_at)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?)", sessions);
+    sessionId = (UUID) sessions.get(0)[0];
+    List<Object[]> messages = new ArrayList<>(MESSAGES);
+    for (int i = 0; i < MESSAGES; i++) {
+      messages.add(new Object[] {UUID.randomUUID(), sessionId, i % 2 == 0 ? "USER" : "ASSISTANT", Fixtures.CONTENT,
+          null, Timestamp.from(now.toInstant().plusMillis(i))});
+    }
+    jdbc.batchUpdate("INSERT INTO chat_message (id, session_id, sender, content, context_json, created_at)"
+        + " VALUES (?, ?, ?, ?, ?, ?)", messages);
+  }
+
+  @Benchmark
+  public List<MessageDtos.MessageResponse> historyPageWithCount() {
+    return messageRepo.findResponsesBySessionId(sessionId, PageRequest.of(10, PAGE)).getContent();
+  }
+
+  @Benchmark
+  public Slice<MessageDtos.MessageResponse> historySlice() {
+    return messageRepo.findResponseSliceBySessionId(sessionId, PageRequest.of(10, PAGE));
+  }
+
+  @Benchmark
+  public MessageWindow historyKeyset() {
+    return messageService.scroll(sessionId, middle, MessageCursor.Direction.FORWARD, PAGE);
+  }
+
+  @Benchmark
+  public Slice<SessionDtos.SessionResponse> sessionTitlePrefix() {
+    return sessionRepo.searchSliceByTitle("jmh-user", "trip planning notes 1%", null, PageRequest.of(0, 20));
+  }
+
+  @Benchmark
+  public Slice<SessionDtos.SessionResponse> sessionListFavorites() {
+    return sessionRepo.findSliceByUserIdAndFavorite("jmh-user", true, PageRequest.of(0, 20),
+        SessionDtos.SessionResponse.class);
+  }
+}
@@ -0,0 +1,123 @@
+package com.example.chatservice.bench.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency histograms of one run. Latency is measured from each request's scheduled start, not
+ * from when it was actually sent, so a stalled server shows up in the tail instead of being hidden by the
+ * generator waiting for it (coordinated omission).
+ * <p>
+ * The JSON written by {@link #write} keeps the percentiles and the compressed histogram, so a later run can be
+ * compared against it with {@link #compare}.
+ */
+final class LatencyReport {
+
+  private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+  private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+  /** Percentiles in milliseconds; {@code histogram} is HdrHistogram's compressed encoding, base64. */
+  record OperationStats(long count, long errors, double meanMs, double p50Ms, double p90Ms, double p99Ms,
+                        double p999Ms, double maxMs, String histogram) {}
+
+  record Summary(String scenario, int targetRate, double achievedRate, int durationSeconds,
+                 Map<String, OperationStats> operations) {}
+
+  private final Map<LoadScenario.Operation, Histogram> histograms = new EnumMap<>(LoadScenario.Operation.class);
+  private final Map<LoadScenario.Operation, LongAdder> errors = new EnumMap<>(LoadScenario.Operation.class);
+
+  LatencyReport() {
+    for (var op : LoadScenario.Operation.values()) {
+      histograms.put(op, new ConcurrentHistogram(HIGHEST_NANOS, 3));
+      errors.put(op, new LongAdder());
+    }
+  }
+
+  void record(LoadScenario.Operation op, long latencyNanos, boolean ok) {
+    histograms.get(op).recordValue(Math.min(latencyNanos, HIGHEST_NANOS));
+    if (!ok) errors.get(op).increment();
+  }
+
+  Summary summarize(LoadScenario scenario, long elapsedNanos) {
+    Map<String, OperationStats> ops = new LinkedHashMap<>();
+    long total = 0;
+    for (var e : histograms.entrySet()) {
+      Histogram h = e.getValue();
+      if (h.getTotalCount() == 0) continue;
+      total += h.getTotalCount();
+      var buf = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+      int len = h.encodeIntoCompressedByteBuffer(buf);
+      ops.put(e.getKey().name().toLowerCase(), new OperationStats(h.getTotalCount(), errors.get(e.getKey()).sum(),
+          h.getMean() / 1e6, ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9), h.getMaxValue() / 1e6,
+          Base64.getEncoder().encodeToString(Arrays.copyOf(buf.array(), len))));
+    }
+    return new Summary(scenario.name(), scenario.rate(), total / (elapsedNanos / 1e9), scenario.durationSeconds(), ops);
+  }
+
+  private static double ms(Histogram h, double percentile) {
+    return h.getValueAtPercentile(percentile) / 1e6;
+  }
+
+  static void write(Summary summary, Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    JSON.writeValue(file.toFile(), summary);
+  }
+
+  static Summary read(Path file) throws IOException {
+    return JSON.readValue(file.toFile(), Summary.class);
+  }
+
+  static String table(Summary s) {
+    var sb = new StringBuilder(String.format("load-%s target=%d/s achieved=%.1f/s%n", s.scenario(), s.targetRate(),
+        s.achievedRate()));
+    sb.append(String.format("  %-8s %8s %7s %9s %9s %9s %9s %9s%n",
+        "op", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+    s.operations().forEach((op, o) -> sb.append(String.format("  %-8s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+        op, o.count(), o.errors(), o.p50Ms(), o.p90Ms(), o.p99Ms(), o.p999Ms(), o.maxMs())));
+    return sb.toString();
+  }
+
+  /**
+   * Lines describing how {@code current} moved against {@code baseline}, one per operation and tail percentile;
+   * entries where p99 or p999 got worse by more than {@code tolerance} (0.2 = 20%) start with {@code REGRESSION}.
+   */
+  static List<String> compare(Summary baseline, Summary current, double tolerance) {
+    List<String> lines = new ArrayList<>();
+    current.operations().forEach((op, now) -> {
+      var before = baseline.operations().get(op);
+      if (before == null) {
+        lines.add(op + ": not in baseline");
+        return;
+      }
+      lines.add(delta(op, "p50", before.p50Ms(), now.p50Ms(), Double.MAX_VALUE));
+      lines.add(delta(op, "p99", before.p99Ms(), now.p99Ms(), tolerance));
+      lines.add(delta(op, "p999", before.p999Ms(), now.p999Ms(), tolerance));
+      if (now.errors() > before.errors()) {
+        lines.add("REGRESSION " + op + " errors " + before.errors() + " -> " + now.errors());
+      }
+    });
+    return lines;
+  }
+
+  private static String delta(String op, String metric, double before, double now, double tolerance) {
+    double change = before == 0 ? 0 : (now - before) / before;
+    String line = String.format("%s %s %.2f ms -> %.2f ms (%+.1f%%)", op, metric, before, now, change * 100);
+    return change > tolerance ? "REGRESSION " + line : line;
+  }
+}
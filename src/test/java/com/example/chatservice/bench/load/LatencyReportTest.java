@@ -0,0 +1,57 @@
+package com.example.chatservice.bench.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class LatencyReportTest {
+
+  @TempDir
+  Path dir;
+
+  private static LoadScenario scenario() {
+    return new LoadScenario("t", 100, 0, 1, Map.of(LoadScenario.Operation.HISTORY, 1), 1, 1, 1);
+  }
+
+  @Test
+  void summary_roundTripsAndReportsPercentiles() throws Exception {
+    var report = new LatencyReport();
+    for (int i = 1; i <= 1000; i++) report.record(LoadScenario.Operation.HISTORY, TimeUnit.MICROSECONDS.toNanos(i * 10L), i != 1);
+    var summary = report.summarize(scenario(), TimeUnit.SECONDS.toNanos(10));
+
+    var history = summary.operations().get("history");
+    assertThat(history.count()).isEqualTo(1000);
+    assertThat(history.errors()).isEqualTo(1);
+    assertThat(history.p50Ms()).isCloseTo(5.0, offset(0.01));
+    assertThat(history.p999Ms()).isCloseTo(9.99, offset(0.01));
+    assertThat(summary.achievedRate()).isEqualTo(100.0);
+    assertThat(summary.operations()).doesNotContainKey("create");
+
+    var file = dir.resolve("t.json");
+    LatencyReport.write(summary, file);
+    assertThat(LatencyReport.read(file)).isEqualTo(summary);
+  }
+
+  @Test
+  void compare_flagsTailRegressionsBeyondTolerance() {
+    var fast = new LatencyReport();
+    var slow = new LatencyReport();
+    for (int i = 0; i < 1000; i++) {
+      fast.record(LoadScenario.Operation.HISTORY, TimeUnit.MILLISECONDS.toNanos(1), true);
+      slow.record(LoadScenario.Operation.HISTORY, TimeUnit.MILLISECONDS.toNanos(i < 980 ? 1 : 50), true);
+    }
+    long elapsed = TimeUnit.SECONDS.toNanos(10);
+    var lines = LatencyReport.compare(fast.summarize(scenario(), elapsed), slow.summarize(scenario(), elapsed), 0.2);
+
+    assertThat(lines).filteredOn(l -> l.startsWith("REGRESSION")).hasSize(2)
+        .allMatch(l -> l.contains("p99") || l.contains("p999"));
+    assertThat(LatencyReport.compare(fast.summarize(scenario(), elapsed), fast.summarize(scenario(), elapsed), 0.2))
+        .noneMatch(l -> l.startsWith("REGRESSION"));
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.chatservice.bench.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues a scenario's requests against a running instance at a constant rate. Every request runs on its own
+ * virtual thread, so slow responses never delay the next scheduled start.
+ */
+final class LoadGenerator {
+
+  private final HttpClient http;
+  private final String baseUrl;
+  private final String apiKey;
+  private final List<String> users;
+  private final List<UUID> sessions;
+
+  LoadGenerator(HttpClient http, String baseUrl, String apiKey, List<String> users, List<UUID> sessions) {
+    this.http = http;
+    this.baseUrl = baseUrl;
+    this.apiKey = apiKey;
+    this.users = users;
+    this.sessions = sessions;
+  }
+
+  /** Runs for {@code seconds} and returns the elapsed nanos; latencies go to {@code report}. */
+  long run(LoadScenario scenario, int seconds, LatencyReport report) {
+    long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, scenario.rate());
+    long duration = TimeUnit.SECONDS.toNanos(seconds);
+    int totalWeight = scenario.totalWeight();
+    long start = System.nanoTime();
+    try (var inFlight = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (long i = 0; ; i++) {
+        long intended = start + i * interval;
+        if (intended - start >= duration) break;
+        long wait = intended - System.nanoTime();
+        if (wait > 0) LockSupport.parkNanos(wait);
+        var op = scenario.pick(ThreadLocalRandom.current().nextInt(totalWeight));
+        inFlight.execute(() -> {
+          boolean ok;
+          try {
+            int status = http.send(request(op), HttpResponse.BodyHandlers.discarding()).statusCode();
+            ok = status >= 200 && status < 300;
+          } catch (Exception ex) {
+            ok = false;
+          }
+          report.record(op, System.nanoTime() - intended, ok);
+        });
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private HttpRequest request(LoadScenario.Operation op) {
+    var rnd = ThreadLocalRandom.current();
+    String user = users.get(rnd.nextInt(users.size()));
+    UUID session = sessions.get(rnd.nextInt(sessions.size()));
+    return switch (op) {
+      case CREATE -> post("/api/v1/sessions",
+          "{\"userId\":\"" + user + "\",\"title\":\"Load " + rnd.nextInt(1_000_000) + "\"}");
+      case APPEND -> post("/api/v1/sessions/" + session + "/messages",
+          "{\"sender\":\"USER\",\"content\":\"" + LoadTests.CONTENT + "\"}");
+      case HISTORY -> get("/api/v1/sessions/" + session + "/messages?size=50");
+      case LIST -> get("/api/v1/sessions?userId=" + user + "&count=false&size=20");
+    };
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("X-API-KEY", apiKey).GET().build();
+  }
+
+  private HttpRequest post(String path, String json) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("X-API-KEY", apiKey)
+        .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json)).build();
+  }
+}
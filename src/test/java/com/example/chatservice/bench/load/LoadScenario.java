@@ -0,0 +1,60 @@
+package com.example.chatservice.bench.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * An open-loop workload: requests start at a fixed {@code rate} regardless of how fast earlier ones complete,
+ * each picking an {@link Operation} by weight. Read from {@code load/<name>.properties} on the test classpath;
+ * every key can be overridden with a {@code -Dload.<key>} system property.
+ */
+record LoadScenario(String name, int rate, int warmupSeconds, int durationSeconds, Map<Operation, Integer> weights,
+                    int users, int sessionsPerUser, int messagesPerSession) {
+
+  enum Operation { CREATE, APPEND, HISTORY, LIST }
+
+  static LoadScenario load(String name) {
+    var props = new Properties();
+    try (var in = LoadScenario.class.getClassLoader().getResourceAsStream("load/" + name + ".properties")) {
+      if (in == null) throw new IllegalArgumentException("no scenario load/" + name + ".properties");
+      props.load(in);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    System.getProperties().stringPropertyNames().stream()
+        .filter(k -> k.startsWith("load.") && !k.equals("load.scenario"))
+        .forEach(k -> props.setProperty(k.substring("load.".length()), System.getProperty(k)));
+
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    for (Operation op : Operation.values()) {
+      weights.put(op, intValue(props, "weight." + op.name().toLowerCase(), 0));
+    }
+    if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+      throw new IllegalArgumentException("scenario " + name + " has no positive weight");
+    }
+    return new LoadScenario(name, intValue(props, "rate", 100), intValue(props, "warmup-seconds", 5),
+        intValue(props, "duration-seconds", 30), weights, intValue(props, "seed.users", 10),
+        intValue(props, "seed.sessions-per-user", 10), intValue(props, "seed.messages-per-session", 50));
+  }
+
+  /** Picks an operation for {@code roll} in {@code [0, totalWeight)}. */
+  Operation pick(int roll) {
+    for (var e : weights.entrySet()) {
+      roll -= e.getValue();
+      if (roll < 0) return e.getKey();
+    }
+    throw new IllegalStateException("roll out of range");
+  }
+
+  int totalWeight() {
+    return weights.values().stream().mapToInt(Integer::intValue).sum();
+  }
+
+  private static int intValue(Properties props, String key, int fallback) {
+    String v = props.getProperty(key);
+    return v == null || v.isBlank() ? fallback : Integer.parseInt(v.trim());
+  }
+}
@@ -0,0 +1,121 @@
+package com.example.chatservice.bench.load;
+
+import com.example.chatservice.ChatServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test: boots the application on a random port (security, rate limiting, MVC, JPA), seeds
+ * users, sessions and messages, then drives each scenario open-loop and writes
+ * {@code target/load/<scenario>.json} with p50/p90/p99/p999 per operation.
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=LoadTests}. Options:
+ * <ul>
+ *   <li>{@code -Dload.scenario=mixed,read-heavy} scenario files under {@code src/test/resources/load};
+ *   {@code -Dload.rate=500}, {@code -Dload.duration-seconds=60}, ... override their keys</li>
+ *   <li>{@code -Dload.baseline=dir} compares each scenario with {@code dir/<scenario>.json} from an earlier run;
+ *   {@code -Dload.tolerance=0.2} is the allowed p99/p999 growth, and {@code -Dload.fail-on-regression=true}
+ *   fails the run beyond it</li>
+ *   <li>{@code -Dspring.datasource.url/username/password} to run against Postgres instead of in-memory H2</li>
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class LoadTests {
+
+  static final String CONTENT = "Could you summarize the last three answers in two sentences and list the sources?";
+  private static final String API_KEY = "load-key";
+
+  @Test
+  void run() throws Exception {
+    String url = System.getProperty("spring.datasource.url", "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1");
+    try (var app = new SpringApplicationBuilder(ChatServiceApplication.class).run(
+        "--server.port=0",
+        "--spring.datasource.url=" + url,
+        "--app.api-keys=load:" + API_KEY,
+        "--app.rate-limit.capacity=1000000000",
+        "--app.rate-limit.refill-per-minute=1000000000",
+        "--logging.level.root=WARN");
+         var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      var http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build();
+      String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+      List<String> regressions = new ArrayList<>();
+
+      for (String name : System.getProperty("load.scenario", "mixed").split(",")) {
+        var scenario = LoadScenario.load(name.trim());
+        List<String> users = new ArrayList<>();
+        List<UUID> sessions = new ArrayList<>();
+        seed(app.getBean(JdbcTemplate.class), scenario, users, sessions);
+        var generator = new LoadGenerator(http, baseUrl, API_KEY, users, sessions);
+
+        generator.run(scenario, scenario.warmupSeconds(), new LatencyReport());
+        var report = new LatencyReport();
+        long elapsed = generator.run(scenario, scenario.durationSeconds(), report);
+        var summary = report.summarize(scenario, elapsed);
+        LatencyReport.write(summary, Path.of("target", "load", scenario.name() + ".json"));
+        System.out.print(LatencyReport.table(summary));
+        assertThat(summary.operations()).isNotEmpty();
+
+        String baselineDir = System.getProperty("load.baseline");
+        if (baselineDir != null) {
+          Path baseline = Path.of(baselineDir, scenario.name() + ".json");
+          if (Files.exists(baseline)) {
+            double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.2"));
+            for (String line : LatencyReport.compare(LatencyReport.read(baseline), summary, tolerance)) {
+              System.out.println("  " + line);
+              if (line.startsWith("REGRESSION")) regressions.add(scenario.name() + ": " + line);
+            }
+          } else {
+            System.out.println("  no baseline at " + baseline);
+          }
+        }
+      }
+      if (Boolean.getBoolean("load.fail-on-regression")) assertThat(regressions).isEmpty();
+    }
+  }
+
+  /** Bulk-inserts the scenario's dataset; each scenario gets its own users so runs do not overlap. */
+  private static void seed(JdbcTemplate jdbc, LoadScenario s, List<String> users, List<UUID> sessions) {
+    Timestamp now = Timestamp.from(Instant.now());
+    List<Object[]> sessionRows = new ArrayList<>();
+    List<Object[]> messageRows = new ArrayList<>();
+    for (int u = 0; u < s.users(); u++) {
+      String user = "load-" + s.name() + "-" + u;
+      users.add(user);
+      for (int i = 0; i < s.sessionsPerUser(); i++) {
+        UUID sid = UUID.randomUUID();
+        String title = "Session " + i + " of " + user;
+        sessionRows.add(new Object[] {sid, user, title, title.toLowerCase(), i % 5 == 0, now, now});
+        sessions.add(sid);
+        for (int m = 0; m < s.messagesPerSession(); m++) {
+          messageRows.add(new Object[] {UUID.randomUUID(), sid, m % 2 == 0 ? "USER" : "ASSISTANT", CONTENT, null,
+              Timestamp.from(now.toInstant().plusMillis(m))});
+        }
+        if (messageRows.size() >= 10_000) flush(jdbc, sessionRows, messageRows);
+      }
+    }
+    flush(jdbc, sessionRows, messageRows);
+  }
+
+  private static void flush(JdbcTemplate jdbc, List<Object[]> sessionRows, List<Object[]> messageRows) {
+    jdbc.batchUpdate("INSERT INTO chat_session (id, user_id, title, title_norm, favorite, created_at, updated_at)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?)", sessionRows);
+    jdbc.batchUpdate("INSERT INTO chat_message (id, session_id, sender, content, context_json, created_at)"
+        + " VALUES (?, ?, ?, ?, ?, ?)", messageRows);
+    sessionRows.clear();
+    messageRows.clear();
+  }
+}
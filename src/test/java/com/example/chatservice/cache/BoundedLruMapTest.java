@@ -0,0 +1,108 @@
+package com.example.chatservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedLruMapTest {
+
+  AtomicLong now = new AtomicLong();
+  AtomicInteger evictions = new AtomicInteger();
+
+  private BoundedLruMap<String, String> byLength(long maxWeight) {
+    return new BoundedLruMap<>(maxWeight, String::length, now::get, evictions::incrementAndGet);
+  }
+
+  @Test
+  void overTheCap_dropsLeastRecentlyUsedDownToNinetyPercent() {
+    var map = byLength(100);
+    for (int i = 0; i < 10; i++) {
+      now.incrementAndGet();
+      map.putIfAbsent("k" + i, "x".repeat(10));
+    }
+    now.incrementAndGet();
+    map.get("k0");
+
+    now.incrementAndGet();
+    map.putIfAbsent("k10", "x".repeat(10));
+
+    assertThat(map.weight()).isLessThanOrEqualTo(90);
+    assertThat(map.peek("k0")).isNotNull();
+    assertThat(map.peek("k10")).isNotNull();
+    assertThat(map.peek("k1")).isNull();
+    assertThat(map.peek("k2")).isNull();
+    assertThat(evictions).hasValue(2);
+  }
+
+  @Test
+  void peek_doesNotCountAsUse() {
+    var map = new BoundedLruMap<String, String>(2, now::get);
+    now.incrementAndGet();
+    map.putIfAbsent("old", "a");
+    now.incrementAndGet();
+    map.putIfAbsent("new", "b");
+    now.incrementAndGet();
+    map.peek("old");
+
+    now.incrementAndGet();
+    map.putIfAbsent("third", "c");
+
+    assertThat(map.peek("old")).isNull();
+    assertThat(map.size()).isEqualTo(2);
+  }
+
+  @Test
+  void compute_reweighsReplacements_andRemovesOnNull() {
+    var map = byLength(1_000);
+    map.compute("k", (k, v) -> "abc");
+    map.compute("k", (k, v) -> v + "defg");
+    assertThat(map.weight()).isEqualTo(7);
+
+    map.computeIfPresent("missing", (k, v) -> "never");
+    assertThat(map.peek("missing")).isNull();
+
+    map.compute("k", (k, v) -> null);
+    assertThat(map.size()).isZero();
+    assertThat(map.weight()).isZero();
+  }
+
+  @Test
+  void theEntryJustWritten_survivesTheTrimItCaused() {
+    // a coarse clock: every entry looks equally old
+    var map = new BoundedLruMap<String, String>(3, now::get);
+    for (int i = 0; i < 10; i++) {
+      map.computeIfAbsent("k" + i, k -> k);
+      assertThat(map.peek("k" + i)).isNotNull();
+    }
+    assertThat(map.size()).isLessThanOrEqualTo(3);
+  }
+
+  @Test
+  void removeIdle_keepsOnlyRecentlyUsed() {
+    var map = byLength(1_000);
+    map.putIfAbsent("idle", "a");
+    map.putIfAbsent("busy", "bb");
+    now.addAndGet(100);
+    map.get("busy");
+    now.addAndGet(50);
+
+    map.removeIdle(60);
+
+    assertThat(map.peek("idle")).isNull();
+    assertThat(map.peek("busy")).isEqualTo("bb");
+    assertThat(map.weight()).isEqualTo(2);
+  }
+
+  @Test
+  void clear_resetsTheWeight() {
+    var map = byLength(1_000);
+    map.putIfAbsent("a", "xyz");
+    map.putIfAbsent("b", "xy");
+    map.clear();
+    assertThat(map.size()).isZero();
+    assertThat(map.weight()).isZero();
+  }
+}
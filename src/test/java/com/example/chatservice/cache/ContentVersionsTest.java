@@ -0,0 +1,65 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.repo.SessionListVersionRepository;
+import com.example.chatservice.service.SessionChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentVersionsTest {
+
+  SessionListVersionRepository listVersions = mock(SessionListVersionRepository.class);
+  AtomicLong now = new AtomicLong();
+
+  /** A fresh instance, as another replica or this one after a restart would be. */
+  private ContentVersions instance() {
+    return new ContentVersions(new AppProperties(), listVersions, now::get);
+  }
+
+  @Test
+  void tags_dependOnlyOnPersistedVersions_soEveryInstanceAgrees() {
+    when(listVersions.find("u")).thenReturn(3L);
+
+    assertThat(instance().sessionListTag("u")).isEqualTo(instance().sessionListTag("u"));
+    UUID newest = UUID.randomUUID();
+    assertThat(ContentVersions.historyTag(7, newest)).isEqualTo(ContentVersions.historyTag(7, newest))
+        .isNotEqualTo(ContentVersions.historyTag(8, newest))
+        .isNotEqualTo(ContentVersions.historyTag(7, UUID.randomUUID()));
+  }
+
+  @Test
+  void listVersion_isCachedUntilOneOfTheUsersSessionsChanges() {
+    var versions = instance();
+    when(listVersions.find("u")).thenReturn(1L);
+    String before = versions.sessionListTag("u");
+    // committed elsewhere; this instance has not been told yet
+    when(listVersions.find("u")).thenReturn(2L);
+    assertThat(versions.sessionListTag("u")).isEqualTo(before);
+
+    versions.onChanged(new SessionChangedEvent(UUID.randomUUID(), "u"));
+
+    assertThat(versions.sessionListTag("u")).isNotEqualTo(before).isEqualTo(instance().sessionListTag("u"));
+    verify(listVersions, times(3)).find("u");
+  }
+
+  @Test
+  void cachedListVersion_expiresAfterTtl() {
+    var versions = instance();
+    when(listVersions.find("u")).thenReturn(1L);
+    String before = versions.sessionListTag("u");
+    when(listVersions.find("u")).thenReturn(2L);
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+    assertThat(versions.sessionListTag("u")).isNotEqualTo(before);
+  }
+}
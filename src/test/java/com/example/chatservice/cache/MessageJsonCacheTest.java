@@ -0,0 +1,130 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.api.dto.CursorResponse;
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageJsonCacheTest {
+
+  SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+  private MessageJsonCache cache(long maxBytes) {
+    var props = new AppProperties();
+    props.getCache().getMessageJson().setMaxBytes(maxBytes);
+    return new MessageJsonCache(props, meters);
+  }
+
+  private static ObjectMapper mapper() {
+    return new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+  }
+
+  private static MessageDtos.MessageResponse msg(String content) {
+    return msg(UUID.randomUUID(), UUID.randomUUID(), content);
+  }
+
+  private static MessageDtos.MessageResponse msg(UUID id, UUID sessionId, String content) {
+    return new MessageDtos.MessageResponse(id, sessionId, ChatMessage.Sender.USER, content, "{\"k\":1}",
+        Instant.parse("2024-01-01T00:00:00.123456Z"));
+  }
+
+  private double requests(String result) {
+    return meters.get("chat.cache.json.requests").tag("result", result).counter().count();
+  }
+
+  @Test
+  void cachedOutput_matchesPlainJackson_andIsReused() throws Exception {
+    var cache = cache(1 << 20);
+    var cached = mapper().registerModule(cache.module());
+    var page = new CursorResponse<>(List.of(msg("héllo \"quoted\" ✓"), msg("line\nbreak")), 2, "n", null);
+
+    byte[] expected = mapper().writeValueAsBytes(page);
+    assertThat(cached.writeValueAsBytes(page)).isEqualTo(expected);
+    assertThat(cached.writeValueAsBytes(page)).isEqualTo(expected);
+    assertThat(cached.writeValueAsString(page)).isEqualTo(mapper().writeValueAsString(page));
+
+    assertThat(requests("miss")).isEqualTo(2);
+    assertThat(requests("hit")).isEqualTo(4);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  void valueConversion_bypassesTheCache() {
+    var cache = cache(1 << 20);
+    var cached = mapper().registerModule(cache.module());
+
+    Map<?, ?> converted = cached.convertValue(msg("x"), Map.class);
+
+    assertThat(converted.get("content")).isEqualTo("x");
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void unassignedCreatedAt_isNotCached() throws Exception {
+    var cache = cache(1 << 20);
+    var cached = mapper().registerModule(cache.module());
+    var pending = new MessageDtos.MessageResponse(UUID.randomUUID(), UUID.randomUUID(), ChatMessage.Sender.USER,
+        "x", null, null);
+
+    cached.writeValueAsBytes(pending);
+
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void memoryCap_dropsLeastRecentlyUsed() throws Exception {
+    var cache = cache(2_000);
+    var cached = mapper().registerModule(cache.module());
+    for (int i = 0; i < 50; i++) cached.writeValueAsBytes(msg("message " + i));
+
+    assertThat(cache.bytes()).isLessThanOrEqualTo(2_000);
+    assertThat(cache.size()).isBetween(1, 49);
+    assertThat(meters.get("chat.cache.json.evictions").counter().count()).isPositive();
+  }
+
+  @Test
+  void deletingASession_dropsOnlyItsMessages() throws Exception {
+    var cache = cache(1 << 20);
+    var cached = mapper().registerModule(cache.module());
+    UUID sid = UUID.randomUUID();
+    UUID id = UUID.randomUUID();
+    cached.writeValueAsBytes(msg(id, sid, "before"));
+    cached.writeValueAsBytes(msg("other session"));
+
+    cache.onDeleted(new SessionDeletedEvent(sid, "u"));
+    // the same id, imported again with other content
+    var reimported = msg(id, sid, "after");
+
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cached.writeValueAsBytes(reimported)).isEqualTo(mapper().writeValueAsBytes(reimported));
+  }
+
+  @Test
+  void import_dropsEverything() throws Exception {
+    var cache = cache(1 << 20);
+    var cached = mapper().registerModule(cache.module());
+    UUID id = UUID.randomUUID();
+    UUID sid = UUID.randomUUID();
+    cached.writeValueAsBytes(msg(id, sid, "before"));
+    cached.writeValueAsBytes(msg("other session"));
+
+    cache.onImported(new MessagesImportedEvent(1, 1));
+    var reimported = msg(id, sid, "after");
+
+    assertThat(cache.size()).isZero();
+    assertThat(cached.writeValueAsBytes(reimported)).isEqualTo(mapper().writeValueAsBytes(reimported));
+  }
+}
@@ -0,0 +1,167 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageTailCacheTest {
+
+  static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+  SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+  private MessageTailCache cache(int messages, long maxBytes) {
+    var props = new AppProperties();
+    props.getCache().getTail().setMessages(messages);
+    props.getCache().getTail().setMaxBytes(maxBytes);
+    return new MessageTailCache(props, meters);
+  }
+
+  private static MessageDtos.MessageResponse msg(UUID sessionId, int second) {
+    return new MessageDtos.MessageResponse(UUID.randomUUID(), sessionId, ChatMessage.Sender.USER, "m" + second, null,
+        T0.plusSeconds(second));
+  }
+
+  /** {@code count} messages at seconds 0..count-1, newest first like {@code findTail}. */
+  private static List<MessageDtos.MessageResponse> newestFirst(UUID sessionId, int count) {
+    var out = new ArrayList<MessageDtos.MessageResponse>();
+    for (int i = count - 1; i >= 0; i--) out.add(msg(sessionId, i));
+    return out;
+  }
+
+  private static List<String> contents(List<MessageDtos.MessageResponse> messages) {
+    return messages.stream().map(MessageDtos.MessageResponse::content).toList();
+  }
+
+  private double requests(String result) {
+    return meters.get("chat.cache.tail.requests").tag("result", result).counter().count();
+  }
+
+  @Test
+  void completeTail_answersAnyCount_partialTailOnlyWhatItHolds() {
+    var cache = cache(3, 1 << 20);
+    UUID small = UUID.randomUUID();
+    UUID large = UUID.randomUUID();
+    assertThat(cache.latest(small, 10)).isNull();
+
+    cache.fill(small, cache.stamp(small), newestFirst(small, 2), true);
+    cache.fill(large, cache.stamp(large), newestFirst(large, 5), false);
+
+    assertThat(contents(cache.latest(small, 10))).containsExactly("m0", "m1");
+    assertThat(contents(cache.latest(large, 2))).containsExactly("m3", "m4");
+    assertThat(contents(cache.latest(large, 3))).containsExactly("m2", "m3", "m4");
+    assertThat(cache.latest(large, 4)).isNull();
+    assertThat(requests("hit")).isEqualTo(3);
+    assertThat(requests("miss")).isEqualTo(2);
+  }
+
+  @Test
+  void appends_keepOrderAndCapacity() {
+    var cache = cache(3, 1 << 20);
+    UUID sid = UUID.randomUUID();
+    cache.fill(sid, cache.stamp(sid), newestFirst(sid, 2), true);
+
+    // committed out of order: the later message first
+    cache.onAppended(new MessagesAppendedEvent(sid, "u", List.of(msg(sid, 5))));
+    cache.onAppended(new MessagesAppendedEvent(sid, "u", List.of(msg(sid, 4))));
+
+    assertThat(contents(cache.latest(sid, 3))).containsExactly("m1", "m4", "m5");
+    // the oldest message fell out, so the tail no longer covers the whole session
+    assertThat(cache.latest(sid, 4)).isNull();
+  }
+
+  @Test
+  void appendAlreadyLoaded_isNotAddedTwice() {
+    var cache = cache(10, 1 << 20);
+    UUID sid = UUID.randomUUID();
+    var rows = newestFirst(sid, 3);
+    // the append's row was committed and read before its after-commit listener ran
+    cache.fill(sid, cache.stamp(sid), rows, true);
+
+    cache.onAppended(new MessagesAppendedEvent(sid, "u", List.of(rows.get(0))));
+
+    assertThat(contents(cache.latest(sid, 10))).containsExactly("m0", "m1", "m2");
+  }
+
+  @Test
+  void loadRacingAnAppend_isDiscarded() {
+    var cache = cache(10, 1 << 20);
+    UUID sid = UUID.randomUUID();
+    long stamp = cache.stamp(sid);
+    var staleRows = newestFirst(sid, 2);
+    cache.onAppended(new MessagesAppendedEvent(sid, "u", List.of(msg(sid, 9))));
+
+    cache.fill(sid, stamp, staleRows, true);
+
+    assertThat(cache.latest(sid, 5)).isNull();
+    cache.fill(sid, cache.stamp(sid), newestFirst(sid, 3), true);
+    assertThat(cache.latest(sid, 5)).hasSize(3);
+  }
+
+  @Test
+  void deleteAndImport_dropTails() {
+    var cache = cache(10, 1 << 20);
+    UUID a = UUID.randomUUID();
+    UUID b = UUID.randomUUID();
+    cache.fill(a, cache.stamp(a), newestFirst(a, 2), true);
+    cache.fill(b, cache.stamp(b), newestFirst(b, 2), true);
+    long stampBeforeImport = cache.stamp(b);
+
+    cache.onDeleted(new SessionDeletedEvent(a, "u"));
+    assertThat(cache.latest(a, 1)).isNull();
+    assertThat(cache.latest(b, 1)).isNotNull();
+
+    cache.onImported(new MessagesImportedEvent(1, 1));
+    assertThat(cache.size()).isZero();
+    assertThat(cache.bytes()).isZero();
+    cache.fill(b, stampBeforeImport, newestFirst(b, 2), true);
+    assertThat(cache.latest(b, 1)).isNull();
+  }
+
+  @Test
+  void memoryCap_evictsLeastRecentlyRead() {
+    // each message is estimated at 164 bytes, so three sessions of two fit and the fourth forces a trim
+    var cache = cache(10, 1_000);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      UUID sid = UUID.randomUUID();
+      ids.add(sid);
+      cache.fill(sid, cache.stamp(sid), newestFirst(sid, 2), true);
+    }
+    cache.latest(ids.get(0), 1);
+
+    UUID fourth = UUID.randomUUID();
+    cache.fill(fourth, cache.stamp(fourth), newestFirst(fourth, 2), true);
+
+    assertThat(cache.bytes()).isLessThanOrEqualTo(900);
+    assertThat(cache.latest(ids.get(0), 1)).isNotNull();
+    assertThat(cache.latest(fourth, 1)).isNotNull();
+    assertThat(cache.latest(ids.get(1), 1)).isNull();
+    assertThat(meters.get("chat.cache.tail.evictions").counter().count()).isPositive();
+  }
+
+  @Test
+  void disabled_neverCaches() {
+    var props = new AppProperties();
+    props.getCache().getTail().setEnabled(false);
+    var cache = new MessageTailCache(props, meters);
+    UUID sid = UUID.randomUUID();
+
+    cache.fill(sid, cache.stamp(sid), newestFirst(sid, 2), true);
+
+    assertThat(cache.latest(sid, 1)).isNull();
+    assertThat(cache.size()).isZero();
+  }
+}
@@ -0,0 +1,135 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionChangedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionMetadataCacheTest {
+
+  ChatSessionRepository sessionRepo = mock(ChatSessionRepository.class);
+  SimpleMeterRegistry meters = new SimpleMeterRegistry();
+  AtomicLong now = new AtomicLong();
+
+  private SessionMetadataCache cache(int maxEntries) {
+    var props = new AppProperties();
+    props.getCache().getSessions().setMaxEntries(maxEntries);
+    props.getCache().getSessions().setTtlSeconds(60);
+    return new SessionMetadataCache(props, sessionRepo, meters, now::get);
+  }
+
+  private SessionDtos.SessionResponse stored(UUID id, String title) {
+    var session = new SessionDtos.SessionResponse(id, "u", title, false, null, null);
+    when(sessionRepo.findResponseById(id)).thenReturn(Optional.of(session));
+    return session;
+  }
+
+  @Test
+  void secondLookup_isServedFromMemory() {
+    var cache = cache(10);
+    UUID id = UUID.randomUUID();
+    var session = stored(id, "t");
+
+    assertThat(cache.find(id)).contains(session);
+    assertThat(cache.find(id)).contains(session);
+
+    verify(sessionRepo, times(1)).findResponseById(id);
+    assertThat(meters.get("chat.cache.sessions.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void entries_expireAfterTtl() {
+    var cache = cache(10);
+    UUID id = UUID.randomUUID();
+    stored(id, "t");
+
+    cache.find(id);
+    now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+    cache.find(id);
+
+    verify(sessionRepo, times(2)).findResponseById(id);
+  }
+
+  @Test
+  void changeAndDelete_dropTheEntry() {
+    var cache = cache(10);
+    UUID id = UUID.randomUUID();
+    stored(id, "t");
+
+    cache.find(id);
+    cache.onChanged(new SessionChangedEvent(id, "u"));
+    var renamed = stored(id, "renamed");
+    assertThat(cache.find(id)).contains(renamed);
+
+    cache.onDeleted(new SessionDeletedEvent(id, "u"));
+    when(sessionRepo.findResponseById(id)).thenReturn(Optional.empty());
+    assertThat(cache.find(id)).isEmpty();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void loadRacingAChange_isNotInstalled() {
+    var cache = cache(10);
+    UUID id = UUID.randomUUID();
+    var before = new SessionDtos.SessionResponse(id, "u", "before", false, null, null);
+    // the change commits while the load's query is running
+    when(sessionRepo.findResponseById(id)).thenAnswer(i -> {
+      cache.invalidate(id);
+      return Optional.of(before);
+    });
+
+    assertThat(cache.find(id)).contains(before);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void messageVersion_isCachedUntilAnImport_withoutDroppingTheSession() {
+    var cache = cache(10);
+    UUID id = UUID.randomUUID();
+    stored(id, "t");
+    cache.find(id);
+    when(sessionRepo.findMessageVersionById(id)).thenReturn(Optional.of(1L), Optional.of(2L));
+
+    assertThat(cache.messageVersion(id)).isEqualTo(OptionalLong.of(1));
+    assertThat(cache.messageVersion(id)).isEqualTo(OptionalLong.of(1));
+    cache.onImported(new MessagesImportedEvent(0, 1));
+    assertThat(cache.messageVersion(id)).isEqualTo(OptionalLong.of(2));
+
+    cache.find(id);
+    verify(sessionRepo, times(1)).findResponseById(id);
+  }
+
+  @Test
+  void overCap_dropsLeastRecentlyUsed() {
+    var cache = cache(10);
+    UUID first = UUID.randomUUID();
+    stored(first, "first");
+    cache.find(first);
+    for (int i = 0; i < 10; i++) {
+      now.incrementAndGet();
+      UUID id = UUID.randomUUID();
+      stored(id, "s" + i);
+      cache.find(id);
+    }
+
+    assertThat(cache.size()).isLessThanOrEqualTo(10);
+    cache.find(first);
+    verify(sessionRepo, times(2)).findResponseById(first);
+  }
+}
@@ -0,0 +1,160 @@
+package com.example.chatservice.cache;
+
+import com.example.chatservice.service.NotFoundException;
+import com.example.chatservice.service.OverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+  SimpleMeterRegistry meters = new SimpleMeterRegistry();
+  SingleFlight flight = new SingleFlight("history", meters);
+  ExecutorService pool = Executors.newCachedThreadPool();
+  UUID scope = UUID.randomUUID();
+  AtomicInteger loads = new AtomicInteger();
+  CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  void shutdown() {
+    release.countDown();
+    pool.shutdownNow();
+  }
+
+  private double requests(String role) {
+    return meters.get("chat.coalescing.requests").tag("role", role).counter().count();
+  }
+
+  private String blockingLoad() {
+    loads.incrementAndGet();
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted");
+    }
+    return "rows";
+  }
+
+  private void awaitFollowers(int n) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (requests("follower") < n && System.nanoTime() < deadline) Thread.sleep(5);
+    assertThat(requests("follower")).isEqualTo(n);
+  }
+
+  @Test
+  void concurrentIdenticalReads_shareOneLoad() throws Exception {
+    List<Future<String>> results = new ArrayList<>();
+    results.add(pool.submit(() -> flight.run(scope, "page-0", this::blockingLoad)));
+    while (flight.inFlight() == 0) Thread.sleep(1);
+    for (int i = 0; i < 5; i++) results.add(pool.submit(() -> flight.run(scope, "page-0", this::blockingLoad)));
+    awaitFollowers(5);
+
+    release.countDown();
+    for (var r : results) assertThat(r.get(5, TimeUnit.SECONDS)).isEqualTo("rows");
+    assertThat(loads).hasValue(1);
+    assertThat(requests("leader")).isEqualTo(1);
+    assertThat(flight.inFlight()).isZero();
+  }
+
+  @Test
+  void readAfterAWrite_doesNotJoinAnOlderLoad() throws Exception {
+    var first = pool.submit(() -> flight.run(scope, "page-0", this::blockingLoad));
+    while (flight.inFlight() == 0) Thread.sleep(1);
+
+    flight.invalidate(scope);
+    var second = pool.submit(() -> flight.run(scope, "page-0", this::blockingLoad));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (loads.get() < 2 && System.nanoTime() < deadline) Thread.sleep(5);
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("rows");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("rows");
+    assertThat(loads).hasValue(2);
+    assertThat(requests("follower")).isZero();
+  }
+
+  @Test
+  void failures_areSharedWithFollowers() throws Exception {
+    var leader = pool.submit(() -> flight.run(scope, "page-0", () -> {
+      blockingLoad();
+      throw new NotFoundException("session_not_found");
+    }));
+    while (flight.inFlight() == 0) Thread.sleep(1);
+    var follower = pool.submit(() -> flight.run(scope, "page-0", this::blockingLoad));
+    awaitFollowers(1);
+    release.countDown();
+
+    for (var f : List.of(leader, follower)) {
+      var e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+      assertThat(e.getCause()).isInstanceOf(NotFoundException.class);
+    }
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void interruptedLeader_letsFollowersLoadThemselves() throws Exception {
+    var leader = pool.submit(() -> flight.run(scope, "page-0", this::blockingLoad));
+    while (flight.inFlight() == 0) Thread.sleep(1);
+    var follower = pool.submit(() -> flight.run(scope, "page-0", () -> {
+      loads.incrementAndGet();
+      return "own rows";
+    }));
+    awaitFollowers(1);
+
+    leader.cancel(true);
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("own rows");
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void insideATransaction_alwaysLoads() {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      flight.run(scope, "page-0", loads::incrementAndGet);
+      flight.run(scope, "page-0", loads::incrementAndGet);
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+    assertThat(loads).hasValue(2);
+    assertThat(requests("leader")).isZero();
+  }
+
+  @Test
+  void interruptedFollower_stopsWaitingWithoutDisturbingTheLoad() throws Exception {
+    var leader = pool.submit(() -> flight.run(scope, "page-0", this::blockingLoad));
+    while (flight.inFlight() == 0) Thread.sleep(1);
+    var outcome = new AtomicReference<Throwable>();
+    var waiter = new Thread(() -> {
+      try {
+        flight.run(scope, "page-0", this::blockingLoad);
+      } catch (RuntimeException e) {
+        outcome.set(e);
+      }
+    });
+    waiter.start();
+    awaitFollowers(1);
+    waiter.interrupt();
+    waiter.join(5000);
+
+    assertThat(outcome.get()).isInstanceOf(OverloadedException.class);
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("rows");
+  }
+}
@@ -0,0 +1,201 @@
+package com.example.chatservice.cluster;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.cache.ContentVersions;
+import com.example.chatservice.cache.MessageJsonCache;
+import com.example.chatservice.cache.MessageTailCache;
+import com.example.chatservice.cache.SessionMetadataCache;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.repo.SessionListVersionRepository;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClusterInvalidationTest {
+
+  /** One instance's caches and its link to the shared bus. */
+  static final class Node {
+    final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    final MessageTailCache tails = new MessageTailCache(new AppProperties(), meters);
+    final MessageJsonCache json = new MessageJsonCache(new AppProperties(), meters);
+    final SessionMetadataCache sessions;
+    final ContentVersions versions;
+    final ClusterInvalidation cluster;
+
+    Node(InvalidationBus bus, ChatSessionRepository sessionRepo, SessionListVersionRepository listVersions) {
+      var props = new AppProperties();
+      // appends are flushed by hand below rather than by the timer
+      props.getCache().getInvalidation().setMessagesDelayMs(60_000);
+      sessions = new SessionMetadataCache(props, sessionRepo, meters);
+      versions = new ContentVersions(props, listVersions);
+      cluster = new ClusterInvalidation(bus, tails, json, sessions, versions, props, meters);
+    }
+
+    double sessionHits() {
+      return meters.get("chat.cache.sessions.requests").tag("result", "hit").counter().count();
+    }
+  }
+
+  LoopbackInvalidationBus bus = new LoopbackInvalidationBus();
+  ChatSessionRepository sessionRepo = mock(ChatSessionRepository.class);
+  SessionListVersionRepository listVersions = mock(SessionListVersionRepository.class);
+  UUID sid = UUID.randomUUID();
+
+  private static MessageDtos.MessageResponse msg(UUID sid, String content) {
+    return new MessageDtos.MessageResponse(UUID.randomUUID(), sid, ChatMessage.Sender.USER, content, null,
+        Instant.parse("2024-01-01T00:00:00Z"));
+  }
+
+  @Test
+  void sessionChangeOnOneNode_dropsTheEntryOnTheOthers() {
+    when(sessionRepo.findResponseById(sid))
+        .thenReturn(Optional.of(new SessionDtos.SessionResponse(sid, "u", "t", false, null, null)));
+    var a = new Node(bus, sessionRepo, listVersions);
+    var b = new Node(bus, sessionRepo, listVersions);
+    a.sessions.find(sid);
+    b.sessions.find(sid);
+
+    a.cluster.onChanged(new SessionChangedEvent(sid, "u"));
+    a.sessions.find(sid);
+    b.sessions.find(sid);
+
+    // a's own cache follows the local event, not the bus
+    assertThat(a.sessionHits()).isEqualTo(1);
+    assertThat(b.sessionHits()).isZero();
+  }
+
+  @Test
+  void sessionChangeOnOneNode_expiresTheOwnersEtagsOnTheOthers() {
+    var a = new Node(bus, sessionRepo, listVersions);
+    var b = new Node(bus, sessionRepo, listVersions);
+    when(listVersions.find("u")).thenReturn(1L);
+    String list = b.versions.sessionListTag("u");
+    // the write committed through a, which bumped the persisted version
+    when(listVersions.find("u")).thenReturn(2L);
+    assertThat(b.versions.sessionListTag("u")).isEqualTo(list);
+
+    a.cluster.onChanged(new SessionChangedEvent(sid, "u"));
+
+    assertThat(b.versions.sessionListTag("u")).isNotEqualTo(list).isEqualTo(a.versions.sessionListTag("u"));
+  }
+
+  @Test
+  void appendOnOneNode_dropsTheTailOnTheOthers() {
+    var a = new Node(bus, sessionRepo, listVersions);
+    var b = new Node(bus, sessionRepo, listVersions);
+    a.tails.fill(sid, a.tails.stamp(sid), List.of(msg(sid, "one")), true);
+    b.tails.fill(sid, b.tails.stamp(sid), List.of(msg(sid, "one")), true);
+
+    a.cluster.onAppended(new MessagesAppendedEvent(sid, "u", List.of(msg(sid, "two"))));
+    assertThat(b.tails.latest(sid, 10)).isNotNull();
+    a.cluster.flushAppended();
+
+    assertThat(a.tails.latest(sid, 10)).isNotNull();
+    assertThat(b.tails.latest(sid, 10)).isNull();
+  }
+
+  @Test
+  void importOnOneNode_expiresTheHistoryVersionsOnTheOthers() {
+    var a = new Node(bus, sessionRepo, listVersions);
+    var b = new Node(bus, sessionRepo, listVersions);
+    when(sessionRepo.findMessageVersionById(sid)).thenReturn(Optional.of(1L));
+    b.sessions.messageVersion(sid);
+    when(sessionRepo.findMessageVersionById(sid)).thenReturn(Optional.of(2L));
+    assertThat(b.sessions.messageVersion(sid)).isEqualTo(OptionalLong.of(1));
+
+    a.cluster.onImported(new MessagesImportedEvent(0, 1));
+
+    assertThat(b.sessions.messageVersion(sid)).isEqualTo(OptionalLong.of(2));
+  }
+
+  @Test
+  void appendsBetweenFlushes_areSentOncePerSession_inOneBatch() {
+    var batches = new ArrayList<List<Invalidation>>();
+    var recording = new LoopbackInvalidationBus() {
+      @Override
+      public void publishAll(Collection<Invalidation> invalidations) {
+        batches.add(List.copyOf(invalidations));
+      }
+    };
+    var a = new Node(recording, sessionRepo, listVersions);
+    UUID other = UUID.randomUUID();
+
+    for (int i = 0; i < 5; i++) a.cluster.onAppended(new MessagesAppendedEvent(sid, "u", List.of(msg(sid, "m" + i))));
+    a.cluster.onAppended(new MessagesAppendedEvent(other, "u", List.of(msg(other, "x"))));
+    a.cluster.flushAppended();
+
+    assertThat(batches).hasSize(1);
+    assertThat(batches.get(0)).extracting(Invalidation::sessionId).containsExactlyInAnyOrder(sid, other);
+    assertThat(batches.get(0)).extracting(Invalidation::kind).containsOnly(Invalidation.Kind.MESSAGES);
+  }
+
+  @Test
+  void failedFlush_keepsTheSessionsForTheNextOne() {
+    var sent = new ArrayList<Invalidation>();
+    var flaky = new LoopbackInvalidationBus() {
+      boolean down = true;
+
+      @Override
+      public void publishAll(Collection<Invalidation> invalidations) {
+        if (down) throw new IllegalStateException("database unavailable");
+        sent.addAll(invalidations);
+      }
+    };
+    var a = new Node(flaky, sessionRepo, listVersions);
+
+    a.cluster.onAppended(new MessagesAppendedEvent(sid, "u", List.of(msg(sid, "one"))));
+    a.cluster.flushAppended();
+    flaky.down = false;
+    a.cluster.flushAppended();
+
+    assertThat(sent).extracting(Invalidation::sessionId).containsExactly(sid);
+  }
+
+  @Test
+  void insideATransaction_deliversOnlyAfterCommit() {
+    var received = new ArrayList<Invalidation>();
+    bus.subscribe(received::add);
+    var invalidation = new Invalidation(UUID.randomUUID(), Invalidation.Kind.SESSION, sid);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      bus.publish(invalidation);
+      assertThat(received).isEmpty();
+      TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    assertThat(received).containsExactly(invalidation);
+  }
+
+  @Test
+  void payload_roundTrips_andRejectsGarbage() {
+    var withSession = new Invalidation(UUID.randomUUID(), Invalidation.Kind.MESSAGES, sid);
+    var withoutSession = new Invalidation(UUID.randomUUID(), Invalidation.Kind.IMPORT, null);
+    var withUser = new Invalidation(UUID.randomUUID(), Invalidation.Kind.SESSION, sid, "user with spaces");
+    assertThat(Invalidation.decode(withSession.encode())).isEqualTo(withSession);
+    assertThat(Invalidation.decode(withUser.encode())).isEqualTo(withUser);
+    assertThat(Invalidation.decode(withoutSession.encode())).isEqualTo(withoutSession);
+    assertThat(Invalidation.decode("not an invalidation")).isNull();
+    assertThat(Invalidation.decode(null)).isNull();
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.chatservice.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+  UuidV7Generator gen = new UuidV7Generator();
+
+  @Test
+  void setsVersionVariantAndTimestamp() {
+    long before = System.currentTimeMillis();
+    UUID id = gen.generateId();
+    assertThat(id.version()).isEqualTo(7);
+    assertThat(id.variant()).isEqualTo(2);
+    assertThat(id.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis() + 1);
+  }
+
+  @Test
+  void isStrictlyIncreasingAcrossThreads() {
+    int threads = 8;
+    int perThread = 20_000;
+    List<CompletableFuture<List<UUID>>> runs = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      runs.add(CompletableFuture.supplyAsync(() -> {
+        List<UUID> out = new ArrayList<>(perThread);
+        for (int i = 0; i < perThread; i++) out.add(gen.generateId());
+        return out;
+      }));
+    }
+    var all = new HashSet<UUID>();
+    for (var run : runs) {
+      var ids = run.join();
+      for (int i = 1; i < ids.size(); i++) {
+        assertThat(ids.get(i).getMostSignificantBits()).isGreaterThan(ids.get(i - 1).getMostSignificantBits());
+      }
+      all.addAll(ids);
+    }
+    assertThat(all).hasSize(threads * perThread);
+  }
+}
@@ -0,0 +1,153 @@
+package com.example.chatservice.push;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.service.OverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageHubTest {
+
+  AppProperties props = new AppProperties();
+  MessageHub hub;
+
+  @AfterEach
+  void teardown() {
+    if (hub != null) hub.stop();
+  }
+
+  private MessageHub newHub(int bufferSize, int maxSubscribers) {
+    props.getPush().setBufferSize(bufferSize);
+    props.getPush().setMaxSubscribers(maxSubscribers);
+    props.getPush().setHeartbeatSeconds(0);
+    return new MessageHub(props, new SimpleMeterRegistry());
+  }
+
+  private static MessageDtos.MessageResponse msg(UUID sessionId, String content) {
+    return new MessageDtos.MessageResponse(UUID.randomUUID(), sessionId, ChatMessage.Sender.USER, content, null, Instant.now());
+  }
+
+  /** Records deliveries; {@code gate} lets a test stall the consumer. */
+  static class RecordingSink implements MessageHub.Sink {
+    final List<String> received = new CopyOnWriteArrayList<>();
+    final CountDownLatch gate = new CountDownLatch(1);
+    volatile String closedWith;
+    volatile boolean blocking;
+    volatile boolean sending;
+    /** Set when close was called while a send was still running, which the hub must never do. */
+    volatile boolean overlapped;
+
+    @Override
+    public void send(MessageDtos.MessageResponse message) {
+      sending = true;
+      if (blocking) {
+        try {
+          gate.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      received.add(message.content());
+      sending = false;
+    }
+
+    @Override
+    public void heartbeat() {
+    }
+
+    @Override
+    public void close(String reason) {
+      if (sending) overlapped = true;
+      closedWith = reason;
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) throw new AssertionError("condition not met in time");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  void publish_deliversInOrderOnlyToSubscribersOfThatSession() throws Exception {
+    hub = newHub(16, 10);
+    UUID sid = UUID.randomUUID();
+    var sink = new RecordingSink();
+    var other = new RecordingSink();
+    hub.subscribe(sid, sink).start(Set.of());
+    hub.subscribe(UUID.randomUUID(), other).start(Set.of());
+
+    hub.publish(sid, List.of(msg(sid, "a"), msg(sid, "b")));
+    hub.publish(sid, List.of(msg(sid, "c")));
+
+    await(() -> sink.received.size() == 3);
+    assertThat(sink.received).containsExactly("a", "b", "c");
+    assertThat(other.received).isEmpty();
+  }
+
+  @Test
+  void start_skipsMessagesAlreadyReplayed() throws Exception {
+    hub = newHub(16, 10);
+    UUID sid = UUID.randomUUID();
+    var sink = new RecordingSink();
+    var sub = hub.subscribe(sid, sink);
+    var replayed = msg(sid, "replayed");
+    hub.publish(sid, List.of(replayed, msg(sid, "live")));
+
+    assertThat(sink.received).isEmpty();
+    sub.start(Set.of(replayed.id()));
+
+    await(() -> sink.received.size() == 1);
+    assertThat(sink.received).containsExactly("live");
+  }
+
+  @Test
+  void slowConsumer_isDroppedWithoutStallingOthers() throws Exception {
+    hub = newHub(2, 10);
+    UUID sid = UUID.randomUUID();
+    var slow = new RecordingSink();
+    slow.blocking = true;
+    var fast = new RecordingSink();
+    hub.subscribe(sid, slow).start(Set.of());
+    hub.subscribe(sid, fast).start(Set.of());
+
+    for (int i = 0; i < 10; i++) {
+      hub.publish(sid, List.of(msg(sid, "m" + i)));
+      int delivered = i + 1;
+      await(() -> fast.received.size() == delivered);
+    }
+    // dropped at once, but told only once its stuck send returns, never from the publishing thread
+    assertThat(hub.subscriberCount()).isEqualTo(1);
+    assertThat(slow.closedWith).isNull();
+    slow.gate.countDown();
+    await(() -> "slow_consumer".equals(slow.closedWith));
+    assertThat(slow.overlapped).isFalse();
+  }
+
+  @Test
+  void subscribe_overLimit_isRejected() {
+    hub = newHub(4, 1);
+    var sub = hub.subscribe(UUID.randomUUID(), new RecordingSink());
+    assertThrows(OverloadedException.class, () -> hub.subscribe(UUID.randomUUID(), new RecordingSink()));
+
+    sub.close();
+    hub.subscribe(UUID.randomUUID(), new RecordingSink());
+    assertThat(hub.subscriberCount()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.chatservice.rate;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.security.ApiKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeasedRateLimiterTest {
+
+  private final AtomicLong nanos = new AtomicLong();
+  private final AtomicLong millis = new AtomicLong(1_700_000_000_000L);
+  private final ApiKey key = new ApiKey("k", ApiKey.DEFAULT_TIER);
+  private DriverManagerDataSource dataSource;
+  private JdbcTemplate jdbc;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource("jdbc:h2:mem:leases-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    new ResourceDatabasePopulator(new ClassPathResource("db/migration/V5__rate_limit_bucket.sql")).execute(dataSource);
+    jdbc = new JdbcTemplate(dataSource);
+  }
+
+  private LeasedRateLimiter node(int capacity, int refillPerMinute, int leaseTokens) {
+    var props = new AppProperties();
+    props.getRateLimit().setCapacity(capacity);
+    props.getRateLimit().setRefillPerMinute(refillPerMinute);
+    props.getRateLimit().setLeaseTokens(leaseTokens);
+    props.getRateLimit().setLeaseTtlSeconds(10);
+    return new LeasedRateLimiter(props, jdbc, new DataSourceTransactionManager(dataSource), nanos::get, millis::get);
+  }
+
+  private long sharedTokens() {
+    return jdbc.queryForObject("SELECT tokens FROM rate_limit_bucket WHERE key_name = 'k'", Long.class);
+  }
+
+  @Test
+  void nodesShareOneBucket() {
+    var a = node(20, 1, 5);
+    var b = node(20, 1, 5);
+    var c = node(20, 1, 5);
+    int allowed = 0;
+    for (int i = 0; i < 60; i++) {
+      var n = i % 3 == 0 ? a : i % 3 == 1 ? b : c;
+      if (n.tryConsume(key, 1).allowed()) allowed++;
+    }
+    assertThat(allowed).isEqualTo(20);
+    assertThat(sharedTokens()).isZero();
+  }
+
+  @Test
+  void servesFromLeaseWithoutTouchingTheRow() {
+    var a = node(100, 60, 10);
+    assertThat(a.tryConsume(key, 1).allowed()).isTrue();
+    assertThat(sharedTokens()).isEqualTo(90);
+    for (int i = 0; i < 9; i++) assertThat(a.tryConsume(key, 1).allowed()).isTrue();
+    assertThat(sharedTokens()).isEqualTo(90);
+    assertThat(a.tryConsume(key, 1).allowed()).isTrue();
+    assertThat(sharedTokens()).isEqualTo(80);
+  }
+
+  @Test
+  void refusal_reportsWaitAndRefillsOverTime() {
+    var a = node(2, 60, 1);
+    assertThat(a.tryConsume(key, 2).allowed()).isTrue();
+    var denied = a.tryConsume(key, 1);
+    assertThat(denied.allowed()).isFalse();
+    assertThat(denied.nanosToWait()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+    // refused locally until the wait is over, even if the row was refilled meanwhile
+    jdbc.update("UPDATE rate_limit_bucket SET tokens = 2");
+    assertThat(a.tryConsume(key, 1).allowed()).isFalse();
+
+    jdbc.update("UPDATE rate_limit_bucket SET tokens = 0");
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    millis.addAndGet(1_500);
+    assertThat(a.tryConsume(key, 1).allowed()).isTrue();
+    assertThat(a.tryConsume(key, 1).allowed()).isFalse();
+  }
+
+  @Test
+  void expiredLease_isReturnedToTheRow() {
+    var a = node(10, 1, 5);
+    assertThat(a.tryConsume(key, 1).allowed()).isTrue();
+    assertThat(sharedTokens()).isEqualTo(5);
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+    assertThat(a.tryConsume(key, 1).allowed()).isTrue();
+    // the 4 tokens left in the old lease went back before a fresh chunk was taken
+    assertThat(sharedTokens()).isEqualTo(4);
+  }
+
+  @Test
+  void shutdown_returnsLeasedTokens_cappedAtCapacity() {
+    var a = node(10, 1, 5);
+    assertThat(a.tryConsume(key, 1).allowed()).isTrue();
+    assertThat(sharedTokens()).isEqualTo(5);
+
+    a.returnLeases();
+    assertThat(sharedTokens()).isEqualTo(9);
+
+    jdbc.update("UPDATE rate_limit_bucket SET tokens = 8");
+    var b = node(10, 1, 5);
+    assertThat(b.tryConsume(key, 1).allowed()).isTrue();
+    jdbc.update("UPDATE rate_limit_bucket SET tokens = 8");
+    b.returnLeases();
+    assertThat(sharedTokens()).isEqualTo(10);
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.chatservice.rate;
+
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.security.ApiKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalBucketStoreTest {
+
+  @Test
+  void idleBucket_isKeptUntilItsTierCouldHaveRefilled() {
+    var props = new AppProperties();
+    props.getRateLimit().setIdleEvictMinutes(1);
+    var bulk = new AppProperties.Tier();
+    bulk.setCapacity(600);
+    bulk.setRefillPerMinute(60);
+    props.getRateLimit().getTiers().put("bulk", bulk);
+    assertThat(LocalBucketStore.idleEvictMinutes(props.getRateLimit())).isEqualTo(10);
+
+    var nanos = new AtomicLong();
+    var store = new LocalBucketStore(props, nanos::get);
+    var key = new ApiKey("batch-job", "bulk");
+    assertThat(store.tryConsume(key, 600).allowed()).isTrue();
+
+    // idle past idle-evict-minutes but well short of the ten minutes a refill takes; another key triggers a sweep
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+    store.tryConsume(new ApiKey("other", ApiKey.DEFAULT_TIER), 1);
+
+    assertThat(store.tryConsume(key, 600).allowed()).isFalse();
+  }
+}
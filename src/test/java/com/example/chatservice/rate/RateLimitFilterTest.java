@@ -1,40 +1,155 @@
 package com.example.chatservice.rate;
 
 import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.security.ApiKey;
+import com.example.chatservice.security.ApiKeyAuthFilter;
+import com.example.chatservice.security.ApiKeyRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class RateLimitFilterTest {
 
-  @Test
-  void rateLimit_blocksAfterCapacity() throws Exception {
-    AppProperties props = Mockito.mock(AppProperties.class);
-    AppProperties.RateLimit rl = new AppProperties.RateLimit();
-    rl.setCapacity(1);
-    rl.setRefillPerMinute(60);
-    Mockito.when(props.getRateLimit()).thenReturn(rl);
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
 
-    RateLimitFilter f = new RateLimitFilter(props);
+  private static AppProperties props(int capacity) {
+    AppProperties props = new AppProperties();
+    props.getRateLimit().setCapacity(capacity);
+    props.getRateLimit().setRefillPerMinute(60);
+    return props;
+  }
 
-    var req1 = new MockHttpServletRequest("GET", "/api/v1/sessions");
-    req1.addHeader("X-API-KEY", "k");
-    var res1 = new MockHttpServletResponse();
-    var chain = new MockFilterChain();
+  private static void authenticate(String name) {
+    SecurityContextHolder.getContext().setAuthentication(
+        new TestingAuthenticationToken(new ApiKey(name, ApiKey.DEFAULT_TIER), null, "ROLE_API"));
+  }
+
+  private static MockHttpServletResponse call(RateLimitFilter f, String method, String path) throws Exception {
+    var res = new MockHttpServletResponse();
+    f.doFilter(new MockHttpServletRequest(method, path), res, new MockFilterChain());
+    return res;
+  }
 
-    f.doFilter(req1, res1, chain);
-    assertEquals(200, res1.getStatus());
+  @Test
+  void rateLimit_blocksAfterCapacity() throws Exception {
+    var props = props(1);
+    RateLimitFilter f = new RateLimitFilter(new LocalBucketStore(props), new RouteCosts(props), new SimpleMeterRegistry());
+    authenticate("k");
 
-    var req2 = new MockHttpServletRequest("GET", "/api/v1/sessions");
-    req2.addHeader("X-API-KEY", "k");
-    var res2 = new MockHttpServletResponse();
+    assertEquals(200, call(f, "GET", "/api/v1/sessions").getStatus());
 
-    f.doFilter(req2, res2, chain);
+    var res2 = call(f, "GET", "/api/v1/sessions");
     assertEquals(429, res2.getStatus());
     assertEquals("rate_limited", res2.getErrorMessage());
   }
+
+  @Test
+  void decisions_areCountedPerTier() throws Exception {
+    var props = props(1);
+    var meters = new SimpleMeterRegistry();
+    RateLimitFilter f = new RateLimitFilter(new LocalBucketStore(props), new RouteCosts(props), meters);
+    authenticate("k");
+
+    call(f, "GET", "/api/v1/sessions");
+    call(f, "GET", "/api/v1/sessions");
+    call(f, "GET", "/api/v1/sessions");
+
+    assertThat(meters.get("chat.ratelimit.requests").tags("tier", ApiKey.DEFAULT_TIER, "outcome", "allowed").counter().count())
+        .isEqualTo(1);
+    assertThat(meters.get("chat.ratelimit.requests").tags("tier", ApiKey.DEFAULT_TIER, "outcome", "rejected").counter().count())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void expensiveRoutes_costMoreTokens() throws Exception {
+    var props = props(30);
+    RateLimitFilter f = new RateLimitFilter(new LocalBucketStore(props), new RouteCosts(props), new SimpleMeterRegistry());
+    authenticate("k");
+
+    var res = call(f, "POST", "/api/v1/import");
+    assertEquals(200, res.getStatus());
+    assertEquals("10", res.getHeader("X-RateLimit-Remaining"));
+    assertEquals("0", call(f, "GET", "/api/v1/sessions/" + UUID.randomUUID() + "/export").getHeader("X-RateLimit-Remaining"));
+    assertEquals(429, call(f, "GET", "/api/v1/sessions").getStatus());
+  }
+
+  @Test
+  void tierLimits_applyPerKey() throws Exception {
+    var props = props(1);
+    var gold = new AppProperties.Tier();
+    gold.setCapacity(5);
+    gold.setRefillPerMinute(5);
+    props.getRateLimit().getTiers().put("gold", gold);
+    RateLimitFilter f = new RateLimitFilter(new LocalBucketStore(props), new RouteCosts(props), new SimpleMeterRegistry());
+    SecurityContextHolder.getContext().setAuthentication(
+        new TestingAuthenticationToken(new ApiKey("g", "gold"), null, "ROLE_API"));
+
+    for (int i = 0; i < 5; i++) assertEquals(200, call(f, "GET", "/api/v1/sessions").getStatus());
+    assertEquals(429, call(f, "GET", "/api/v1/sessions").getStatus());
+  }
+
+  @Test
+  void unauthenticatedKeys_neverAllocateBuckets() throws Exception {
+    var props = props(60);
+    props.setApiKeys("dev-key");
+    var store = new LocalBucketStore(props);
+    var limiter = new RateLimitFilter(store, new RouteCosts(props), new SimpleMeterRegistry());
+    var auth = new ApiKeyAuthFilter(new ApiKeyRegistry(props));
+
+    for (int i = 0; i < 10_000; i++) {
+      var req = new MockHttpServletRequest("GET", "/api/v1/sessions");
+      req.addHeader("X-API-KEY", UUID.randomUUID().toString());
+      var res = new MockHttpServletResponse();
+      auth.doFilter(req, res, new MockFilterChain(new HttpServlet() {}, limiter));
+      assertEquals(401, res.getStatus());
+    }
+    assertThat(store.size()).isZero();
+  }
+
+  @Test
+  void manyAuthenticatedKeys_stayWithinCap() {
+    var props = props(60);
+    props.getRateLimit().setMaxBuckets(1_000);
+    var store = new LocalBucketStore(props);
+
+    for (int i = 0; i < 50_000; i++) {
+      store.bucketFor(new ApiKey("key-" + i, ApiKey.DEFAULT_TIER));
+      assertThat(store.size()).isLessThanOrEqualTo(1_000);
+    }
+    // the most recent key survives trimming, its bucket is not reset
+    var hot = new ApiKey("key-49999", ApiKey.DEFAULT_TIER);
+    store.bucketFor(hot).tryConsume(60);
+    assertThat(store.bucketFor(hot).getAvailableTokens()).isZero();
+  }
+
+  @Test
+  void idleBuckets_areEvicted() {
+    var props = props(60);
+    props.getRateLimit().setIdleEvictMinutes(10);
+    var clock = new AtomicLong();
+    var store = new LocalBucketStore(props, clock::get);
+
+    for (int i = 0; i < 100; i++) store.bucketFor(new ApiKey("idle-" + i, ApiKey.DEFAULT_TIER));
+    assertThat(store.size()).isEqualTo(100);
+
+    clock.addAndGet(TimeUnit.MINUTES.toNanos(11));
+    store.bucketFor(new ApiKey("active", ApiKey.DEFAULT_TIER));
+    assertThat(store.size()).isEqualTo(1);
+  }
 }
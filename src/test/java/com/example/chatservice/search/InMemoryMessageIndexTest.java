@@ -0,0 +1,109 @@
+package com.example.chatservice.search;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.repo.ExportRow;
+import com.example.chatservice.service.MessagesAppendedEvent;
+import com.example.chatservice.service.MessagesImportedEvent;
+import com.example.chatservice.service.SessionDeletedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryMessageIndexTest {
+
+  @Mock
+  ChatSessionRepository sessionRepo;
+
+  @Mock
+  PlatformTransactionManager txManager;
+
+  InMemoryMessageIndex index;
+  UUID session = UUID.randomUUID();
+
+  @BeforeEach
+  void setup() {
+    when(sessionRepo.streamExportAll()).thenAnswer(i -> Stream.empty());
+    index = new InMemoryMessageIndex(sessionRepo, txManager);
+    // the first search builds the (empty) index from the database; later appends are indexed incrementally
+    index.search("u1", "warmup", 10);
+  }
+
+  private static MessageDtos.MessageResponse msg(UUID sessionId, String content) {
+    return new MessageDtos.MessageResponse(UUID.randomUUID(), sessionId, ChatMessage.Sender.USER, content, null, Instant.now());
+  }
+
+  private void append(String userId, UUID sessionId, String... contents) {
+    index.onAppended(new MessagesAppendedEvent(sessionId, userId,
+        Stream.of(contents).map(c -> msg(sessionId, c)).toList()));
+  }
+
+  @Test
+  void search_requiresEveryWordAndRanksByFrequency() {
+    append("u1", session, "postgres tuning notes", "Postgres postgres TUNING deep dive", "only postgres here");
+
+    var hits = index.search("u1", "Postgres tuning", 10);
+
+    assertThat(hits).extracting(MessageDtos.SearchHit::snippet)
+        .containsExactly("Postgres postgres TUNING deep dive", "postgres tuning notes");
+    assertThat(hits.get(0).sessionId()).isEqualTo(session);
+    assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+  }
+
+  @Test
+  void search_isScopedToUser() {
+    append("u1", session, "shared secret word");
+    append("u2", UUID.randomUUID(), "shared secret word");
+
+    assertThat(index.search("u1", "secret", 10)).hasSize(1);
+    assertThat(index.search("u3", "secret", 10)).isEmpty();
+  }
+
+  @Test
+  void deletedSession_dropsOutOfResults() {
+    append("u1", session, "ephemeral thought");
+    assertThat(index.search("u1", "ephemeral", 10)).hasSize(1);
+
+    index.onDeleted(new SessionDeletedEvent(session, "u"));
+
+    assertThat(index.search("u1", "ephemeral", 10)).isEmpty();
+  }
+
+  @Test
+  void snippet_isWindowAroundFirstMatch() {
+    String filler = "lorem ipsum ".repeat(30);
+    append("u1", session, filler + "needle in the haystack " + filler);
+
+    var snippet = index.search("u1", "needle", 1).get(0).snippet();
+
+    assertThat(snippet).startsWith("…").endsWith("…").contains("needle in the haystack");
+    assertThat(snippet.length()).isLessThan(220);
+  }
+
+  @Test
+  void import_triggersRebuildFromDatabase() {
+    var row = new ExportRow(session, "u1", "t", false, Instant.now(), Instant.now(),
+        UUID.randomUUID(), ChatMessage.Sender.ASSISTANT, "imported answer", null, Instant.now());
+    when(sessionRepo.streamExportAll()).thenAnswer(i -> Stream.of(row));
+
+    index.onImported(new MessagesImportedEvent(1, 1));
+
+    assertThat(index.search("u1", "imported", 10)).extracting(MessageDtos.SearchHit::messageId).containsExactly(row.messageId());
+    verify(sessionRepo, times(2)).streamExportAll();
+  }
+}
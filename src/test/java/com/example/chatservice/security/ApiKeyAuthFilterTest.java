@@ -5,7 +5,6 @@ import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
-import org.mockito.Mockito;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -13,9 +12,9 @@ class ApiKeyAuthFilterTest {
 
   @Test
   void missingApiKey_returns401() throws Exception {
-    AppProperties props = Mockito.mock(AppProperties.class);
-    Mockito.when(props.getApiKeys()).thenReturn("a,b");
-    ApiKeyAuthFilter f = new ApiKeyAuthFilter(props);
+    AppProperties props = new AppProperties();
+    props.setApiKeys("a,b");
+    ApiKeyAuthFilter f = new ApiKeyAuthFilter(new ApiKeyRegistry(props));
 
     var req = new MockHttpServletRequest("GET", "/api/v1/sessions");
     var res = new MockHttpServletResponse();
@@ -29,9 +28,9 @@ class ApiKeyAuthFilterTest {
 
   @Test
   void validApiKey_allowsChain() throws Exception {
-    AppProperties props = Mockito.mock(AppProperties.class);
-    Mockito.when(props.getApiKeys()).thenReturn("a,b");
-    ApiKeyAuthFilter f = new ApiKeyAuthFilter(props);
+    AppProperties props = new AppProperties();
+    props.setApiKeys("a,b");
+    ApiKeyAuthFilter f = new ApiKeyAuthFilter(new ApiKeyRegistry(props));
 
     var req = new MockHttpServletRequest("GET", "/api/v1/sessions");
     req.addHeader("X-API-KEY", "a");
@@ -0,0 +1,71 @@
+package com.example.chatservice.security;
+
+import com.example.chatservice.config.AppProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ApiKeyRegistryTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void lookup_returnsMetadataForPlainAndHashedEntries() {
+    var props = new AppProperties();
+    String hashed = HexFormat.of().formatHex(ApiKeyRegistry.digest("s3cret"));
+    props.setApiKeys("plain-key, ci:{sha256}" + hashed + ":bulk , web:web-key");
+    var registry = new ApiKeyRegistry(props);
+
+    assertThat(registry.lookup("s3cret")).contains(new ApiKey("ci", "bulk"));
+    assertThat(registry.lookup("web-key")).contains(new ApiKey("web", ApiKey.DEFAULT_TIER));
+    assertThat(registry.lookup("plain-key")).hasValueSatisfying(k -> assertThat(k.name()).startsWith("key-"));
+    assertThat(registry.lookup("{sha256}" + hashed)).isEmpty();
+    assertThat(registry.lookup("plain-key ")).isEmpty();
+    assertThat(registry.size()).isEqualTo(3);
+  }
+
+  @Test
+  void escapedColons_stayInsideTheKey() {
+    var props = new AppProperties();
+    props.setApiKeys("legacy\\:with\\:colons, partner:p\\:key:bulk");
+    var registry = new ApiKeyRegistry(props);
+
+    assertThat(registry.lookup("legacy:with:colons")).isPresent();
+    assertThat(registry.lookup("p:key")).contains(new ApiKey("partner", "bulk"));
+  }
+
+  @Test
+  void invalidEntry_failsFast() {
+    var props = new AppProperties();
+    props.setApiKeys("a:b:c:d");
+    assertThrows(IllegalStateException.class, () -> new ApiKeyRegistry(props));
+  }
+
+  @Test
+  void reload_swapsFileKeysAndKeepsOldOnError() throws Exception {
+    Path file = dir.resolve("keys");
+    Files.writeString(file, "# rotated weekly\nold:old-key\n");
+    var props = new AppProperties();
+    props.setApiKeys("");
+    props.setApiKeysFile(file.toString());
+    props.setApiKeysReloadSeconds(0);
+    var registry = new ApiKeyRegistry(props);
+    assertThat(registry.lookup("old-key")).isPresent();
+
+    Files.writeString(file, "new:new-key:premium\n");
+    registry.reload();
+    assertThat(registry.lookup("old-key")).isEmpty();
+    assertThat(registry.lookup("new-key")).contains(new ApiKey("new", "premium"));
+
+    Files.writeString(file, "broken:{sha256}abc\n");
+    assertThrows(IllegalStateException.class, registry::reload);
+    assertThat(registry.lookup("new-key")).isPresent();
+  }
+}
@@ -1,24 +1,41 @@
 package com.example.chatservice.service;
 
 import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.cache.ContentVersions;
+import com.example.chatservice.cache.MessageTailCache;
+import com.example.chatservice.cache.SessionMetadataCache;
+import com.example.chatservice.config.AppProperties;
 import com.example.chatservice.domain.ChatMessage;
 import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.domain.UuidV7Generator;
 import com.example.chatservice.repo.ChatMessageRepository;
 import com.example.chatservice.repo.ChatSessionRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.util.IdGenerator;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,14 +47,34 @@ class ChatMessageServiceTest {
   @Mock
   ChatSessionRepository sessionRepo;
 
+  @Mock
+  ApplicationEventPublisher events;
+
+  @Spy
+  IdGenerator ids = new UuidV7Generator();
+
+  @Spy
+  AppProperties props = new AppProperties();
+
+  @Spy
+  MessageTailCache tailCache = new MessageTailCache(new AppProperties(), new SimpleMeterRegistry());
+
+  @Mock
+  SessionMetadataCache sessionCache;
+
   @InjectMocks
   ChatMessageService service;
 
+  private void knownSession(UUID sid) {
+    when(sessionCache.find(sid)).thenReturn(Optional.of(new SessionDtos.SessionResponse(sid, "u", "t", false, null, null)));
+  }
+
   @Test
   void append_shouldSaveMessage() {
     UUID sid = UUID.randomUUID();
     var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
-    when(sessionRepo.findById(sid)).thenReturn(Optional.of(session));
+    knownSession(sid);
+    when(sessionRepo.getReferenceById(sid)).thenReturn(session);
     when(messageRepo.save(any())).thenAnswer(i -> i.getArgument(0));
 
     var req = new MessageDtos.CreateMessageRequest(ChatMessage.Sender.USER, "hello", null);
@@ -46,25 +83,176 @@ class ChatMessageServiceTest {
     assertThat(m.getSession().getId()).isEqualTo(sid);
     assertThat(m.getContent()).isEqualTo("hello");
     assertThat(m.getSender()).isEqualTo(ChatMessage.Sender.USER);
+    verify(sessionRepo, times(0)).bumpMessageVersion(any());
+    verify(events).publishEvent(new MessagesAppendedEvent(sid, "u", List.of(MessageDtos.MessageResponse.from(m))));
   }
 
   @Test
   void append_whenSessionMissing_throws() {
     UUID sid = UUID.randomUUID();
-    when(sessionRepo.findById(sid)).thenReturn(Optional.empty());
+    when(sessionCache.find(sid)).thenReturn(Optional.empty());
     var req = new MessageDtos.CreateMessageRequest(ChatMessage.Sender.USER, "hi", null);
     assertThrows(NotFoundException.class, () -> service.append(sid, req));
   }
 
   @Test
-  void history_returnsPage() {
+  void append_whenCachedSessionWasDeleted_invalidatesAndThrows() {
+    UUID sid = UUID.randomUUID();
+    knownSession(sid);
+    when(sessionRepo.getReferenceById(sid)).thenReturn(ChatSession.builder().id(sid).build());
+    when(messageRepo.save(any())).thenAnswer(i -> i.getArgument(0));
+    doThrow(new DataIntegrityViolationException("fk")).when(messageRepo).flush();
+
+    var req = new MessageDtos.CreateMessageRequest(ChatMessage.Sender.USER, "hi", null);
+    assertThrows(NotFoundException.class, () -> service.append(sid, req));
+    verify(sessionCache).invalidate(sid);
+    verify(events, times(0)).publishEvent(any());
+  }
+
+  @Test
+  void appendAll_savesInRequestOrder() {
     UUID sid = UUID.randomUUID();
     var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
-    when(sessionRepo.findById(sid)).thenReturn(Optional.of(session));
-    var msg = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("c").build();
-    when(messageRepo.findBySessionOrderByCreatedAtAsc(any(), any())).thenReturn(new PageImpl<>(List.of(msg)));
+    knownSession(sid);
+    when(sessionRepo.getReferenceById(sid)).thenReturn(session);
+    when(messageRepo.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+
+    var out = service.appendAll(sid, List.of(
+        new MessageDtos.CreateMessageRequest(ChatMessage.Sender.USER, "q", null),
+        new MessageDtos.CreateMessageRequest(ChatMessage.Sender.SYSTEM, "s", null),
+        new MessageDtos.CreateMessageRequest(ChatMessage.Sender.ASSISTANT, "a", "{}")));
+
+    assertThat(out).extracting(ChatMessage::getContent).containsExactly("q", "s", "a");
+    assertThat(out).allMatch(ChatMessage::isNew);
+  }
+
+  @Test
+  void appendAll_rejectsOversizedBatch() {
+    var reqs = java.util.Collections.nCopies(ChatMessageService.MAX_BATCH_SIZE + 1,
+        new MessageDtos.CreateMessageRequest(ChatMessage.Sender.USER, "x", null));
+    assertThrows(BadRequestException.class, () -> service.appendAll(UUID.randomUUID(), reqs));
+  }
+
+  @Test
+  void history_returnsPage() {
+    UUID sid = UUID.randomUUID();
+    knownSession(sid);
+    var msg = new MessageDtos.MessageResponse(UUID.randomUUID(), sid, ChatMessage.Sender.USER, "c", null, Instant.now());
+    when(messageRepo.findResponsesBySessionId(eq(sid), any())).thenReturn(new PageImpl<>(List.of(msg)));
 
     var p = service.history(sid, 0, 10);
     assertThat(p.getTotalElements()).isEqualTo(1);
   }
+
+  @Test
+  void scroll_fromHead_returnsNextCursorOnly() {
+    UUID sid = UUID.randomUUID();
+    var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
+    var t0 = Instant.parse("2024-01-01T00:00:00Z");
+    var m1 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("a").createdAt(t0).build();
+    var m2 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("b").createdAt(t0.plusSeconds(1)).build();
+    var m3 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("c").createdAt(t0.plusSeconds(2)).build();
+    knownSession(sid);
+    when(messageRepo.findHead(eq(sid), any())).thenReturn(List.of(m1, m2, m3));
+
+    var w = service.scroll(sid, null, MessageCursor.Direction.FORWARD, 2);
+
+    assertThat(w.items()).containsExactly(MessageDtos.MessageResponse.from(m1), MessageDtos.MessageResponse.from(m2));
+    assertThat(w.prev()).isNull();
+    assertThat(w.next()).isEqualTo(new MessageCursor(MessageCursor.Direction.FORWARD, m2.getCreatedAt(), m2.getId()));
+  }
+
+  @Test
+  void scroll_backwardFromCursor_returnsAscendingItems() {
+    UUID sid = UUID.randomUUID();
+    var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
+    var t0 = Instant.parse("2024-01-01T00:00:00Z");
+    var m1 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("a").createdAt(t0).build();
+    var m2 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("b").createdAt(t0.plusSeconds(1)).build();
+    var cursor = new MessageCursor(MessageCursor.Direction.BACKWARD, t0.plusSeconds(2), UUID.randomUUID());
+    knownSession(sid);
+    when(messageRepo.findBefore(eq(sid), eq(cursor.createdAt()), eq(cursor.id()), any())).thenReturn(List.of(m2, m1));
+
+    var w = service.scroll(sid, cursor, MessageCursor.Direction.FORWARD, 10);
+
+    assertThat(w.items()).containsExactly(MessageDtos.MessageResponse.from(m1), MessageDtos.MessageResponse.from(m2));
+    assertThat(w.prev()).isNull();
+    assertThat(w.next().id()).isEqualTo(m2.getId());
+  }
+
+  @Test
+  void latest_missLoadsTail_thenHitSkipsTheDatabase() {
+    UUID sid = UUID.randomUUID();
+    var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
+    var t0 = Instant.parse("2024-01-01T00:00:00Z");
+    var m1 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("a").createdAt(t0).build();
+    var m2 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("b").createdAt(t0.plusSeconds(1)).build();
+    var m3 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("c").createdAt(t0.plusSeconds(2)).build();
+    knownSession(sid);
+    when(messageRepo.findTail(eq(sid), any())).thenReturn(List.of(m3, m2, m1));
+
+    var first = service.latest(sid, 2);
+    var second = service.latest(sid, 2);
+
+    assertThat(second).isEqualTo(first);
+    assertThat(second.items()).extracting(MessageDtos.MessageResponse::content).containsExactly("b", "c");
+    assertThat(second.next()).isNull();
+    assertThat(second.prev()).isEqualTo(new MessageCursor(MessageCursor.Direction.BACKWARD, m2.getCreatedAt(), m2.getId()));
+    verify(messageRepo, times(1)).findTail(eq(sid), any());
+    verify(sessionCache, times(1)).find(sid);
+  }
+
+  @Test
+  void latest_unknownSession_throws() {
+    UUID sid = UUID.randomUUID();
+    when(sessionCache.find(sid)).thenReturn(Optional.empty());
+    assertThrows(NotFoundException.class, () -> service.latest(sid, 10));
+  }
+
+  @Test
+  void historyTag_followsTheNewestMessage_fromTheCachedTailOnceLoaded() {
+    UUID sid = UUID.randomUUID();
+    var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
+    var m1 = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("a")
+        .createdAt(Instant.parse("2024-01-01T00:00:00Z")).build();
+    knownSession(sid);
+    when(sessionCache.messageVersion(sid)).thenReturn(OptionalLong.of(0));
+    when(messageRepo.findTail(eq(sid), any())).thenReturn(List.of(m1));
+
+    String cold = service.historyTag(sid);
+    service.latest(sid, 10);
+    String warm = service.historyTag(sid);
+
+    assertThat(warm).isEqualTo(cold).isEqualTo(ContentVersions.historyTag(0, m1.getId()));
+    verify(messageRepo, times(2)).findTail(eq(sid), any());
+    // an import bumped the version
+    when(sessionCache.messageVersion(sid)).thenReturn(OptionalLong.of(1));
+    assertThat(service.historyTag(sid)).isNotEqualTo(warm);
+  }
+
+  @Test
+  void historyTag_isWithheldWhileTheNewestMessageMayHideAnUncommittedOlderOne() {
+    UUID sid = UUID.randomUUID();
+    var session = ChatSession.builder().id(sid).userId("u").title("t").favorite(false).build();
+    var fresh = ChatMessage.builder().id(UUID.randomUUID()).session(session).sender(ChatMessage.Sender.USER).content("a")
+        .createdAt(Instant.now()).build();
+    when(sessionCache.messageVersion(sid)).thenReturn(OptionalLong.of(0));
+    when(messageRepo.findTail(eq(sid), any())).thenReturn(List.of(fresh));
+
+    assertThat(service.historyTag(sid)).isNull();
+  }
+
+  @Test
+  void historyTag_unknownSession_throws() {
+    UUID sid = UUID.randomUUID();
+    when(sessionCache.messageVersion(sid)).thenReturn(OptionalLong.empty());
+    assertThrows(NotFoundException.class, () -> service.historyTag(sid));
+  }
+
+  @Test
+  void cursor_roundTrips_andRejectsGarbage() {
+    var c = new MessageCursor(MessageCursor.Direction.BACKWARD, Instant.parse("2024-01-01T00:00:00.123456Z"), UUID.randomUUID());
+    assertThat(MessageCursor.decode(c.encode())).isEqualTo(c);
+    assertThrows(BadRequestException.class, () -> MessageCursor.decode("not-a-cursor"));
+  }
 }
@@ -1,14 +1,21 @@
 package com.example.chatservice.service;
 
 import com.example.chatservice.api.dto.SessionDtos;
+import com.example.chatservice.cache.SessionMetadataCache;
 import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.domain.UuidV7Generator;
 import com.example.chatservice.repo.ChatSessionRepository;
+import com.example.chatservice.repo.SessionListVersionRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.util.IdGenerator;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +24,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +33,18 @@ class ChatSessionServiceTest {
     @Mock
     ChatSessionRepository sessionRepo;
 
+    @Mock
+    ApplicationEventPublisher events;
+
+    @Spy
+    IdGenerator ids = new UuidV7Generator();
+
+    @Mock
+    SessionMetadataCache sessionCache;
+
+    @Mock
+    SessionListVersionRepository listVersions;
+
     @InjectMocks
     ChatSessionService service;
 
@@ -40,17 +60,42 @@ class ChatSessionServiceTest {
         assertThat(s.isFavorite()).isFalse();
         assertThat(s.getId()).isNotNull();
         verify(sessionRepo).save(any());
+        verify(listVersions).bump("alice");
+        verify(events).publishEvent(new SessionChangedEvent(s.getId(), "alice"));
     }
 
     @Test
     void list_callsRepository() {
         var page = new PageImpl<>(
-                List.of(ChatSession.builder().id(UUID.randomUUID()).userId("u").title("t").favorite(false).build()));
-        when(sessionRepo.findByUserId(any(), any())).thenReturn(page);
+                List.of(new SessionDtos.SessionResponse(UUID.randomUUID(), "u", "t", false, null, null)));
+        when(sessionRepo.findByUserId(any(), any(), eq(SessionDtos.SessionResponse.class))).thenReturn(page);
 
-        var p = service.list("u", null, null, 0, 10);
+        var p = service.list("u", null, null, ChatSessionService.TitleMatch.CONTAINS, 0, 10);
         assertThat(p.getTotalElements()).isEqualTo(1);
-        verify(sessionRepo).findByUserId(any(), any());
+        verify(sessionRepo).findByUserId(any(), any(), eq(SessionDtos.SessionResponse.class));
+    }
+
+    @Test
+    void listSlice_withQuery_usesCountFreeFinder() {
+        when(sessionRepo.searchSliceByTitle(any(), any(), any(), any())).thenReturn(new SliceImpl<>(List.of()));
+
+        var s = service.listSlice("u", null, "foo", ChatSessionService.TitleMatch.CONTAINS, 0, 10);
+        assertThat(s.hasNext()).isFalse();
+        verify(sessionRepo, never()).searchByTitle(any(), any(), any(), any());
+    }
+
+    @Test
+    void list_withQueryAndFavorite_keepsBothFilters() {
+        when(sessionRepo.searchByTitle(any(), any(), any(), any())).thenReturn(new PageImpl<>(List.of()));
+
+        service.list("u", true, "  Road Trip ", ChatSessionService.TitleMatch.PREFIX, 0, 10);
+        verify(sessionRepo).searchByTitle(eq("u"), eq("road trip%"), eq(true), any());
+    }
+
+    @Test
+    void titlePattern_escapesLikeWildcards() {
+        assertThat(ChatSessionService.titlePattern("50%_off\\", ChatSessionService.TitleMatch.CONTAINS))
+                .isEqualTo("%50\\%\\_off\\\\%");
     }
 
     @Test
@@ -71,12 +116,23 @@ class ChatSessionServiceTest {
 
         var favored = service.favorite(id, true);
         assertThat(favored.isFavorite()).isTrue();
+        verify(events, times(2)).publishEvent(new SessionChangedEvent(id, "u"));
+    }
+
+    @Test
+    void delete_publishesSessionDeleted() {
+        UUID id = UUID.randomUUID();
+        var s = ChatSession.builder().id(id).userId("u").title("t").favorite(false).build();
+        when(sessionRepo.findById(id)).thenReturn(Optional.of(s));
+        service.delete(id);
+        verify(sessionRepo).delete(s);
+        verify(events).publishEvent(new SessionDeletedEvent(id, "u"));
     }
 
     @Test
     void delete_whenNotExists_throws() {
         UUID id = UUID.randomUUID();
-        when(sessionRepo.existsById(id)).thenReturn(false);
+        when(sessionRepo.findById(id)).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> service.delete(id));
     }
 }
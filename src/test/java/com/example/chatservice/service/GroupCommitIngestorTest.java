@@ -0,0 +1,244 @@
+package com.example.chatservice.service;
+
+import com.example.chatservice.api.dto.MessageDtos;
+import com.example.chatservice.cache.SessionMetadataCache;
+import com.example.chatservice.config.AppProperties;
+import com.example.chatservice.domain.ChatMessage;
+import com.example.chatservice.domain.ChatSession;
+import com.example.chatservice.domain.UuidV7Generator;
+import com.example.chatservice.repo.ChatMessageRepository;
+import com.example.chatservice.repo.ChatSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GroupCommitIngestorTest {
+
+  @Mock
+  ChatSessionRepository sessionRepo;
+
+  @Mock
+  ChatMessageRepository messageRepo;
+
+  @Mock
+  PlatformTransactionManager txManager;
+
+  @Mock
+  ApplicationEventPublisher events;
+
+  @Mock
+  SessionMetadataCache sessionCache;
+
+  SimpleMeterRegistry meters = new SimpleMeterRegistry();
+  AppProperties props = new AppProperties();
+  GroupCommitIngestor ingestor;
+  ChatSession session = ChatSession.builder().id(UUID.randomUUID()).userId("u").title("t").favorite(false).build();
+
+  @BeforeEach
+  void setup() {
+    when(sessionRepo.findAllById(anyIterable())).thenAnswer(i -> {
+      List<ChatSession> found = new ArrayList<>();
+      for (Object id : (Iterable<?>) i.getArgument(0)) if (session.getId().equals(id)) found.add(session);
+      return found;
+    });
+    when(messageRepo.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+  }
+
+  @AfterEach
+  void teardown() throws Exception {
+    if (ingestor != null) ingestor.stop();
+  }
+
+  private GroupCommitIngestor newIngestor(int capacity, long maxDelayMs) {
+    props.getIngest().setQueueCapacity(capacity);
+    props.getIngest().setMaxDelayMs(maxDelayMs);
+    return new GroupCommitIngestor(props, sessionRepo, messageRepo, txManager, new UuidV7Generator(), events, sessionCache,
+        meters);
+  }
+
+  private static MessageDtos.CreateMessageRequest req(String content) {
+    return new MessageDtos.CreateMessageRequest(ChatMessage.Sender.USER, content, null);
+  }
+
+  @Test
+  void commit_acksSavedAndFailsMissingSessions() {
+    ingestor = newIngestor(10, 0);
+    var ok = new GroupCommitIngestor.Pending(session.getId(), req("a"), new CompletableFuture<>());
+    var missing = new GroupCommitIngestor.Pending(UUID.randomUUID(), req("b"), new CompletableFuture<>());
+
+    ingestor.commit(List.of(ok, missing));
+
+    assertThat(ok.result().join().getContent()).isEqualTo("a");
+    var ex = assertThrows(ExecutionException.class, () -> missing.result().get());
+    assertThat(ex.getCause()).isInstanceOf(NotFoundException.class);
+    verify(messageRepo, times(1)).saveAll(any());
+    verify(txManager, times(1)).commit(any());
+  }
+
+  @Test
+  void commit_mapsForeignKeyFailureToNotFound() {
+    ingestor = newIngestor(10, 0);
+    var other = ChatSession.builder().id(UUID.randomUUID()).userId("u").title("t").favorite(false).build();
+    when(sessionRepo.findAllById(anyIterable())).thenReturn(List.of(session, other));
+    // the second session is deleted after the lookup: its row fails the foreign key, in the batch and alone
+    when(messageRepo.saveAll(any())).thenAnswer(i -> {
+      for (Object m : (Iterable<?>) i.getArgument(0)) {
+        if (((ChatMessage) m).getSession() == other) throw new DataIntegrityViolationException("fk");
+      }
+      return i.getArgument(0);
+    });
+    var ok = new GroupCommitIngestor.Pending(session.getId(), req("a"), new CompletableFuture<>());
+    var deleted = new GroupCommitIngestor.Pending(other.getId(), req("b"), new CompletableFuture<>());
+
+    ingestor.commit(List.of(ok, deleted));
+
+    assertThat(ok.result().join().getContent()).isEqualTo("a");
+    var ex = assertThrows(ExecutionException.class, () -> deleted.result().get());
+    assertThat(ex.getCause()).isInstanceOf(NotFoundException.class).hasMessage("session_not_found");
+    verify(sessionCache).invalidate(other.getId());
+  }
+
+  @Test
+  void commit_failsWholeBatchWithoutRetryWhenNoTransaction() {
+    ingestor = newIngestor(10, 0);
+    var down = new CannotCreateTransactionException("no connection");
+    doThrow(down).when(txManager).getTransaction(any());
+    var a = new GroupCommitIngestor.Pending(session.getId(), req("a"), new CompletableFuture<>());
+    var b = new GroupCommitIngestor.Pending(session.getId(), req("b"), new CompletableFuture<>());
+
+    ingestor.commit(List.of(a, b));
+
+    for (var p : List.of(a, b)) {
+      var ex = assertThrows(ExecutionException.class, () -> p.result().get());
+      assertThat(ex.getCause()).isSameAs(down);
+    }
+    verify(txManager, times(1)).getTransaction(any());
+  }
+
+  @Test
+  void stuckBatch_givesUpWithOutcomeUnknown() throws Exception {
+    // long enough for the writer to claim the append, which then never commits
+    props.getIngest().setAckTimeoutMs(500);
+    props.getIngest().setCommitTimeoutMs(50);
+    var release = new CountDownLatch(1);
+    when(messageRepo.saveAll(any())).thenAnswer(i -> {
+      release.await();
+      return i.getArgument(0);
+    });
+    ingestor = newIngestor(10, 0);
+    ingestor.start();
+
+    var ex = assertThrows(OverloadedException.class, () -> ingestor.append(session.getId(), req("a")));
+    assertThat(ex.getMessage()).isEqualTo("ingest_outcome_unknown");
+    release.countDown();
+  }
+
+  @Test
+  void concurrentAppends_shareCommits() throws Exception {
+    ingestor = newIngestor(100, 200);
+    ingestor.start();
+    int n = 10;
+    try (var pool = Executors.newFixedThreadPool(n)) {
+      List<CompletableFuture<ChatMessage>> calls = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        String content = "m" + i;
+        calls.add(CompletableFuture.supplyAsync(() -> ingestor.append(session.getId(), req(content)), pool));
+      }
+      for (var c : calls) assertThat(c.get().getSession()).isSameAs(session);
+    }
+    var batches = meters.get("chat.ingest.batch.size").summary();
+    assertThat(batches.totalAmount()).isEqualTo(n);
+    assertThat(batches.count()).isLessThan(n);
+  }
+
+  @Test
+  void fullQueue_isRejected() throws Exception {
+    ingestor = newIngestor(1, 0);
+    // writer not started: the first append parks in the queue
+    var first = CompletableFuture.runAsync(() -> ingestor.append(session.getId(), req("a")));
+    var depth = meters.get("chat.ingest.queue.depth").gauge();
+    while (depth.value() < 1) Thread.sleep(5);
+
+    var ex = assertThrows(OverloadedException.class, () -> ingestor.append(session.getId(), req("b")));
+    assertThat(ex.getMessage()).isEqualTo("ingest_queue_full");
+
+    ingestor.start();
+    first.get();
+  }
+
+  @Test
+  void appendAfterStop_isRejectedAsStopped() throws Exception {
+    ingestor = newIngestor(10, 0);
+    ingestor.start();
+    ingestor.stop();
+
+    var ex = assertThrows(OverloadedException.class, () -> ingestor.append(session.getId(), req("a")));
+    assertThat(ex.getMessage()).isEqualTo("ingest_stopped");
+    verify(messageRepo, never()).saveAll(any());
+  }
+
+  @Test
+  void timedOutAppend_isWithdrawnAndNeverWritten() throws Exception {
+    props.getIngest().setAckTimeoutMs(50);
+    ingestor = newIngestor(10, 0);
+    // writer not started: the append times out while still queued
+
+    var ex = assertThrows(OverloadedException.class, () -> ingestor.append(session.getId(), req("a")));
+    assertThat(ex.getMessage()).isEqualTo("ingest_timeout");
+
+    ingestor.start();
+    ingestor.stop();
+    verify(messageRepo, never()).saveAll(any());
+    assertThat(meters.get("chat.ingest.queue.depth").gauge().value()).isZero();
+  }
+
+  @Test
+  void interruptedWriter_failsWhatItDrainedAndStops() throws Exception {
+    ingestor = newIngestor(10, 10_000);
+    var call = CompletableFuture.supplyAsync(() -> ingestor.append(session.getId(), req("a")));
+    var depth = meters.get("chat.ingest.queue.depth").gauge();
+    while (depth.value() < 1) Thread.sleep(5);
+    // the writer takes the append, then waits for the batch to fill
+    ingestor.start();
+    while (depth.value() > 0 || ingestor.writer.getState() != Thread.State.TIMED_WAITING) Thread.sleep(5);
+
+    ingestor.writer.interrupt();
+
+    var ex = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+    assertThat(ex.getCause()).isInstanceOf(OverloadedException.class).hasMessage("ingest_stopped");
+    ingestor.writer.join(5000);
+    assertThat(ingestor.writer.isAlive()).isFalse();
+    verify(messageRepo, never()).saveAll(any());
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.chatservice.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTimingTest {
+
+  @AfterEach
+  void clear() {
+    RequestTiming.end();
+  }
+
+  @Test
+  void header_listsRecordedPhasesThenTotal() {
+    var timing = new RequestTiming(0, null);
+    timing.add(RequestTiming.Phase.AUTH, 120_000);
+    timing.add(RequestTiming.Phase.SQL, 1_000_000);
+    timing.add(RequestTiming.Phase.SQL, 500_000);
+
+    assertThat(timing.header(5_000_000))
+        .isEqualTo("auth;dur=0.12, sql;dur=1.50;desc=\"2 statements\", app;dur=5.00");
+  }
+
+  @Test
+  void nestedTransactions_countOnce() {
+    var timing = RequestTiming.begin(System.nanoTime(), null);
+    timing.transactionStarted();
+    timing.transactionStarted();
+    timing.transactionFinished();
+    assertThat(timing.count(RequestTiming.Phase.TX)).isZero();
+    timing.transactionFinished();
+    timing.transactionFinished();
+
+    assertThat(timing.count(RequestTiming.Phase.TX)).isEqualTo(1);
+  }
+
+  @Test
+  void unsampledRequest_recordsNothing() {
+    long startedAt = RequestTiming.start();
+    RequestTiming.stop(RequestTiming.Phase.AUTH, startedAt);
+
+    assertThat(startedAt).isZero();
+    assertThat(RequestTiming.current()).isNull();
+  }
+
+  @Test
+  void writeHeader_onceAndOnlyBeforeCommit() throws Exception {
+    var response = new MockHttpServletResponse();
+    var timing = RequestTiming.begin(System.nanoTime(), response);
+    timing.writeHeader();
+    timing.writeHeader();
+    assertThat(response.getHeaders("Server-Timing")).hasSize(1);
+
+    var committed = new MockHttpServletResponse();
+    committed.flushBuffer();
+    RequestTiming.begin(System.nanoTime(), committed).writeHeader();
+    assertThat(committed.getHeader("Server-Timing")).isNull();
+  }
+}
@@ -0,0 +1,42 @@
+package db.migration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenormalizeSessionTitlesTest {
+
+  @Test
+  void backfilledTitles_matchWhatTheApplicationWrites() throws Exception {
+    var dataSource = new DriverManagerDataSource("jdbc:h2:mem:titles-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    var jdbc = new JdbcTemplate(dataSource);
+    new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__init.sql")).execute(dataSource);
+    var now = Timestamp.from(Instant.now());
+    UUID tabbed = UUID.randomUUID();
+    UUID plain = UUID.randomUUID();
+    jdbc.update("INSERT INTO chat_session (id, user_id, title, favorite, created_at, updated_at) VALUES (?, 'u', ?, false, ?, ?)",
+        tabbed, "\tQuarterly Plan\n", now, now);
+    jdbc.update("INSERT INTO chat_session (id, user_id, title, favorite, created_at, updated_at) VALUES (?, 'u', ?, false, ?, ?)",
+        plain, "  Notes ", now, now);
+    new ResourceDatabasePopulator(new ClassPathResource("db/migration/V3__session_title_norm.sql")).execute(dataSource);
+    assertThat(jdbc.queryForObject("SELECT title_norm FROM chat_session WHERE id = ?", String.class, tabbed))
+        .isNotEqualTo("quarterly plan");
+
+    try (var con = dataSource.getConnection()) {
+      V7__renormalize_session_titles.renormalize(con);
+    }
+
+    assertThat(jdbc.queryForObject("SELECT title_norm FROM chat_session WHERE id = ?", String.class, tabbed))
+        .isEqualTo("quarterly plan");
+    assertThat(jdbc.queryForObject("SELECT title_norm FROM chat_session WHERE id = ?", String.class, plain))
+        .isEqualTo("notes");
+  }
+}